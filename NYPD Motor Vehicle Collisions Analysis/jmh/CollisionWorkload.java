@@ -0,0 +1,171 @@
+
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import collisions.benchmarks.Workload;
+
+/**
+ * CollisionWorkload implements the operations measured by the JMH benchmarks (see
+ * collisions.benchmarks.Workload) with the classes of the program. It has to be in
+ * the default package to use them.
+ * The lines given to split() and newCollision() are the first SAMPLE_SIZE lines of
+ * the data set, which keeps the benchmarks of single lines independent of the size
+ * of the data set.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionWorkload implements Workload {
+
+	private static final int SAMPLE_SIZE = 10000;
+
+	//the sample in the forms used by split() and newCollision()
+	private String [] lines;
+	private ArrayList<ArrayList<String>> records;
+
+	//the valid collisions of the data set, and the same split in two
+	private ArrayList<Collision> collisions;
+	private CollisionList firstHalf;
+	private ArrayList<Collision> secondHalf;
+
+	//the data set in lists with the report cache turned off and on
+	private CollisionList list;
+	private CollisionList cachedList;
+	//all collisions selected by a query, without running totals
+	private CollisionList queryResult;
+
+	@Override
+	public void setUp ( int numOfRows, int numOfZipCodes, long seed ) throws IllegalArgumentException {
+		CollisionDataGenerator generator = new CollisionDataGenerator(numOfZipCodes, 0, seed);
+		int numOfSampleRows = Math.min(numOfRows, SAMPLE_SIZE);
+		lines = new String [numOfSampleRows];
+		records = new ArrayList<ArrayList<String>>(numOfSampleRows);
+		collisions = new ArrayList<Collision>(numOfRows);
+		for (int i = 0; i < numOfRows; i++) {
+			String line = generator.nextLine();
+			ArrayList<String> record = CollisionInfo.split(line);
+			if (i < numOfSampleRows) {
+				lines[i] = line;
+				records.add(record);
+			}
+			collisions.add(new Collision(record));
+		}
+
+		firstHalf = new CollisionList();
+		secondHalf = new ArrayList<Collision>();
+		for (int i = 0; i < collisions.size(); i++) {
+			if (i < collisions.size() / 2) {
+				firstHalf.add(collisions.get(i));
+			}
+			else {
+				secondHalf.add(collisions.get(i));
+			}
+		}
+
+		list = (CollisionList) addAll();
+		list.getReportCache().setCapacity(0);
+		cachedList = (CollisionList) addAll();
+		cachedList.getZipCodesWithMostCollisions(3);
+		queryResult = list.query(new CollisionQuery().setDateRange("01/01/" + CollisionStore.FIRST_YEAR,
+				"12/31/" + CollisionStore.LAST_YEAR));
+	}
+
+	@Override
+	public int getNumOfSampleRows ( ) {
+		return lines.length;
+	}
+
+	@Override
+	public Object split ( int row ) {
+		return CollisionInfo.split(lines[row]);
+	}
+
+	@Override
+	public Object newCollision ( int row ) {
+		return new Collision(records.get(row));
+	}
+
+	@Override
+	public Object addAll ( ) {
+		CollisionList newList = new CollisionList();
+		for (Collision col : collisions) {
+			newList.add(col);
+		}
+		return newList;
+	}
+
+	@Override
+	public Object addAllConcurrent ( ) {
+		ConcurrentCollisionList newList = new ConcurrentCollisionList();
+		for (Collision col : collisions) {
+			newList.add(col);
+		}
+		return newList;
+	}
+
+	@Override
+	public Object addWithReports ( boolean cached ) {
+		CollisionList newList = new CollisionList();
+		newList.getReportCache().setCapacity(cached ? ReportCache.DEFAULT_CAPACITY : 0);
+		newList.addAll(firstHalf);
+		newList.getZipCodesWithMostCollisions(3);
+		newList.getZipCodesWithLeastCollisions(3);
+		newList.getZipCodesWithMostPersonIncidents(3);
+		newList.getZipCodesWithMostCyclistIncidents(3);
+		newList.getVehicleTypeStats();
+		newList.getHourlyStats();
+		for (Collision col : secondHalf) {
+			newList.add(col);
+		}
+		return newList;
+	}
+
+	@Override
+	public Object getZipCodesWithMostCollisions ( ) {
+		return list.getZipCodesWithMostCollisions(3);
+	}
+
+	@Override
+	public Object getZipCodesWithLeastCollisions ( ) {
+		return list.getZipCodesWithLeastCollisions(3);
+	}
+
+	@Override
+	public Object getZipCodesWithMostPersonIncidents ( ) {
+		return list.getZipCodesWithMostPersonIncidents(3);
+	}
+
+	@Override
+	public Object getZipCodesWithMostCyclistIncidents ( ) {
+		return list.getZipCodesWithMostCyclistIncidents(3);
+	}
+
+	@Override
+	public Object getVehicleTypeStats ( ) {
+		return list.getVehicleTypeStats();
+	}
+
+	@Override
+	public Object getHourlyStats ( ) {
+		return list.getHourlyStats();
+	}
+
+	@Override
+	public Object getCachedZipCodesWithMostCollisions ( ) {
+		return cachedList.getZipCodesWithMostCollisions(3);
+	}
+
+	@Override
+	public Object queryReports ( ForkJoinPool pool ) {
+		CollisionReport [] reports = { ZipCodeRankingReport.mostCollisions(3),
+				ZipCodeRankingReport.leastCollisions(3), ZipCodeRankingReport.mostPersonIncidents(3),
+				ZipCodeRankingReport.mostCyclistIncidents(3), new VehicleTypeReport(), new HourlyReport() };
+		ReportExecutor executor = queryResult.newReportExecutor().setParallel(pool);
+		for (CollisionReport report : reports) {
+			executor.register(report);
+		}
+		executor.run();
+		return reports;
+	}
+}
@@ -0,0 +1,45 @@
+
+
+package collisions.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DataSet is the synthetic data set shared by all benchmarks of a trial. Its size
+ * and number of distinct zip codes are JMH parameters, so every benchmark is run
+ * for every combination of the listed values unless others are given on the command
+ * line, for example -p rows=50000 -p zips=200,20000.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+@State(Scope.Benchmark)
+public class DataSet {
+
+	/** Number of records of the data set. */
+	@Param({"100000", "1000000"})
+	public int rows;
+
+	/** Number of distinct zip codes, between 1 and 90000. */
+	@Param({"200", "5000"})
+	public int zips;
+
+	/** Seed of the synthetic data. */
+	@Param({"1"})
+	public long seed;
+
+	Workload workload;
+
+	/**
+	 * Generates the data set.
+	 */
+	@Setup(Level.Trial)
+	public void setUp ( ) {
+		workload = Workload.create();
+		workload.setUp(rows, zips, seed);
+	}
+}
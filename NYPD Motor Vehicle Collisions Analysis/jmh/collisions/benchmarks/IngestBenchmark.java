@@ -0,0 +1,115 @@
+
+
+package collisions.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * IngestBenchmark measures the ingest path one step at a time: splitting a line
+ * (CollisionInfo.split), the Collision constructor and CollisionList.add, as well
+ * as ConcurrentCollisionList.add and the cost that cached reports add to
+ * CollisionList.add.
+ * split and newCollision handle a single line per operation, going round the lines
+ * of the sample. The other benchmarks add every collision of the data set to a new
+ * list in one operation, so their time and allocation per row are the score divided
+ * by the number of rows (half the rows for the addWithReports benchmarks).
+ * Run with -prof gc to get the allocation rate (gc.alloc.rate) and the bytes
+ * allocated per operation (gc.alloc.rate.norm) of every benchmark.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class IngestBenchmark {
+
+	//index of the next line of the sample
+	private int row;
+
+	/*
+	 * Returns the index of the next line of the sample.
+	 */
+	private int nextRow ( DataSet data ) {
+		int result = row;
+		row = (row + 1 == data.workload.getNumOfSampleRows()) ? 0 : row + 1;
+		return result;
+	}
+
+	/**
+	 * Splits a line into its entries.
+	 * @param data the data set
+	 * @return the entries
+	 */
+	@Benchmark
+	public Object split ( DataSet data ) {
+		return data.workload.split(nextRow(data));
+	}
+
+	/**
+	 * Creates a Collision object from the entries of a line.
+	 * @param data the data set
+	 * @return the collision
+	 */
+	@Benchmark
+	public Object newCollision ( DataSet data ) {
+		return data.workload.newCollision(nextRow(data));
+	}
+
+	/**
+	 * Adds every collision of the data set to a new CollisionList object.
+	 * @param data the data set
+	 * @return the list
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object add ( DataSet data ) {
+		return data.workload.addAll();
+	}
+
+	/**
+	 * Adds every collision of the data set to a new ConcurrentCollisionList object.
+	 * @param data the data set
+	 * @return the list
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object addConcurrent ( DataSet data ) {
+		return data.workload.addAllConcurrent();
+	}
+
+	/**
+	 * Adds the second half of the data set to a list without cached reports.
+	 * @param data the data set
+	 * @return the list
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object addWithReportsUncached ( DataSet data ) {
+		return data.workload.addWithReports(false);
+	}
+
+	/**
+	 * Adds the second half of the data set to a list that caches the six reports.
+	 * @param data the data set
+	 * @return the list
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object addWithReportsCached ( DataSet data ) {
+		return data.workload.addWithReports(true);
+	}
+}
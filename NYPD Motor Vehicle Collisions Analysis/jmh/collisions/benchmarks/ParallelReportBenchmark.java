@@ -0,0 +1,75 @@
+
+
+package collisions.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ParallelReportBenchmark measures how the scan of the rows behind the six reports
+ * scales with the number of threads (see ReportExecutor.setParallel()). The reports
+ * are computed over the result of a query that selects every collision, because
+ * only query results are scanned row by row. With 0 threads the rows are scanned on
+ * the calling thread; otherwise they are split across a ForkJoinPool with the given
+ * parallelism, so the speedup is the score at 0 threads divided by the score at n
+ * threads. Counts above the number of processors show only the cost of splitting.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ParallelReportBenchmark {
+
+	/** Parallelism of the pool, or 0 to scan on the calling thread. */
+	@Param({"0", "1", "2", "4", "8", "16", "32"})
+	public int threads;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates the pool.
+	 */
+	@Setup(Level.Trial)
+	public void setUp ( ) {
+		pool = (threads == 0) ? null : new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Shuts the pool down.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown ( ) {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Computes the six reports over the query result.
+	 * @param data the data set
+	 * @return the reports
+	 */
+	@Benchmark
+	public Object queryReports ( DataSet data ) {
+		return data.workload.queryReports(pool);
+	}
+}
@@ -0,0 +1,102 @@
+
+
+package collisions.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ReportBenchmark measures each of the six report methods of CollisionList over the
+ * whole data set. The report cache of the list is turned off, so that every
+ * operation computes its report; cachedZipCodesWithMostCollisions measures a report
+ * answered from the cache instead.
+ * Run with -prof gc to get the allocation rate (gc.alloc.rate) and the bytes
+ * allocated per operation (gc.alloc.rate.norm) of every benchmark.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReportBenchmark {
+
+	/**
+	 * Computes getZipCodesWithMostCollisions(3).
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object zipCodesWithMostCollisions ( DataSet data ) {
+		return data.workload.getZipCodesWithMostCollisions();
+	}
+
+	/**
+	 * Computes getZipCodesWithLeastCollisions(3).
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object zipCodesWithLeastCollisions ( DataSet data ) {
+		return data.workload.getZipCodesWithLeastCollisions();
+	}
+
+	/**
+	 * Computes getZipCodesWithMostPersonIncidents(3).
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object zipCodesWithMostPersonIncidents ( DataSet data ) {
+		return data.workload.getZipCodesWithMostPersonIncidents();
+	}
+
+	/**
+	 * Computes getZipCodesWithMostCyclistIncidents(3).
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object zipCodesWithMostCyclistIncidents ( DataSet data ) {
+		return data.workload.getZipCodesWithMostCyclistIncidents();
+	}
+
+	/**
+	 * Computes getVehicleTypeStats().
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object vehicleTypeStats ( DataSet data ) {
+		return data.workload.getVehicleTypeStats();
+	}
+
+	/**
+	 * Computes getHourlyStats().
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object hourlyStats ( DataSet data ) {
+		return data.workload.getHourlyStats();
+	}
+
+	/**
+	 * Answers getZipCodesWithMostCollisions(3) from the report cache.
+	 * @param data the data set
+	 * @return the report
+	 */
+	@Benchmark
+	public Object cachedZipCodesWithMostCollisions ( DataSet data ) {
+		return data.workload.getCachedZipCodesWithMostCollisions();
+	}
+}
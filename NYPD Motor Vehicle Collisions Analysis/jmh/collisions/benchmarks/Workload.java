@@ -0,0 +1,145 @@
+
+
+package collisions.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Workload is the collision code as the JMH benchmarks see it. JMH does not accept
+ * benchmarks in the default package, and classes in a named package cannot refer to
+ * the classes of the default package, where all classes of the program are. The
+ * benchmarks therefore call the collision code through this interface, which is
+ * implemented by the class CollisionWorkload in the default package (see create()).
+ * Every method performs exactly the operation that a benchmark measures and
+ * returns its result, so that the benchmark can hand it to JMH; the call itself is
+ * inlined by the JIT compiler, because a single class implements the interface.
+ * The data set is synthetic (see CollisionDataGenerator): numOfRows records with
+ * numOfZipCodes distinct zip codes, generated in memory for a given seed.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public interface Workload {
+
+	/**
+	 * Creates the Workload object implemented in the default package.
+	 * @return the new Workload object
+	 * @throws IllegalStateException if the implementation is not on the class path
+	 */
+	static Workload create ( ) throws IllegalStateException {
+		try {
+			return (Workload) Class.forName("CollisionWorkload").getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Error: the class CollisionWorkload cannot be loaded. ", ex);
+		}
+	}
+
+	/**
+	 * Generates the data set and the collision lists used by the other methods.
+	 * @param numOfRows the number of records
+	 * @param numOfZipCodes the number of distinct zip codes, between 1 and 90000
+	 * @param seed the seed of the synthetic data
+	 * @throws IllegalArgumentException if a parameter is out of range
+	 */
+	void setUp ( int numOfRows, int numOfZipCodes, long seed ) throws IllegalArgumentException;
+
+	/**
+	 * Returns the number of records passed to split() and newCollision(), which
+	 * never exceeds the number of records of the data set.
+	 * @return the number of records
+	 */
+	int getNumOfSampleRows ( );
+
+	/**
+	 * Splits a line of the data set into its entries (CollisionInfo.split).
+	 * @param row the index of the line, below getNumOfSampleRows()
+	 * @return the entries
+	 */
+	Object split ( int row );
+
+	/**
+	 * Creates a Collision object from the entries of a line of the data set.
+	 * @param row the index of the line, below getNumOfSampleRows()
+	 * @return the new Collision object
+	 */
+	Object newCollision ( int row );
+
+	/**
+	 * Adds all collisions of the data set to a new CollisionList object, one at a
+	 * time (CollisionList.add).
+	 * @return the new list
+	 */
+	Object addAll ( );
+
+	/**
+	 * Adds all collisions of the data set to a new ConcurrentCollisionList object,
+	 * one at a time.
+	 * @return the new list
+	 */
+	Object addAllConcurrent ( );
+
+	/**
+	 * Copies the first half of the data set into a new CollisionList object, computes
+	 * the six reports and adds the second half. The difference between a list that
+	 * caches the reports and one that does not is the cost of keeping cached reports
+	 * valid while collisions are added.
+	 * @param cached true to cache the reports, false to turn the report cache off
+	 * @return the new list
+	 */
+	Object addWithReports ( boolean cached );
+
+	/**
+	 * Computes CollisionList.getZipCodesWithMostCollisions(3) without the report cache.
+	 * @return the report
+	 */
+	Object getZipCodesWithMostCollisions ( );
+
+	/**
+	 * Computes CollisionList.getZipCodesWithLeastCollisions(3) without the report cache.
+	 * @return the report
+	 */
+	Object getZipCodesWithLeastCollisions ( );
+
+	/**
+	 * Computes CollisionList.getZipCodesWithMostPersonIncidents(3) without the report
+	 * cache.
+	 * @return the report
+	 */
+	Object getZipCodesWithMostPersonIncidents ( );
+
+	/**
+	 * Computes CollisionList.getZipCodesWithMostCyclistIncidents(3) without the
+	 * report cache.
+	 * @return the report
+	 */
+	Object getZipCodesWithMostCyclistIncidents ( );
+
+	/**
+	 * Computes CollisionList.getVehicleTypeStats() without the report cache.
+	 * @return the report
+	 */
+	Object getVehicleTypeStats ( );
+
+	/**
+	 * Computes CollisionList.getHourlyStats() without the report cache.
+	 * @return the report
+	 */
+	Object getHourlyStats ( );
+
+	/**
+	 * Answers CollisionList.getZipCodesWithMostCollisions(3) from the report cache.
+	 * @return the report
+	 */
+	Object getCachedZipCodesWithMostCollisions ( );
+
+	/**
+	 * Computes the six reports in a single pass over the result of a query that
+	 * selects every collision of the data set, whose rows are scanned because the
+	 * result has no running totals (see CollisionList.query()).
+	 * @param pool the pool across which the scan is split, or null to scan the rows
+	 * on the calling thread
+	 * @return the reports
+	 */
+	Object queryReports ( ForkJoinPool pool );
+}
@@ -0,0 +1,272 @@
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * ApproximateCollisionList answers the ranking questions of CollisionList (the zip
+ * codes with most collisions, most person incidents and most cyclist incidents)
+ * approximately, in memory that does not depend on the number of collisions or zip
+ * codes. No collisions are kept: every collision updates a SpaceSaving object and a
+ * CountMinSketch object for each of the three rankings, and the running totals used
+ * by the vehicle type and hourly reports.
+ * The count listed for a zip code is the smaller of its SpaceSaving count and its
+ * CountMinSketch estimate. It is never smaller than the true count, and the true
+ * count is never smaller than the SpaceSaving count minus its error, which is listed
+ * with it. Every zip code whose true count exceeds the total divided by the number
+ * of counters is found; zip codes with smaller counts may be missing from a ranking.
+ * The ranking of the fewest collisions cannot be answered this way and is not
+ * provided.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ApproximateCollisionList {
+
+	/**
+	 * Default number of counters of every ranking.
+	 */
+	public static final int DEFAULT_CAPACITY = 1000;
+	/**
+	 * Default error of the sketch estimates, as a fraction of the total.
+	 */
+	public static final double DEFAULT_EPSILON = 0.001;
+	/**
+	 * Default probability that a sketch estimate exceeds its error.
+	 */
+	public static final double DEFAULT_DELTA = 0.001;
+
+	/*
+	 * The three rankings, which count collisions, persons and cyclists.
+	 */
+	private enum Metric { COLLISIONS, PERSONS, CYCLISTS }
+
+	//heavy hitters and point estimates of every metric, indexed by Metric.ordinal()
+	private SpaceSaving [] heavyHitters;
+	private CountMinSketch [] sketches;
+
+	//running totals that are updated as collisions are added
+	private CollisionAggregates aggregates;
+
+	//number of records that could not be added (see getNumOfRejectedRecords)
+	private int numOfRejectedRecords;
+
+	/**
+	 * Creates an empty ApproximateCollisionList object with the default number of
+	 * counters and sketch accuracy.
+	 */
+	public ApproximateCollisionList ( ) {
+		this(DEFAULT_CAPACITY, DEFAULT_EPSILON, DEFAULT_DELTA);
+	}
+
+	/**
+	 * Creates an empty ApproximateCollisionList object.
+	 * @param capacity the number of zip codes counted by every ranking
+	 * @param epsilon the error of the sketch estimates, as a fraction of the total
+	 * @param delta the probability that a sketch estimate exceeds its error
+	 * @throws IllegalArgumentException if capacity is smaller than 1, or epsilon or
+	 * delta are not between 0 and 1
+	 */
+	public ApproximateCollisionList ( int capacity, double epsilon, double delta )
+			throws IllegalArgumentException {
+		int numOfMetrics = Metric.values().length;
+		heavyHitters = new SpaceSaving [numOfMetrics];
+		sketches = new CountMinSketch [numOfMetrics];
+		for (int i = 0; i < numOfMetrics; i++) {
+			heavyHitters[i] = new SpaceSaving(capacity);
+			sketches[i] = new CountMinSketch(epsilon, delta);
+		}
+		aggregates = new CollisionAggregates();
+	}
+
+	/**
+	 * Adds a collision described by a record (see CollisionList.add()).
+	 * @param record a list of strings describing a particular collision
+	 * @return true if the record was added, false if it does not describe a valid
+	 * collision
+	 */
+	public boolean add ( ArrayList<String> record ) {
+		try {
+			return add(new Collision(record));
+		}
+		catch (IllegalArgumentException ex) {
+			numOfRejectedRecords++;
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a collision to the counters. The collision is not kept.
+	 * @param col the collision to be added
+	 * @return true if the collision was added, false if col is null (which
+	 * CollisionTokenizer returns for lines that are not valid records)
+	 */
+	public boolean add ( Collision col ) {
+		if (col == null) {
+			numOfRejectedRecords++;
+			return false;
+		}
+		String zip = col.getZip();
+		add(Metric.COLLISIONS, zip, 1);
+		add(Metric.PERSONS, zip, (long) col.getPersonsInjured() + col.getPersonsKilled());
+		add(Metric.CYCLISTS, zip, (long) col.getCyclistsInjured() + col.getCyclistsKilled());
+		aggregates.add(col);
+		return true;
+	}
+
+	/*
+	 * Adds the weight of a zip code to the counters of a metric.
+	 */
+	private void add ( Metric metric, String zip, long weight ) {
+		heavyHitters[metric.ordinal()].add(zip, weight);
+		sketches[metric.ordinal()].add(zip, weight);
+	}
+
+	/**
+	 * Returns the number of records that were not added because they did not
+	 * describe a valid collision.
+	 * @return the number of rejected records
+	 */
+	public int getNumOfRejectedRecords ( ) {
+		return numOfRejectedRecords;
+	}
+
+	/**
+	 * Returns the running totals of all collisions added to this object.
+	 * @return the totals
+	 */
+	public CollisionAggregates getAggregates ( ) {
+		return aggregates;
+	}
+
+	/**
+	 * Determines approximately k zip codes with most collisions.
+	 * @param k number of zip codes
+	 * @return a string formatted as
+	 *     zip  numOfCollisions (at least lowerBound)
+	 *  one per line
+	 */
+	public String getZipCodesWithMostCollisions ( int k ) {
+		return getRanking(Metric.COLLISIONS, k, "collisions");
+	}
+
+	/**
+	 * Determines approximately k zip codes with most injured and killed persons.
+	 * @param k number of zip codes
+	 * @return a string formatted as
+	 *     zip  numOfPersonsHurt (at least lowerBound)
+	 *  one per line
+	 */
+	public String getZipCodesWithMostPersonIncidents ( int k ) {
+		return getRanking(Metric.PERSONS, k, "persons hurt");
+	}
+
+	/**
+	 * Determines approximately k zip codes with most injured and killed cyclists.
+	 * @param k number of zip codes
+	 * @return a string formatted as
+	 *     zip  numOfCyclistsHurt (at least lowerBound)
+	 *  one per line
+	 */
+	public String getZipCodesWithMostCyclistIncidents ( int k ) {
+		return getRanking(Metric.CYCLISTS, k, "cyclists hurt");
+	}
+
+	/*
+	 * Lists the k zip codes with the largest estimates of a metric. The estimate of a
+	 * zip code is the smaller of its two upper bounds, the lower bound is the count
+	 * of its counter minus the error of that counter.
+	 */
+	private String getRanking ( Metric metric, int k, String description ) {
+		SpaceSaving heavyHitter = heavyHitters[metric.ordinal()];
+		CountMinSketch sketch = sketches[metric.ordinal()];
+
+		ArrayList<SpaceSaving.Counter> counters = heavyHitter.getTop(heavyHitter.getCapacity());
+		ArrayList<String> zips = new ArrayList<String>(counters.size());
+		long [] estimates = new long [counters.size()];
+		long [] lowerBounds = new long [counters.size()];
+		for (int i = 0; i < counters.size(); i++) {
+			SpaceSaving.Counter counter = counters.get(i);
+			zips.add(counter.getItem());
+			estimates[i] = Math.min(counter.getCount(), sketch.estimate(counter.getItem()));
+			lowerBounds[i] = counter.getCount() - counter.getError();
+		}
+
+		//the sketch can lower the estimates, so the counters are ranked again
+		ArrayList<Integer> order = new ArrayList<Integer>(counters.size());
+		for (int i = 0; i < counters.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, (i, j) -> (estimates[i] != estimates[j])
+				? Long.compare(estimates[j], estimates[i]) : zips.get(i).compareTo(zips.get(j)));
+
+		StringBuffer result = new StringBuffer();
+		for (int i = 0; i < Math.min(k, order.size()); i++) {
+			int index = order.get(i);
+			result.append(String.format("    %5s  %5d %s (at least %d)\n", zips.get(index),
+					estimates[index], description, lowerBounds[index]));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Describes the accuracy of the rankings: for every ranking, the largest amount
+	 * by which a listed count exceeds the true count, and the largest amount allowed
+	 * by the sketch (which holds with the stated probability).
+	 * @return a string with one line per ranking
+	 */
+	public String getErrorBounds ( ) {
+		StringBuffer result = new StringBuffer();
+		for (Metric metric : Metric.values()) {
+			SpaceSaving heavyHitter = heavyHitters[metric.ordinal()];
+			CountMinSketch sketch = sketches[metric.ordinal()];
+			result.append(String.format("    %-10s total %,d, counts exceed the true values by at most %,d "
+					+ "(by at most %,d with probability %.4f)\n", metric.name().toLowerCase(),
+					heavyHitter.getTotalWeight(), heavyHitter.getMaxError(), sketch.getErrorBound(),
+					1 - sketch.getDelta()));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Computes the percentage of collisions involving the default vehicle types (see
+	 * CollisionList.getVehicleTypeStats()). The result is exact.
+	 * @return a string containing the results of the computation
+	 */
+	public String getVehicleTypeStats ( ) {
+		return getReport(new VehicleTypeReport());
+	}
+
+	/**
+	 * Computes the percentage of collisions involving given vehicle types (see
+	 * CollisionList.getVehicleTypeStats(String...)). The result is exact.
+	 * @param types the vehicle types (case is ignored)
+	 * @return a string containing the results of the computation
+	 */
+	public String getVehicleTypeStats ( String... types ) {
+		return getReport(new VehicleTypeReport(types));
+	}
+
+	/**
+	 * Computes the fraction of collisions that occurred within every hour (see
+	 * CollisionList.getHourlyStats()). The result is exact.
+	 * @return a string containing the results of the computation
+	 */
+	public String getHourlyStats ( ) {
+		return getReport(new HourlyReport());
+	}
+
+	/**
+	 * Computes a report from the running totals, such as a VehicleTypeReport,
+	 * HourlyReport, WeekdayHourReport or MonthlyReport object.
+	 * @param report the report
+	 * @return a string containing the results of the report
+	 * @throws IllegalArgumentException if the report cannot be computed from the
+	 * running totals alone
+	 */
+	public String getReport ( CollisionReport report ) throws IllegalArgumentException {
+		if (!report.addAggregates(aggregates))
+			throw new IllegalArgumentException ("Error: the report needs the collisions. ");
+		return report.getResult();
+	}
+}
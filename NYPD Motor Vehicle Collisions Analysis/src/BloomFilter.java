@@ -0,0 +1,98 @@
+
+
+/**
+ * BloomFilter remembers a set of long values approximately, in a fixed number of
+ * bits that does not depend on the values. Every value sets numOfHashes bits chosen
+ * by different hash functions (derived from one 64-bit hash by double hashing). A
+ * value that has been added is always reported as possibly contained; a value that
+ * has not been added is wrongly reported as contained with a small probability,
+ * which grows as more values are added.
+ * The constructor chooses the number of bits and hash functions so that the
+ * probability stays at a given false positive rate until a given number of values
+ * have been added; at a rate of 1% that takes less than 10 bits per value.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class BloomFilter {
+
+	private long [] bits;
+	private long numOfBits;
+	private int numOfHashes;
+
+	/**
+	 * Creates an empty BloomFilter object.
+	 * @param expectedNumOfValues the number of values that will be added
+	 * @param falsePositiveRate the probability that a value that has not been added
+	 * is reported as contained, once all expected values have been added, between 0
+	 * and 1
+	 * @throws IllegalArgumentException if expectedNumOfValues is not positive, the
+	 * rate is not between 0 and 1, or the filter would be too large
+	 */
+	BloomFilter ( long expectedNumOfValues, double falsePositiveRate ) throws IllegalArgumentException {
+		if (expectedNumOfValues < 1)
+			throw new IllegalArgumentException ("Error: invalid number of values "
+					+ expectedNumOfValues + ". ");
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+			throw new IllegalArgumentException ("Error: invalid false positive rate "
+					+ falsePositiveRate + ". ");
+		double ln2 = Math.log(2);
+		double optimalBits = Math.ceil(-expectedNumOfValues * Math.log(falsePositiveRate) / (ln2 * ln2));
+		if (optimalBits / 64 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException ("Error: Bloom filter too large. ");
+		bits = new long [(int) Math.ceil(optimalBits / 64)];
+		numOfBits = 64L * bits.length;
+		numOfHashes = (int) Math.max(1, Math.round(optimalBits / expectedNumOfValues * ln2));
+	}
+
+	/**
+	 * Adds a value to this filter.
+	 * @param value the value
+	 * @return true if the value had certainly not been added before, false if it
+	 * possibly had
+	 */
+	boolean add ( long value ) {
+		long hash = hash(value);
+		long hash1 = hash >>> 32;
+		long hash2 = (hash & 0xFFFFFFFFL) | 1;
+		boolean added = false;
+		for (int i = 0; i < numOfHashes; i++) {
+			long bit = (hash1 + i * hash2) % numOfBits;
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			if ((bits[word] & mask) == 0) {
+				bits[word] |= mask;
+				added = true;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the number of bits set by every value.
+	 * @return the number of hash functions
+	 */
+	int getNumOfHashes ( ) {
+		return numOfHashes;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the bits of this filter.
+	 * @return the number of bytes
+	 */
+	long getMemoryUsage ( ) {
+		return 8L * bits.length;
+	}
+
+	/*
+	 * Spreads the bits of a value over the whole hash (the finalizer of MurmurHash3).
+	 */
+	private static long hash ( long value ) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -16,8 +16,15 @@ public class Collision implements Comparable <Collision>{
 	
 	private String date;
 	private String time;
+	//date and time parsed at construction (see CollisionStore.parseEpochDay and 
+	//CollisionStore.parseMinuteOfDay) 
+	private int epochDay;
+	private int minuteOfDay;
 	private String borough;
 	private String zip;
+	//location in degrees, NaN if the record has no valid coordinates 
+	private double latitude = Double.NaN;
+	private double longitude = Double.NaN;
 	private int personsInjured;
 	private int personsKilled;
 	private int pedestriansInjured;
@@ -39,8 +46,8 @@ public class Collision implements Comparable <Collision>{
 	 * time
 	 * borough
 	 * zip
-	 * lattitude^
-	 * longitude ^
+	 * lattitude
+	 * longitude 
 	 * on street name^
 	 * cross street name ^
 	 * personsInjured
@@ -65,13 +72,19 @@ public class Collision implements Comparable <Collision>{
 	 */
 	public Collision ( ArrayList<String> entries ) throws IllegalArgumentException {
 		
+		if (entries.size() < 21) {
+			throw new IllegalArgumentException ("incomplete record");
+		}
 		date = entries.get(0);
 		time = entries.get(1);
+		epochDay = CollisionStore.parseEpochDay(date);
+		minuteOfDay = CollisionStore.parseMinuteOfDay(time);
 		borough = entries.get(2);
 		zip = entries.get(3);
 		if (!verifyZip(zip)) {
 			throw new IllegalArgumentException ("invalid zip");
 		}
+		setLocation(parseCoordinate(entries.get(4)), parseCoordinate(entries.get(5)));
 		try {
 			personsInjured = Integer.parseInt(entries.get(8));
 			personsKilled = Integer.parseInt(entries.get(9));
@@ -85,6 +98,7 @@ public class Collision implements Comparable <Collision>{
 		catch (NumberFormatException ex ) {
 			throw new IllegalArgumentException( ex.getMessage() );
 		}
+		verifyCounts();
 		
 		uniqueKey = entries.get(18);
 		vehicleCode1 = entries.get(19);
@@ -92,6 +106,104 @@ public class Collision implements Comparable <Collision>{
 		
 	}
 	
+	/**
+	 * Creates an empty Collision object. Used by CollisionCursor, which reads all 
+	 * values from a CollisionStore object instead. 
+	 */
+	Collision ( ) {
+	}
+	
+	/**
+	 * Creates a Collision object from entries that have already been parsed. 
+	 * This constructor is used by CollisionTokenizer, which parses the numeric entries 
+	 * directly from the input and never creates strings for the unused entries. 
+	 * @param date the date entry 
+	 * @param time the time entry 
+	 * @param borough the borough entry 
+	 * @param zip the zip code entry 
+	 * @param counts the eight injury and fatality counts in the following order: 
+	 * personsInjured, personsKilled, pedestriansInjured, pedestriansKilled, 
+	 * cyclistsInjured, cyclistsKilled, motoristsInjured, motoristsKilled 
+	 * (the array is copied, so it can be reused by the caller)
+	 * @param uniqueKey the unique key entry 
+	 * @param vehicleCode1 the vehicle 1 entry 
+	 * @param vehicleCode2 the vehicle 2 entry 
+	 * @throws IllegalArgumentException when the zip code is not valid or a count is 
+	 * negative 
+	 */
+	Collision ( String date, String time, String borough, String zip, int [] counts, 
+			String uniqueKey, String vehicleCode1, String vehicleCode2 ) throws IllegalArgumentException {
+		
+		this.date = date;
+		this.time = time;
+		this.epochDay = CollisionStore.parseEpochDay(date);
+		this.minuteOfDay = CollisionStore.parseMinuteOfDay(time);
+		this.borough = borough;
+		this.zip = zip;
+		if (!verifyZip(zip)) {
+			throw new IllegalArgumentException ("invalid zip");
+		}
+		personsInjured = counts[0];
+		personsKilled = counts[1];
+		pedestriansInjured = counts[2];
+		pedestriansKilled = counts[3];
+		cyclistsInjured = counts[4];
+		cyclistsKilled = counts[5];
+		motoristsInjured = counts[6];
+		motoristsKilled = counts[7];
+		verifyCounts();
+		
+		this.uniqueKey = uniqueKey;
+		this.vehicleCode1 = vehicleCode1;
+		this.vehicleCode2 = vehicleCode2;
+	}
+	
+	/*
+	 * Throws an exception if any injury or fatality count is negative; the indexes 
+	 * and reports assume that counts are not negative. 
+	 */
+	private void verifyCounts ( ) throws IllegalArgumentException {
+		if (personsInjured < 0 || personsKilled < 0 || pedestriansInjured < 0 
+				|| pedestriansKilled < 0 || cyclistsInjured < 0 || cyclistsKilled < 0 
+				|| motoristsInjured < 0 || motoristsKilled < 0) 
+			throw new IllegalArgumentException ("negative count");
+	}
+	
+	/**
+	 * Sets the location of this collision. The location is kept only if both 
+	 * coordinates are valid (a latitude between -90 and 90 and a longitude between 
+	 * -180 and 180 degrees), otherwise both coordinates are set to NaN. The location 
+	 * 0, 0 is how the data marks a missing position, so it is not kept either. 
+	 * @param latitude the latitude in degrees 
+	 * @param longitude the longitude in degrees 
+	 */
+	void setLocation ( double latitude, double longitude ) {
+		if (latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180 
+				&& !(latitude == 0 && longitude == 0)) {
+			this.latitude = latitude;
+			this.longitude = longitude;
+		}
+		else {
+			this.latitude = Double.NaN;
+			this.longitude = Double.NaN;
+		}
+	}
+	
+	/*
+	 * Parses a latitude or longitude entry; returns NaN if it is empty or not a 
+	 * number. 
+	 */
+	private static double parseCoordinate ( String entry ) {
+		if (entry.isEmpty()) 
+			return Double.NaN;
+		try {
+			return Double.parseDouble(entry);
+		}
+		catch (NumberFormatException ex) {
+			return Double.NaN;
+		}
+	}
+	
 	/*
 	 * Verifies accuracy of the zip code. 
 	 * @param zip the zip code to be verified 
@@ -114,20 +226,26 @@ public class Collision implements Comparable <Collision>{
 	 */
 	@Override
 	public String toString() {
-		return "Collision [date=" + date + ", time=" + time + ", borough=" + borough + ", zip=" + zip
-				+ ", personsInjured=" + personsInjured + ", personsKilled=" + personsKilled + ", pedestriansInjured="
-				+ pedestriansInjured + ", pedestriansKilled=" + pedestriansKilled + ", cyclistsInjured="
-				+ cyclistsInjured + ", cyclistsKilled=" + cyclistsKilled + ", motoristsInjured=" + motoristsInjured
-				+ ", motoristsKilled=" + motoristsKilled + ", vehicleCode1=" + vehicleCode1 + ", vehicleCode2="
-				+ vehicleCode2 + ", uniqueKey=" + uniqueKey + "]";
+		return "Collision [date=" + getDate() + ", time=" + getTime() + ", borough=" + getBorough() 
+				+ ", zip=" + getZip() + ", personsInjured=" + getPersonsInjured() + ", personsKilled=" 
+				+ getPersonsKilled() + ", pedestriansInjured=" + getPedestriansInjured() + ", pedestriansKilled=" 
+				+ getPedestriansKilled() + ", cyclistsInjured=" + getCyclistsInjured() + ", cyclistsKilled=" 
+				+ getCyclistsKilled() + ", motoristsInjured=" + getMotoristsInjured() + ", motoristsKilled=" 
+				+ getMotoristsKilled() + ", vehicleCode1=" + getVehicleCode1() + ", vehicleCode2="
+				+ getVehicleCode2() + ", uniqueKey=" + getUniqueKey() + "]";
 	}
 	
 	
 
 	/**
 	 * Set the sort order for Collision objects to be one of the allowed values by the SortOrder enumerator. 
+	 * The sort order is shared by all Collision objects; to keep collisions in several 
+	 * orders, or to sort them on several threads, use the comparator of a SortOrder 
+	 * value or CollisionList.getIndex() instead. 
 	 * @param sortOrder the sortOrder to set
+	 * @deprecated use SortOrder.getComparator() 
 	 */
+	@Deprecated
 	public static void setSortOrder(SortOrder sortOrder) {
 		Collision.sortOrder = sortOrder;
 	}
@@ -135,26 +253,20 @@ public class Collision implements Comparable <Collision>{
 	/**
 	 * Compares two Collision objects based on their zip code, number of cyclist-injuries or 
 	 * number of person-injuries. The comparison is determined by the value of a flag set by 
-	 * setSortOrder() method. 
+	 * setSortOrder() method (see SortOrder.getComparator()). 
 	 * @see java.lang.Comparable#compareTo(java.lang.Object)
 	 */
 	@Override
 	public int compareTo(Collision other) {
-		if ( sortOrder == SortOrder.ZIP ) {
-			return this.zip.compareTo(other.zip); 
-		}
-		else if (sortOrder == SortOrder.CYCLISTS) {
-			return ( (this.cyclistsInjured + this.cyclistsKilled) 
-					- (other.cyclistsInjured + this.cyclistsKilled ) );
-		}
-		else if (sortOrder == SortOrder.PERSONS) {
-			return ( (this.personsInjured + this.personsKilled) 
-					- (other.personsInjured + this.personsKilled ) );
-		}
-		else if (sortOrder == SortOrder.UNIQUEKEY) {
-			return this.uniqueKey.compareTo(other.uniqueKey); 
-		}
-		return 0;
+		return sortOrder.getComparator().compare(this, other);
+	}
+
+	/**
+	 * Return the date of this Collision object. 
+	 * @return the date
+	 */
+	public String getDate() {
+		return date;
 	}
 
 	/**
@@ -165,6 +277,34 @@ public class Collision implements Comparable <Collision>{
 		return time;
 	}
 
+	/**
+	 * Return the day on which this collision occurred, parsed from the date when 
+	 * this Collision object was created. 
+	 * @return the number of days since 01/01/1970, or CollisionStore.NO_DATE if the 
+	 * date is not a valid date in the MM/DD/YYYY format 
+	 */
+	public int getEpochDay() {
+		return epochDay;
+	}
+
+	/**
+	 * Return the minute of the day at which this collision occurred, parsed from the 
+	 * time when this Collision object was created. 
+	 * @return the minute of the day, or CollisionStore.NO_TIME if the time is not 
+	 * in the H:MM format 
+	 */
+	public int getMinuteOfDay() {
+		return minuteOfDay;
+	}
+
+	/**
+	 * Return the borough of this Collision object. 
+	 * @return the borough
+	 */
+	public String getBorough() {
+		return borough;
+	}
+
 	/**
 	 * Return the zip code of this Collision object. 
 	 * @return the zip
@@ -173,6 +313,30 @@ public class Collision implements Comparable <Collision>{
 		return zip;
 	}
 
+	/**
+	 * Return the latitude of this Collision object. 
+	 * @return the latitude in degrees, or NaN if the location is not known 
+	 */
+	public double getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * Return the longitude of this Collision object. 
+	 * @return the longitude in degrees, or NaN if the location is not known 
+	 */
+	public double getLongitude() {
+		return longitude;
+	}
+
+	/**
+	 * Determines if the location of this Collision object is known. 
+	 * @return true if the latitude and longitude are valid, false otherwise 
+	 */
+	public boolean hasLocation() {
+		return !Double.isNaN(getLatitude());
+	}
+
 	/**
 	 * Return the number of injured cyclists of this Collision object. 
 	 * @return the cyclistsInjured
@@ -0,0 +1,373 @@
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * CollisionAggregates keeps running totals over all collisions added to it: the
+ * number of collisions, the number of collisions in every hour of the day, in every
+ * hour of every day of the week and in every month, and the number of collisions
+ * that involved every vehicle type. A vehicle type is a vehicle code with case
+ * ignored, and a collision involves a type if either of its vehicle codes is of
+ * that type. Collisions whose date or time could not be parsed are counted as well.
+ * The totals are updated as every collision is added, so reports based on them do
+ * not need to scan the collisions again.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionAggregates {
+
+	private int totalNumOfCollisions;
+	private int [] hourlyCount;
+	private int numOfInvalidDates;
+	private int numOfInvalidTimes;
+
+	//counter for each hour of each day of the week, indexed by dayOfWeek * 24 + hour
+	private int [] weekdayHourCount;
+	//counter for each month from firstMonth on (months are numbered year * 12 + month - 1)
+	private int firstMonth;
+	private int [] monthlyCount;
+
+	private StringDictionary vehicleTypes;
+	private int [] vehicleTypeCount;
+
+	//vehicle type id of every vehicle code id of the store, -1 if not determined yet
+	private CollisionStore store;
+	private int [] typeOfCode;
+
+	/**
+	 * Creates a CollisionAggregates object with all totals equal to zero.
+	 */
+	public CollisionAggregates ( ) {
+		hourlyCount = new int [24];
+		weekdayHourCount = new int [7 * 24];
+		monthlyCount = new int [0];
+		vehicleTypes = new StringDictionary();
+		vehicleTypeCount = new int [16];
+		typeOfCode = new int [0];
+	}
+
+	/**
+	 * Adds a collision to the totals. All collisions added to this object have to
+	 * be stored in the same CollisionStore object.
+	 * @param store the store that holds the collision
+	 * @param row the row at which the collision is stored
+	 * @throws IllegalArgumentException if store is not the store used by earlier calls
+	 */
+	public void add ( CollisionStore store, int row ) throws IllegalArgumentException {
+		if (this.store == null)
+			this.store = store;
+		else if (this.store != store)
+			throw new IllegalArgumentException ("Error: collisions from different stores. ");
+
+		add(store.getEpochDay(row), store.getMinuteOfDay(row), 
+				getVehicleType(store.getVehicleCode1Id(row)), 
+				getVehicleType(store.getVehicleCode2Id(row)));
+	}
+
+	/**
+	 * Adds a collision that is not kept in any CollisionStore object to the totals. 
+	 * @param col the collision 
+	 */
+	public void add ( Collision col ) {
+		add(col.getEpochDay(), col.getMinuteOfDay(), encodeVehicleType(col.getVehicleCode1()), 
+				encodeVehicleType(col.getVehicleCode2()));
+	}
+
+	/*
+	 * Adds a collision given by its day, minute of the day and vehicle type ids. 
+	 */
+	private void add ( int day, int minute, int type1, int type2 ) {
+		totalNumOfCollisions++;
+
+		if (minute != CollisionStore.NO_TIME) {
+			hourlyCount[minute / 60]++;
+		}
+		else {
+			numOfInvalidTimes++;
+		}
+
+		if (day != CollisionStore.NO_DATE) {
+			addMonth(monthOf(day), 1);
+			if (minute != CollisionStore.NO_TIME) {
+				weekdayHourCount[dayOfWeek(day) * 24 + minute / 60]++;
+			}
+		}
+		else {
+			numOfInvalidDates++;
+		}
+
+		vehicleTypeCount[type1]++;
+		if (type2 != type1) {
+			vehicleTypeCount[type2]++;
+		}
+	}
+
+	/**
+	 * Adds the totals of another CollisionAggregates object to this object.
+	 * @param other the totals to be added
+	 */
+	public void addAll ( CollisionAggregates other ) {
+		totalNumOfCollisions += other.totalNumOfCollisions;
+		for (int i = 0; i < hourlyCount.length; i++) {
+			hourlyCount[i] += other.hourlyCount[i];
+		}
+		numOfInvalidDates += other.numOfInvalidDates;
+		numOfInvalidTimes += other.numOfInvalidTimes;
+		for (int i = 0; i < weekdayHourCount.length; i++) {
+			weekdayHourCount[i] += other.weekdayHourCount[i];
+		}
+		for (int i = 0; i < other.monthlyCount.length; i++) {
+			addMonth(other.firstMonth + i, other.monthlyCount[i]);
+		}
+		for (int i = 0; i < other.vehicleTypes.size(); i++) {
+			int type = encodeVehicleType(other.vehicleTypes.decode(i));
+			vehicleTypeCount[type] += other.vehicleTypeCount[i];
+		}
+	}
+
+	/**
+	 * Writes the totals of this CollisionAggregates object to a snapshot.
+	 * @param out the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	void write ( SnapshotOutput out ) throws IOException {
+		out.writeInt(totalNumOfCollisions);
+		out.writeInts(hourlyCount, hourlyCount.length);
+		out.writeInt(numOfInvalidDates);
+		out.writeInt(numOfInvalidTimes);
+		out.writeInts(weekdayHourCount, weekdayHourCount.length);
+		out.writeInt(firstMonth);
+		out.writeInt(monthlyCount.length);
+		out.writeInts(monthlyCount, monthlyCount.length);
+		vehicleTypes.write(out);
+		out.writeInts(vehicleTypeCount, vehicleTypes.size());
+	}
+
+	/**
+	 * Reads a CollisionAggregates object written by write(SnapshotOutput).
+	 * @param in the snapshot
+	 * @param store the store read from the same snapshot, to which further
+	 * collisions will be added
+	 * @return the totals
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	static CollisionAggregates read ( SnapshotInput in, CollisionStore store ) throws IOException {
+		CollisionAggregates aggregates = new CollisionAggregates();
+		aggregates.store = store;
+		aggregates.totalNumOfCollisions = in.readInt();
+		aggregates.hourlyCount = in.readInts(24, 24);
+		aggregates.numOfInvalidDates = in.readInt();
+		aggregates.numOfInvalidTimes = in.readInt();
+		aggregates.weekdayHourCount = in.readInts(7 * 24, 7 * 24);
+		aggregates.firstMonth = in.readInt();
+		int numOfMonths = in.readLength();
+		aggregates.monthlyCount = in.readInts(numOfMonths, numOfMonths);
+		aggregates.vehicleTypes = StringDictionary.read(in);
+		aggregates.vehicleTypeCount = in.readInts(aggregates.vehicleTypes.size(),
+				Math.max(16, aggregates.vehicleTypes.size() + 1));
+		return aggregates;
+	}
+
+	/*
+	 * Adds count collisions to the counter of a month, extending the range of
+	 * months if necessary.
+	 */
+	private void addMonth ( int month, int count ) {
+		if (monthlyCount.length == 0) {
+			firstMonth = month;
+			monthlyCount = new int [12];
+		}
+		else if (month < firstMonth) {
+			int [] extended = new int [monthlyCount.length + (firstMonth - month)];
+			System.arraycopy(monthlyCount, 0, extended, firstMonth - month, monthlyCount.length);
+			monthlyCount = extended;
+			firstMonth = month;
+		}
+		else if (month - firstMonth >= monthlyCount.length) {
+			monthlyCount = Arrays.copyOf(monthlyCount,
+					Math.max(month - firstMonth + 1, 2 * monthlyCount.length));
+		}
+		monthlyCount[month - firstMonth] += count;
+	}
+
+	/**
+	 * Returns the month of an epoch day.
+	 * @param day the number of days since 01/01/1970
+	 * @return the month, numbered as year * 12 + month - 1 (month between 1 and 12)
+	 */
+	static int monthOf ( int day ) {
+		//same computation as CollisionStore.civilFromDays, without the day of the month
+		int z = day + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 12 + month - 1;
+	}
+
+	/**
+	 * Returns the day of the week of an epoch day.
+	 * @param day the number of days since 01/01/1970
+	 * @return the day of the week, 0 for Monday to 6 for Sunday
+	 */
+	static int dayOfWeek ( int day ) {
+		return Math.floorMod(day + 3, 7); //01/01/1970 was a Thursday
+	}
+
+	/*
+	 * Returns the vehicle type id of a vehicle code id of the store.
+	 */
+	private int getVehicleType ( int codeId ) {
+		if (codeId >= typeOfCode.length) {
+			int oldLength = typeOfCode.length;
+			typeOfCode = Arrays.copyOf(typeOfCode, Math.max(codeId + 1, 2 * oldLength));
+			Arrays.fill(typeOfCode, oldLength, typeOfCode.length, -1);
+		}
+		if (typeOfCode[codeId] < 0) {
+			typeOfCode[codeId] = encodeVehicleType(store.getVehicleCodes().decode(codeId));
+		}
+		return typeOfCode[codeId];
+	}
+
+	/*
+	 * Returns the id of the vehicle type of a given vehicle code, adding a counter
+	 * for the type if it is new.
+	 */
+	private int encodeVehicleType ( String vehicleCode ) {
+		int type = vehicleTypes.encode(toVehicleType(vehicleCode));
+		if (type == vehicleTypeCount.length) {
+			vehicleTypeCount = Arrays.copyOf(vehicleTypeCount, 2 * vehicleTypeCount.length);
+		}
+		return type;
+	}
+
+	/**
+	 * Converts a vehicle code to its vehicle type. Two vehicle codes have the same 
+	 * type exactly when they are equal according to String.equalsIgnoreCase, because 
+	 * every character is mapped the same way equalsIgnoreCase compares characters. 
+	 * @param vehicleCode the vehicle code 
+	 * @return the vehicle type 
+	 */
+	static String toVehicleType ( String vehicleCode ) {
+		char [] type = new char [vehicleCode.length()];
+		for (int i = 0; i < type.length; i++) {
+			type[i] = Character.toLowerCase(Character.toUpperCase(vehicleCode.charAt(i)));
+		}
+		return new String(type);
+	}
+
+	/**
+	 * Returns the total number of collisions.
+	 * @return the number of collisions added to this object
+	 */
+	public int getTotalNumOfCollisions ( ) {
+		return totalNumOfCollisions;
+	}
+
+	/**
+	 * Returns the number of collisions that occurred within a given hour. Collisions
+	 * with incorrectly formed times are not counted in any hour.
+	 * @param hour the hour, between 0 and 23
+	 * @return the number of collisions in that hour
+	 */
+	public int getHourlyCount ( int hour ) {
+		return hourlyCount[hour];
+	}
+
+	/**
+	 * Returns the number of collisions that involved a given vehicle type.
+	 * @param vehicleType the vehicle type (case is ignored)
+	 * @return the number of collisions with at least one vehicle of that type
+	 */
+	public int getNumOfCollisionsInvolving ( String vehicleType ) {
+		int type = vehicleTypes.lookup(toVehicleType(vehicleType));
+		return (type < 0) ? 0 : vehicleTypeCount[type];
+	}
+
+	/**
+	 * Returns the number of collisions that involved a given vehicle type.
+	 * @param vehicleType the vehicle type
+	 * @return the number of collisions with at least one vehicle of that type
+	 */
+	public int getNumOfCollisionsInvolving ( VehicleType vehicleType ) {
+		return getNumOfCollisionsInvolving(vehicleType.getName());
+	}
+
+	/**
+	 * Returns all vehicle types that occurred in the collisions, in the order in
+	 * which they were first seen.
+	 * @return a new list of the vehicle types (in the form returned by toVehicleType)
+	 */
+	public ArrayList<String> getVehicleTypes ( ) {
+		ArrayList<String> types = new ArrayList<String> (vehicleTypes.size());
+		for (int i = 0; i < vehicleTypes.size(); i++) {
+			types.add(vehicleTypes.decode(i));
+		}
+		return types;
+	}
+
+	/**
+	 * Returns the number of collisions whose date could not be parsed. These
+	 * collisions are not counted in any month or day of the week.
+	 * @return the number of collisions with incorrectly formed dates
+	 */
+	public int getNumOfInvalidDates ( ) {
+		return numOfInvalidDates;
+	}
+
+	/**
+	 * Returns the number of collisions whose time could not be parsed. These
+	 * collisions are not counted in any hour.
+	 * @return the number of collisions with incorrectly formed times
+	 */
+	public int getNumOfInvalidTimes ( ) {
+		return numOfInvalidTimes;
+	}
+
+	/**
+	 * Returns the number of collisions that occurred within a given hour of a given
+	 * day of the week. Only collisions with a valid date and time are counted.
+	 * @param dayOfWeek the day of the week, 0 for Monday to 6 for Sunday
+	 * @param hour the hour, between 0 and 23
+	 * @return the number of collisions in that hour of that day of the week
+	 */
+	public int getWeekdayHourCount ( int dayOfWeek, int hour ) {
+		return weekdayHourCount[dayOfWeek * 24 + hour];
+	}
+
+	/**
+	 * Returns the first month in which a collision occurred.
+	 * @return the month, numbered as year * 12 + month - 1, or 0 if no collision
+	 * has a valid date
+	 */
+	public int getFirstMonth ( ) {
+		return firstMonth;
+	}
+
+	/**
+	 * Returns the last month in which a collision occurred.
+	 * @return the month, numbered as year * 12 + month - 1, or -1 if no collision
+	 * has a valid date
+	 */
+	public int getLastMonth ( ) {
+		int last = monthlyCount.length - 1;
+		while (last >= 0 && monthlyCount[last] == 0) last--;
+		return firstMonth + last;
+	}
+
+	/**
+	 * Returns the number of collisions that occurred within a given month.
+	 * @param month the month, numbered as year * 12 + month - 1
+	 * @return the number of collisions with a date in that month
+	 */
+	public int getMonthlyCount ( int month ) {
+		int i = month - firstMonth;
+		return (i >= 0 && i < monthlyCount.length) ? monthlyCount[i] : 0;
+	}
+}
@@ -0,0 +1,95 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * This is a program that combines the results computed on several machines, each of
+ * which processed a part of the collision data (for example, the collisions of one
+ * year). Every machine runs CollisionInfo with the -summary option, which writes a
+ * CollisionSummary file of its part. This program reads the summary files, merges
+ * them and prints the same results that CollisionInfo prints for all the data.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionCoordinator {
+
+	/**
+	 * The main method that starts the program.
+	 * @param args the names of the summary files, which can be mixed with the options
+	 *     -vehicles type,type,...     lists the percentage of collisions for the given
+	 *                                 vehicle types instead of the default ones, or for
+	 *                                 all vehicle types if the value is "all"; types
+	 *                                 listed by VehicleType are printed under their
+	 *                                 names, whatever their case
+	 *     -trends                     also prints collisions by day of the week and
+	 *                                 hour, and by month
+	 *     -output fileName            writes the merged summary to a file
+	 *     -format text|csv|json       writes the results as aligned text (the
+	 *                                 default), as CSV sections with header lines
+	 *                                 separated by blank lines, or as one JSON object
+	 *                                 keyed by result; all other output then goes to
+	 *                                 the error stream
+	 * @throws IOException if a summary file cannot be read or the merged summary
+	 * cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		long startTimer = System.nanoTime();
+
+		ArrayList<File> files = new ArrayList<File>();
+		String vehicles = null;
+		boolean trends = false;
+		File output = null;
+		ReportFormat format = ReportFormat.TEXT;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-vehicles") && i + 1 < args.length) {
+				vehicles = args[++i];
+			}
+			else if (args[i].equals("-trends")) {
+				trends = true;
+			}
+			else if (args[i].equals("-output") && i + 1 < args.length) {
+				output = new File(args[++i]);
+			}
+			else if (args[i].equals("-format") && i + 1 < args.length) {
+				format = CollisionInfo.parseFormat(args[++i]);
+			}
+			else {
+				files.add(new File(args[i]));
+			}
+		}
+		if (files.isEmpty()) {
+			System.err.println("Summary file names missing");
+			System.exit(0);
+		}
+
+		CollisionSummary summary = new CollisionSummary();
+		for (File file : files) {
+			if (!file.canRead()) {
+				System.err.printf("Cannot read from file %s\n.", file.getAbsolutePath());
+				System.exit(0);
+			}
+			summary.addAll(CollisionSummary.read(file));
+		}
+		if (output != null) {
+			summary.write(output);
+		}
+		long elapsedTime1 = System.nanoTime() - startTimer;
+
+		//in the CSV and JSON formats, only the results are printed to the output stream
+		PrintStream info = (format == ReportFormat.TEXT) ? System.out : System.err;
+		startTimer = System.nanoTime();
+		ReportDocument document = new ReportDocument(format, System.out);
+		CollisionInfo.printReports(summary.newReportExecutor(), vehicles, trends, document);
+		document.close();
+		long elapsedTime2 = System.nanoTime() - startTimer;
+
+		info.println("\n\n============================================\n");
+		info.printf("Reading summaries       : %,15d nanoseconds\n", elapsedTime1);
+		info.printf("Computation of results  : %,15d nanoseconds\n", elapsedTime2);
+		CollisionInfo.printRejected(info, summary.getNumOfRejectedRecords(), summary.getAggregates());
+	}
+}
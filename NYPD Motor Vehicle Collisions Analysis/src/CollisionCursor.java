@@ -0,0 +1,137 @@
+
+
+/**
+ * CollisionCursor is a Collision object that does not hold any data of its own. All
+ * of its values are read from a particular row of a CollisionStore object, and the
+ * cursor can be moved from row to row. Iterating over collisions with a single cursor
+ * does not create an object per collision.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class CollisionCursor extends Collision {
+
+	private CollisionStore store;
+	private int row;
+
+	/**
+	 * Creates a CollisionCursor object positioned at a given row.
+	 * @param store the store containing the collisions
+	 * @param row the initial row
+	 */
+	CollisionCursor ( CollisionStore store, int row ) {
+		this.store = store;
+		this.row = row;
+	}
+
+	/**
+	 * Moves this cursor to another row of its store.
+	 * @param row the new row
+	 */
+	void moveTo ( int row ) {
+		this.row = row;
+	}
+
+	/**
+	 * Returns the row this cursor is positioned at.
+	 * @return the row
+	 */
+	int getRow ( ) {
+		return row;
+	}
+
+	@Override
+	public String getDate() {
+		return store.getDate(row);
+	}
+
+	@Override
+	public String getTime() {
+		return store.getTime(row);
+	}
+
+	@Override
+	public int getEpochDay() {
+		return store.getEpochDay(row);
+	}
+
+	@Override
+	public int getMinuteOfDay() {
+		return store.getMinuteOfDay(row);
+	}
+
+	@Override
+	public String getBorough() {
+		return store.getBorough(row);
+	}
+
+	@Override
+	public String getZip() {
+		return store.getZip(row);
+	}
+
+	@Override
+	public double getLatitude() {
+		return store.getLatitude(row);
+	}
+
+	@Override
+	public double getLongitude() {
+		return store.getLongitude(row);
+	}
+
+	@Override
+	public int getCyclistsInjured() {
+		return store.getCount(CollisionStore.CYCLISTS_INJURED, row);
+	}
+
+	@Override
+	public int getCyclistsKilled() {
+		return store.getCount(CollisionStore.CYCLISTS_KILLED, row);
+	}
+
+	@Override
+	public int getPersonsInjured() {
+		return store.getCount(CollisionStore.PERSONS_INJURED, row);
+	}
+
+	@Override
+	public int getPersonsKilled() {
+		return store.getCount(CollisionStore.PERSONS_KILLED, row);
+	}
+
+	@Override
+	public int getPedestriansInjured() {
+		return store.getCount(CollisionStore.PEDESTRIANS_INJURED, row);
+	}
+
+	@Override
+	public int getPedestriansKilled() {
+		return store.getCount(CollisionStore.PEDESTRIANS_KILLED, row);
+	}
+
+	@Override
+	public int getMotoristsInjured() {
+		return store.getCount(CollisionStore.MOTORISTS_INJURED, row);
+	}
+
+	@Override
+	public int getMotoristsKilled() {
+		return store.getCount(CollisionStore.MOTORISTS_KILLED, row);
+	}
+
+	@Override
+	public String getVehicleCode1() {
+		return store.getVehicleCode1(row);
+	}
+
+	@Override
+	public String getVehicleCode2() {
+		return store.getVehicleCode2(row);
+	}
+
+	@Override
+	public String getUniqueKey() {
+		return store.getUniqueKey(row);
+	}
+}
@@ -0,0 +1,295 @@
+
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * CollisionDataGenerator produces synthetic collision records in the 21-column layout
+ * of the input file (see the Collision(ArrayList) constructor). The values follow
+ * distributions that resemble the real data:
+ *     - zip codes are skewed, the zip code of rank r being chosen with a probability
+ *       proportional to 1/r (a Zipf distribution), and every zip code belongs to
+ *       one borough (a quarter of the records have an empty borough, as in the data)
+ *     - the hour of the day follows the daily pattern of collisions, with few
+ *       collisions at night and a peak in the afternoon rush hour
+ *     - passenger vehicles and station wagons make up most vehicle codes, and the
+ *       second vehicle is missing in about a fifth of the records
+ *     - most collisions have no injured persons; the injured are split among
+ *       pedestrians, cyclists and motorists, and fatalities are rare
+ * Street names are quoted and contain commas, like the entries of the real file.
+ * A given fraction of the records is malformed: they have a missing or invalid zip
+ * code, a count that is not a number, missing columns, or a date or time that is
+ * not in the usual format.
+ * The records are produced one at a time, so any number of them can be written to
+ * a file or passed straight to the code that ingests them, without keeping them in
+ * memory. The same seed always produces the same records.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionDataGenerator {
+
+	/** First line of a generated file. */
+	public static final String HEADER = "DATE,TIME,BOROUGH,ZIP CODE,LATITUDE,LONGITUDE,"
+			+ "ON STREET NAME,CROSS STREET NAME,NUMBER OF PERSONS INJURED,NUMBER OF PERSONS KILLED,"
+			+ "NUMBER OF PEDESTRIANS INJURED,NUMBER OF PEDESTRIANS KILLED,NUMBER OF CYCLIST INJURED,"
+			+ "NUMBER OF CYCLIST KILLED,NUMBER OF MOTORIST INJURED,NUMBER OF MOTORIST KILLED,"
+			+ "CONTRIBUTING FACTOR VEHICLE 1,CONTRIBUTING FACTOR VEHICLE 2,UNIQUE KEY,"
+			+ "VEHICLE TYPE CODE 1,VEHICLE TYPE CODE 2";
+
+	private static final String [] BOROUGHS = {"BROOKLYN", "QUEENS", "MANHATTAN", "BRONX", "STATEN ISLAND"};
+
+	//relative number of collisions in every hour of the day
+	private static final double [] HOUR_WEIGHTS = {
+			2.4, 1.3, 1.0, 0.9, 1.0, 1.3, 2.3, 3.6, 5.3, 5.1, 4.8, 5.0,
+			5.4, 5.6, 6.3, 6.7, 7.1, 7.2, 6.6, 5.5, 4.5, 3.9, 3.4, 2.8 };
+
+	private static final String [] VEHICLES = {"PASSENGER VEHICLE", "SPORT UTILITY / STATION WAGON",
+			"TAXI", "VAN", "PICK-UP TRUCK", "OTHER", "BUS", "SMALL COM VEH(4 TIRES)",
+			"LARGE COM VEH(6 OR MORE TIRES)", "BICYCLE", "MOTORCYCLE", "LIVERY VEHICLE",
+			"AMBULANCE", "FIRE TRUCK", "SCOOTER", "UNKNOWN" };
+	private static final double [] VEHICLE_WEIGHTS = {
+			52.0, 21.0, 5.4, 3.8, 2.5, 2.3, 2.0, 1.9, 1.7, 1.6, 0.9, 0.9, 0.4, 0.3, 0.2, 3.1 };
+
+	private static final String [] FACTORS = {"Unspecified", "Driver Inattention/Distraction",
+			"Failure to Yield Right-of-Way", "Fatigued/Drowsy", "Backing Unsafely",
+			"Following Too Closely", "Other Vehicular", "Turning Improperly",
+			"Passing or Lane Usage Improper", "Unsafe Speed" };
+
+	private static final String [] STREETS = {"BROADWAY", "ATLANTIC AVENUE", "NORTHERN BOULEVARD",
+			"QUEENS BOULEVARD", "FLATBUSH AVENUE", "GRAND CONCOURSE", "HYLAN BOULEVARD",
+			"3 AVENUE", "LINDEN BOULEVARD", "EASTERN PARKWAY", "JAMAICA AVENUE", "WEST 42 STREET" };
+
+	//first day of the generated dates (07/01/2012) and number of days
+	private static final int FIRST_DAY = CollisionStore.parseEpochDay("07/01/2012");
+	private static final int NUM_OF_DAYS = 4 * 365;
+
+	private Random random;
+	private double malformedFraction;
+	private long nextKey;
+
+	//cumulative probabilities of the zip codes, hours and vehicle codes
+	private int [] zipCodes;
+	private double [] zipCumulative;
+	private double [] hourCumulative;
+	private double [] vehicleCumulative;
+
+	private StringBuilder line;
+
+	/**
+	 * Creates a CollisionDataGenerator object.
+	 * @param numOfZipCodes the number of distinct zip codes, between 1 and 90000
+	 * @param malformedFraction the fraction of malformed records, between 0 and 1
+	 * @param seed the seed of the random numbers
+	 * @throws IllegalArgumentException if a parameter is out of range
+	 */
+	public CollisionDataGenerator ( int numOfZipCodes, double malformedFraction, long seed )
+			throws IllegalArgumentException {
+		if (numOfZipCodes < 1 || numOfZipCodes > 90000)
+			throw new IllegalArgumentException ("Error: the number of zip codes has to be between 1 and 90000. ");
+		if (!(malformedFraction >= 0 && malformedFraction <= 1))
+			throw new IllegalArgumentException ("Error: the fraction of malformed records has to be between 0 and 1. ");
+
+		this.random = new Random(seed);
+		this.malformedFraction = malformedFraction;
+		this.nextKey = 3000000;
+		this.line = new StringBuilder(256);
+
+		//zip codes of different ranks are spread over the range of five-digit codes
+		zipCodes = new int [numOfZipCodes];
+		double [] zipWeights = new double [numOfZipCodes];
+		for (int i = 0; i < numOfZipCodes; i++) {
+			zipCodes[i] = 10000 + (int) ((long) i * 7919 % 90000);
+			zipWeights[i] = 1.0 / (i + 1);
+		}
+		zipCumulative = cumulative(zipWeights);
+		hourCumulative = cumulative(HOUR_WEIGHTS);
+		vehicleCumulative = cumulative(VEHICLE_WEIGHTS);
+	}
+
+	/*
+	 * Returns the cumulative probabilities of a list of weights.
+	 */
+	private static double [] cumulative ( double [] weights ) {
+		double [] result = new double [weights.length];
+		double sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			result[i] = sum;
+		}
+		for (int i = 0; i < result.length; i++) {
+			result[i] /= sum;
+		}
+		return result;
+	}
+
+	/*
+	 * Chooses an index with the probabilities given by cumulative probabilities.
+	 */
+	private int choose ( double [] cumulative ) {
+		int i = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min((i >= 0) ? i : -i - 1, cumulative.length - 1);
+	}
+
+	/**
+	 * Produces the next record as a line of the input file (without a line break).
+	 * The returned string is new on every call.
+	 * @return the next line
+	 */
+	public String nextLine ( ) {
+		line.setLength(0);
+		boolean malformed = malformedFraction > 0 && random.nextDouble() < malformedFraction;
+		int defect = malformed ? random.nextInt(5) : -1;
+
+		//date and time
+		int [] ymd = CollisionStore.civilFromDays(FIRST_DAY + random.nextInt(NUM_OF_DAYS));
+		int hour = choose(hourCumulative);
+		int minute = random.nextInt(60);
+		if (defect == 0) {
+			line.append(ymd[0]).append('-').append(ymd[1]).append('-').append(ymd[2]).append(',');
+			line.append(hour + 24).append(':').append(minute).append(',');
+		}
+		else {
+			appendPadded(ymd[1], 2).append('/');
+			appendPadded(ymd[2], 2).append('/').append(ymd[0]).append(',');
+			line.append(hour).append(':');
+			appendPadded(minute, 2).append(',');
+		}
+
+		//borough and zip code
+		int zipIndex = choose(zipCumulative);
+		line.append(random.nextInt(4) == 0 ? "" : BOROUGHS[zipIndex % BOROUGHS.length]).append(',');
+		if (defect == 1) {
+			line.append(random.nextBoolean() ? "" : "1O0" + (10 + zipIndex % 90)).append(',');
+		}
+		else {
+			line.append(zipCodes[zipIndex]).append(',');
+		}
+
+		//location and streets
+		line.append("40.").append(500000 + random.nextInt(400000)).append(',');
+		line.append("-73.").append(700000 + random.nextInt(300000)).append(',');
+		line.append('"').append(STREETS[random.nextInt(STREETS.length)]).append(", ")
+				.append(random.nextInt(200) + 1).append(" BLOCK");
+		//an unbalanced quote joins all remaining entries into one
+		line.append(defect == 4 ? "," : "\",");
+		line.append('"').append(STREETS[random.nextInt(STREETS.length)]).append('"').append(',');
+
+		//injuries and fatalities
+		int pedestriansInjured = 0, cyclistsInjured = 0, motoristsInjured = 0;
+		if (random.nextInt(5) == 0) {
+			int injured = 1 + (random.nextInt(4) == 0 ? random.nextInt(4) : 0);
+			for (int i = 0; i < injured; i++) {
+				int kind = random.nextInt(10);
+				if (kind < 3) pedestriansInjured++;
+				else if (kind < 4) cyclistsInjured++;
+				else motoristsInjured++;
+			}
+		}
+		int pedestriansKilled = (random.nextInt(1000) == 0) ? 1 : 0;
+		int cyclistsKilled = (random.nextInt(10000) == 0) ? 1 : 0;
+		int motoristsKilled = (random.nextInt(2000) == 0) ? 1 : 0;
+		int countToBreak = (defect == 2) ? random.nextInt(8) : -1;
+		int [] counts = {pedestriansInjured + cyclistsInjured + motoristsInjured,
+				pedestriansKilled + cyclistsKilled + motoristsKilled,
+				pedestriansInjured, pedestriansKilled, cyclistsInjured, cyclistsKilled,
+				motoristsInjured, motoristsKilled };
+		for (int i = 0; i < counts.length; i++) {
+			if (i == countToBreak)
+				line.append("N/A,");
+			else
+				line.append(counts[i]).append(',');
+		}
+
+		if (defect == 3) { //the record ends in the middle
+			return line.toString();
+		}
+
+		//contributing factors, unique key and vehicle codes
+		line.append(FACTORS[random.nextInt(FACTORS.length)]).append(',');
+		line.append(FACTORS[random.nextInt(FACTORS.length)]).append(',');
+		line.append(nextKey++).append(',');
+		line.append(VEHICLES[choose(vehicleCumulative)]).append(',');
+		if (random.nextInt(5) != 0) {
+			line.append(VEHICLES[choose(vehicleCumulative)]);
+		}
+		return line.toString();
+	}
+
+	/*
+	 * Appends a number padded with zeros to a given number of digits.
+	 */
+	private StringBuilder appendPadded ( int value, int digits ) {
+		for (int limit = 10; digits > 1; digits--, limit *= 10) {
+			if (value < limit) line.append('0');
+		}
+		return line.append(value);
+	}
+
+	/**
+	 * Writes a header line followed by a given number of records.
+	 * @param out the destination of the records
+	 * @param numOfRecords the number of records to be written
+	 * @throws IOException if out cannot be written
+	 */
+	public void write ( Writer out, long numOfRecords ) throws IOException {
+		out.write(HEADER);
+		out.write('\n');
+		for (long i = 0; i < numOfRecords; i++) {
+			out.write(nextLine());
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	/**
+	 * The main method writes a file of synthetic collision records.
+	 * @param args the array should contain the name of the output file as the first
+	 * element; it can be followed by the options
+	 *     -rows numOfRows            number of records (default 100000)
+	 *     -zips numOfZipCodes        number of distinct zip codes (default 200)
+	 *     -malformed fraction        fraction of malformed records (default 0)
+	 *     -seed seed                 seed of the random numbers (default 1)
+	 * all other elements are ignored
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("File name missing");
+			System.exit(0);
+		}
+		long numOfRows = 100000;
+		int numOfZipCodes = 200;
+		double malformedFraction = 0;
+		long seed = 1;
+		try {
+			for (int i = 1; i + 1 < args.length; i++) {
+				if (args[i].equals("-rows")) numOfRows = Long.parseLong(args[++i]);
+				else if (args[i].equals("-zips")) numOfZipCodes = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-malformed")) malformedFraction = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+			}
+		} catch (NumberFormatException ex) {
+			System.err.println("Invalid number: " + ex.getMessage());
+			System.exit(0);
+		}
+
+		CollisionDataGenerator generator = null;
+		try {
+			generator = new CollisionDataGenerator(numOfZipCodes, malformedFraction, seed);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.exit(0);
+		}
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(args[0]), StandardCharsets.UTF_8), 1 << 16)) {
+			generator.write(out, numOfRows);
+		}
+	}
+}
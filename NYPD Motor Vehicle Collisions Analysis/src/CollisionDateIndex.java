@@ -0,0 +1,117 @@
+
+
+import java.util.Arrays;
+
+/**
+ * CollisionDateIndex partitions the collisions of a CollisionList object by borough
+ * and keeps the rows of every partition sorted by date. A query is answered by
+ * selecting the partitions of its borough and finding the rows of its date range
+ * with binary search, so only the rows within the range are examined.
+ * The index describes the list at the time it was built; CollisionList discards it
+ * whenever collisions are added.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class CollisionDateIndex {
+
+	private CollisionStore store;
+
+	//per borough id: the epoch days of the rows, sorted, and the rows in the same order
+	private int [][] days;
+	private int [][] rows;
+
+	/**
+	 * Builds the index of the collisions of a given list.
+	 * @param collisions the list to be indexed
+	 */
+	CollisionDateIndex ( CollisionList collisions ) {
+		store = collisions.getStore();
+		int numOfBoroughs = store.getBoroughs().size();
+
+		//count the rows of every borough
+		int [] sizes = new int [numOfBoroughs];
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				sizes[store.getBoroughId(zipList.getRow(i))]++;
+			}
+		}
+
+		//sort the rows of every borough by (date, row), packed into a single long
+		long [][] keys = new long [numOfBoroughs][];
+		for (int b = 0; b < numOfBoroughs; b++) {
+			keys[b] = new long [sizes[b]];
+			sizes[b] = 0;
+		}
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				int row = zipList.getRow(i);
+				int b = store.getBoroughId(row);
+				keys[b][sizes[b]++] = ((long) store.getEpochDay(row) << 32) | row;
+			}
+		}
+
+		days = new int [numOfBoroughs][];
+		rows = new int [numOfBoroughs][];
+		for (int b = 0; b < numOfBoroughs; b++) {
+			Arrays.sort(keys[b]);
+			days[b] = new int [keys[b].length];
+			rows[b] = new int [keys[b].length];
+			for (int i = 0; i < keys[b].length; i++) {
+				days[b][i] = (int) (keys[b][i] >> 32);
+				rows[b][i] = (int) keys[b][i];
+			}
+		}
+	}
+
+	/**
+	 * Finds the rows that match a query.
+	 * @param query the query
+	 * @return the matching rows in ascending order
+	 */
+	int [] select ( CollisionQuery query ) {
+		int [] selected = new int [16];
+		int numOfSelected = 0;
+
+		for (int b = 0; b < days.length; b++) {
+			if (!query.matchesBorough(store.getBoroughs().decode(b)))
+				continue;
+			int from = 0;
+			int to = days[b].length;
+			if (query.hasDateRange()) {
+				from = lowerBound(days[b], query.getFromDay());
+				to = lowerBound(days[b], query.getToDay() + 1);
+			}
+			for (int i = from; i < to; i++) {
+				int row = rows[b][i];
+				if (query.matchesTime(store.getMinuteOfDay(row))) {
+					if (numOfSelected == selected.length) {
+						selected = Arrays.copyOf(selected, 2 * selected.length);
+					}
+					selected[numOfSelected++] = row;
+				}
+			}
+		}
+
+		selected = Arrays.copyOf(selected, numOfSelected);
+		Arrays.sort(selected);
+		return selected;
+	}
+
+	/*
+	 * Returns the index of the first element of a sorted array that is not smaller
+	 * than value.
+	 */
+	private static int lowerBound ( int [] sorted, int value ) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < value)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+}
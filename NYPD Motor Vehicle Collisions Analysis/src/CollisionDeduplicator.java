@@ -0,0 +1,240 @@
+
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * CollisionDeduplicator remembers the unique keys of the collisions added to a
+ * CollisionList object, so that a collision whose key has been seen before (for
+ * example because overlapping files are read into the same list) is skipped
+ * instead of being counted twice. It works in one of two modes.
+ * In the exact mode, the keys are kept in sets: keys that are numbers, which is
+ * how the keys of the data are formed, in a primitive hash set of longs (16 to 32
+ * bytes per key) and any other keys in a set of strings. Checking a key takes
+ * constant time.
+ * With a Bloom filter (see withBloomFilter()), for replays where memory is tight,
+ * only the filter is kept, at less than 10 bits per key for a 1% false positive
+ * rate. A key the filter has certainly not seen is new. A key the filter has
+ * possibly seen is looked up in the unique-key column of the rows that the list
+ * already stores for the zip code of the collision, starting after the row at
+ * which the previous duplicate of that zip code was found, so that the
+ * duplicates of a file that is read again are found at once. Only duplicates and,
+ * with at most the false positive rate, new keys are looked up, and every lookup
+ * scans at most the rows of one zip code. A record read twice always has the same
+ * zip code, so the same collisions are skipped as in the exact mode unless the
+ * data reuses a key for a different zip code.
+ * Empty keys are never considered duplicates. This class is not thread-safe.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionDeduplicator {
+
+	/** Number of keys a Bloom filter is sized for by default. */
+	public static final long DEFAULT_EXPECTED_NUM_OF_KEYS = 10_000_000;
+	/** False positive rate of a Bloom filter by default. */
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	//keys seen in the exact mode, null with a Bloom filter
+	private LongHashSet numericKeys;
+	private HashSet<String> otherKeys;
+	//keys possibly seen, or null in the exact mode
+	private BloomFilter filter;
+	//position after the last duplicate found in the rows of every zip code
+	private HashMap<String, Integer> nextPositions;
+
+	private long numOfKeys;
+	private long numOfDuplicates;
+	//new keys the filter reported as possibly seen
+	private long numOfFalsePositives;
+
+	/**
+	 * Creates a CollisionDeduplicator object that remembers every key exactly.
+	 */
+	public CollisionDeduplicator ( ) {
+		numericKeys = new LongHashSet();
+		otherKeys = new HashSet<String>();
+	}
+
+	/*
+	 * Creates a CollisionDeduplicator object that keeps only a Bloom filter.
+	 */
+	private CollisionDeduplicator ( BloomFilter filter ) {
+		this.filter = filter;
+		nextPositions = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Creates a CollisionDeduplicator object that keeps only a Bloom filter and looks
+	 * up the keys the filter has possibly seen in the stored collisions.
+	 * @param expectedNumOfKeys the number of keys the filter is sized for
+	 * @param falsePositiveRate the largest probability that a new key has to be
+	 * looked up, between 0 and 1
+	 * @return the new CollisionDeduplicator object
+	 * @throws IllegalArgumentException if expectedNumOfKeys is not positive or the
+	 * rate is not between 0 and 1
+	 */
+	public static CollisionDeduplicator withBloomFilter ( long expectedNumOfKeys, double falsePositiveRate )
+			throws IllegalArgumentException {
+		return new CollisionDeduplicator(new BloomFilter(expectedNumOfKeys, falsePositiveRate));
+	}
+
+	/**
+	 * Remembers the unique key of a collision that is about to be added to a
+	 * CollisionList object and determines if it is new.
+	 * @param uniqueKey the unique key
+	 * @param store the store of the list
+	 * @param zipList the rows that the list stores for the zip code of the
+	 * collision, or null if it stores none
+	 * @return true if the key has not been seen before (or is empty), false if the
+	 * collision is a duplicate
+	 */
+	boolean add ( String uniqueKey, CollisionStore store, ZipCodeList zipList ) {
+		if (uniqueKey == null || uniqueKey.length() == 0)
+			return true;
+		boolean added;
+		if (filter == null) {
+			added = addExact(uniqueKey);
+		}
+		else if (filter.add(filterValue(uniqueKey))) {
+			added = true;
+		}
+		else {
+			added = zipList == null || !isStored(uniqueKey, store, zipList);
+			if (added) {
+				numOfFalsePositives++;
+			}
+		}
+		if (added) {
+			numOfKeys++;
+		}
+		else {
+			numOfDuplicates++;
+		}
+		return added;
+	}
+
+	/**
+	 * Remembers the unique key of a collision that is already stored in the list.
+	 * The collision is kept even if its key has been seen before.
+	 * @param uniqueKey the unique key
+	 */
+	void addStored ( String uniqueKey ) {
+		if (uniqueKey == null || uniqueKey.length() == 0)
+			return;
+		if (filter != null) {
+			filter.add(filterValue(uniqueKey));
+			numOfKeys++;
+		}
+		else if (addExact(uniqueKey)) {
+			numOfKeys++;
+		}
+	}
+
+	/*
+	 * Adds a key to the sets of the exact mode and determines if it is new.
+	 */
+	private boolean addExact ( String uniqueKey ) {
+		long value = CollisionStore.parseNumericKey(uniqueKey);
+		return (value >= 0) ? numericKeys.add(value) : otherKeys.add(uniqueKey);
+	}
+
+	/*
+	 * Returns the value of a key in the Bloom filter: the number for numeric keys,
+	 * and a negative hash for any other keys, so that they cannot meet numbers.
+	 */
+	private static long filterValue ( String uniqueKey ) {
+		long value = CollisionStore.parseNumericKey(uniqueKey);
+		return (value >= 0) ? value : (hash(uniqueKey) | Long.MIN_VALUE);
+	}
+
+	/*
+	 * Determines if a key is stored in one of the rows of a zip code, scanning the
+	 * rows once round from the position after the last duplicate found there.
+	 */
+	private boolean isStored ( String uniqueKey, CollisionStore store, ZipCodeList zipList ) {
+		long key = store.findUniqueKey(uniqueKey);
+		if (key == CollisionStore.UNKNOWN_KEY)
+			return false;
+		int numOfRows = zipList.getNumOfRows();
+		Integer next = nextPositions.get(zipList.getZip());
+		int i = (next == null || next >= numOfRows) ? 0 : next;
+		for (int n = 0; n < numOfRows; n++) {
+			if (store.getStoredUniqueKey(zipList.getRow(i)) == key) {
+				nextPositions.put(zipList.getZip(), i + 1);
+				return true;
+			}
+			i = (i + 1 == numOfRows) ? 0 : i + 1;
+		}
+		return false;
+	}
+
+	/**
+	 * Determines if only a Bloom filter is kept.
+	 * @return true if a Bloom filter is used, false if every key is remembered
+	 * exactly
+	 */
+	public boolean hasBloomFilter ( ) {
+		return filter != null;
+	}
+
+	/**
+	 * Returns the number of keys considered new.
+	 * @return the number of keys
+	 */
+	public long getNumOfKeys ( ) {
+		return numOfKeys;
+	}
+
+	/**
+	 * Returns the number of keys considered duplicates.
+	 * @return the number of duplicates
+	 */
+	public long getNumOfDuplicates ( ) {
+		return numOfDuplicates;
+	}
+
+	/**
+	 * Returns the number of new keys that had to be looked up because the Bloom
+	 * filter reported them as possibly seen.
+	 * @return the number of false positives, 0 without a Bloom filter
+	 */
+	public long getNumOfFalsePositives ( ) {
+		return numOfFalsePositives;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the numeric keys in the exact mode, or by
+	 * the Bloom filter; keys that are not numbers are not included.
+	 * @return the number of bytes
+	 */
+	public long getMemoryUsage ( ) {
+		return (filter != null) ? filter.getMemoryUsage() : numericKeys.getMemoryUsage();
+	}
+
+	/**
+	 * Describes this deduplicator.
+	 * @return a string with the mode, the counters and the memory used
+	 */
+	@Override
+	public String toString ( ) {
+		if (filter == null)
+			return String.format("exact, %,d keys, %,d duplicates, %,d bytes",
+					numOfKeys, numOfDuplicates, getMemoryUsage());
+		return String.format("Bloom filter (%d hashes), %,d keys, %,d duplicates, "
+				+ "%,d false positives, %,d bytes", filter.getNumOfHashes(), numOfKeys,
+				numOfDuplicates, numOfFalsePositives, getMemoryUsage());
+	}
+
+	/*
+	 * Hashes a key that is not a number (64-bit FNV-1a).
+	 */
+	private static long hash ( String key ) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+}
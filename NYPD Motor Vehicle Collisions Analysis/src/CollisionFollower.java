@@ -0,0 +1,291 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * CollisionFollower follows a growing collision data file, or a directory of rotated
+ * data files, and adds new records to a CollisionList object as they are appended.
+ * Each call to poll() reads whatever complete lines have been written since the
+ * previous call; an incomplete last line is kept until the rest of it arrives.
+ * In a directory, the files are read in the order of their names, and the follower
+ * moves on to the next file once the current one has been read completely and a
+ * file with a later name exists.
+ * The position of the follower (the current file, the offset of the first line that
+ * has not been read yet and the number of collisions added so far) can be saved to
+ * a checkpoint file, so that a restarted follower continues where the previous one
+ * stopped instead of reading everything again.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionFollower {
+
+	private static final int INITIAL_BUFFER_SIZE = 1 << 20;
+
+	private File source;
+	private File checkpoint;
+	private Charset charset;
+
+	private File current;
+	private long position;
+	private long numOfCollisions;
+	private ByteBuffer buffer;
+
+	//ingest metrics, if requested
+	private IngestMetrics metrics;
+
+	//true if the latitude and longitude entries are parsed
+	private boolean parseLocations;
+
+	/**
+	 * Creates a CollisionFollower object. If the checkpoint file exists, the
+	 * follower resumes from the position stored in it, otherwise it starts at the
+	 * beginning of the first file.
+	 * @param source a data file or a directory of data files
+	 * @param checkpoint the file in which the position is saved, or null if the
+	 * position should not be saved
+	 * @throws IOException if the checkpoint file exists but cannot be read
+	 */
+	public CollisionFollower ( File source, File checkpoint ) throws IOException {
+		this.source = source;
+		this.checkpoint = checkpoint;
+		this.charset = Charset.defaultCharset();
+		this.buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+		buffer.flip();
+
+		if (checkpoint != null && checkpoint.exists()) {
+			try (Scanner in = new Scanner(checkpoint, "UTF-8")) {
+				position = Long.parseLong(in.nextLine().trim());
+				current = new File(in.nextLine());
+				if (in.hasNextLine()) {
+					numOfCollisions = Long.parseLong(in.nextLine().trim());
+				}
+			}
+			catch (RuntimeException ex) {
+				throw new IOException("Invalid checkpoint file " + checkpoint, ex);
+			}
+		}
+		else {
+			current = nextFile(null);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Requests that the latitude and longitude of the collisions are parsed from
+	 * the followed files (see CollisionTokenizer.setParseLocations()), so that the
+	 * collisions can be indexed by location (see CollisionList.getGridIndex()).
+	 * @param parseLocations true if the locations should be parsed
+	 */
+	public void setParseLocations ( boolean parseLocations ) {
+		this.parseLocations = parseLocations;
+	}
+
+	/**
+	 * Requests that the lines, bytes, rejections and parse and insert times are
+	 * counted in a given IngestMetrics object while the files are followed.
+	 * @param metrics the metrics to be updated, or null for none
+	 */
+	public void setMetrics ( IngestMetrics metrics ) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Reads all complete lines that are available and adds them to list. If the
+	 * current file has been read completely and a later file exists (when following
+	 * a directory), the follower moves on to that file.
+	 * @param list the list to which new collisions are added
+	 * @return the number of lines read
+	 * @throws IOException if a file cannot be read
+	 */
+	public int poll ( CollisionList list ) throws IOException {
+		int numOfLines = 0;
+		while (current != null) {
+			numOfLines += readAvailable(list, false);
+
+			File next = nextFile(current);
+			if (next == null)
+				break;
+			//the current file is complete: its last line does not need a line break
+			numOfLines += readAvailable(list, true);
+			current = next;
+			position = 0;
+			buffer.clear();
+			buffer.flip();
+		}
+		if (current == null) {
+			current = nextFile(null);
+		}
+		if (metrics != null) {
+			metrics.setNumOfZipCodes(list.getNumOfZipCodes());
+		}
+		return numOfLines;
+	}
+
+	/*
+	 * Reads the lines appended to the current file since the last call.
+	 */
+	private int readAvailable ( CollisionList list, boolean endOfInput ) throws IOException {
+		if (!current.exists())
+			return 0;
+		int numOfLines = 0;
+		try (FileChannel channel = FileChannel.open(current.toPath(), StandardOpenOption.READ)) {
+			long readPosition = position + buffer.remaining();
+			if (channel.size() < readPosition) {
+				//the file has been truncated or replaced: start from its beginning
+				position = 0;
+				readPosition = 0;
+				buffer.clear();
+				buffer.flip();
+			}
+			while (true) {
+				//append newly written bytes after the incomplete line kept in the buffer
+				buffer.compact();
+				if (!buffer.hasRemaining()) {
+					buffer.flip();
+					ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+					larger.put(buffer);
+					buffer = larger;
+				}
+				int numOfBytes = channel.read(buffer, readPosition);
+				buffer.flip();
+				if (numOfBytes > 0) {
+					readPosition += numOfBytes;
+				}
+
+				CollisionTokenizer tokenizer = new CollisionTokenizer(buffer, charset,
+						endOfInput && numOfBytes <= 0);
+				tokenizer.setParseLocations(parseLocations);
+				while (tokenizer.hasNextLine()) {
+					if (add(list, tokenizer)) {
+						numOfCollisions++;
+					}
+					numOfLines++;
+				}
+				position += tokenizer.getPosition();
+				if (metrics != null) {
+					metrics.addBytes(tokenizer.getPosition());
+				}
+				buffer.position(buffer.position() + tokenizer.getPosition());
+
+				if (numOfBytes <= 0)
+					return numOfLines;
+			}
+		}
+	}
+
+	/*
+	 * Parses the next line of tokenizer and adds it to list, recording the parse
+	 * and insert times if metrics are requested.
+	 * @return true if the line described a valid collision
+	 */
+	private boolean add ( CollisionList list, CollisionTokenizer tokenizer ) {
+		if (metrics == null)
+			return list.add(tokenizer.nextCollision());
+
+		long parseStart = System.nanoTime();
+		Collision col = tokenizer.nextCollision();
+		metrics.addParsed(col, tokenizer.getRejectReason(), System.nanoTime() - parseStart);
+		long insertStart = System.nanoTime();
+		boolean added = list.add(col);
+		if (added) {
+			metrics.addInserted(System.nanoTime() - insertStart);
+			metrics.addInvalid(col);
+		}
+		else if (col != null) {
+			metrics.addDuplicates(1);
+		}
+		return added;
+	}
+
+	/*
+	 * Returns the first data file whose name comes after the name of after (or the
+	 * first data file if after is null), or null if there is no such file.
+	 */
+	private File nextFile ( File after ) {
+		if (!source.isDirectory())
+			return (after == null) ? source : null;
+
+		File [] files = source.listFiles();
+		if (files == null)
+			return null;
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isFile() && !file.isHidden() && !isCheckpointFile(file)
+					&& (after == null || file.getName().compareTo(after.getName()) > 0)) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Determines if a file is the checkpoint file or the temporary file that is
+	 * written by saveCheckpoint(), which must not be read as data files when the
+	 * checkpoint is kept in the followed directory.
+	 */
+	private boolean isCheckpointFile ( File file ) {
+		if (checkpoint == null)
+			return false;
+		Path path = file.toPath().toAbsolutePath().normalize();
+		Path checkpointPath = checkpoint.toPath().toAbsolutePath().normalize();
+		return path.equals(checkpointPath)
+				|| path.equals(checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp"));
+	}
+
+	/**
+	 * Saves the current position to the checkpoint file. The position is written to
+	 * a temporary file first, so the checkpoint is never left half written. Nothing
+	 * is saved if the follower has no checkpoint file.
+	 * @throws IOException if the checkpoint cannot be written
+	 */
+	public void saveCheckpoint ( ) throws IOException {
+		if (checkpoint == null || current == null)
+			return;
+		File tmp = new File(checkpoint.getPath() + ".tmp");
+		try (PrintWriter out = new PrintWriter(tmp, "UTF-8")) {
+			out.println(position);
+			out.println(current.getPath());
+			out.println(numOfCollisions);
+		}
+		Files.move(tmp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the file that is currently followed.
+	 * @return the current file, or null if no data file exists yet
+	 */
+	public File getCurrentFile ( ) {
+		return current;
+	}
+
+	/**
+	 * Returns the number of collisions added by this follower, including the ones
+	 * added before the checkpoint it resumed from.
+	 * @return the number of collisions read so far
+	 */
+	public long getNumOfCollisions ( ) {
+		return numOfCollisions;
+	}
+
+	/**
+	 * Returns the offset in the current file of the first line that has not been
+	 * read yet.
+	 * @return the position in the current file
+	 */
+	public long getPosition ( ) {
+		return position;
+	}
+}
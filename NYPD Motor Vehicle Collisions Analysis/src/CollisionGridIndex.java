@@ -0,0 +1,352 @@
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * CollisionGridIndex is a spatial index of the collisions of a CollisionList object
+ * that have a known location (see Collision.getLatitude()). The map is cut into a
+ * uniform grid of cells of roughly equal size, given in meters: cells are a fixed
+ * number of degrees high, and a fixed number of degrees wide chosen so that they are
+ * square at the mean latitude of the collisions. The rows of the collisions are
+ * sorted by cell, so the collisions within a distance of a point are found by
+ * examining only the cells that overlap the circle around it, and the collisions of
+ * a cell are listed in the order in which they were added.
+ * An index never changes after it has been built, so any number of threads can
+ * query it at the same time. It describes the list at the time it was built;
+ * collisions added to the list later are not part of it. Distances are measured on
+ * a sphere with the mean radius of the Earth. The grid does not wrap around the
+ * 180th meridian.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionGridIndex {
+
+	/**
+	 * Default size of a cell in meters, about the length of a city block.
+	 */
+	public static final double DEFAULT_CELL_SIZE = 100;
+
+	/**
+	 * Mean radius of the Earth in meters.
+	 */
+	public static final double EARTH_RADIUS = 6371008.8;
+
+	//number of bits of a packed entry that hold the row
+	private static final int ROW_BITS = 31;
+
+	private final CollisionStore store;
+	private final double cellSize;
+	private final double cellHeight;
+	private final double cellWidth;
+
+	//keys of the non-empty cells in ascending order (see getKey())
+	private final long [] cellKeys;
+	//the rows of cell i are rows[cellStart[i]] to rows[cellStart[i+1] - 1]
+	private final int [] cellStart;
+	private final int [] rows;
+
+	/**
+	 * Builds the grid index of the collisions of a given list.
+	 * @param collisions the list to be indexed
+	 * @param cellSize the width and height of a cell in meters
+	 * @throws IllegalArgumentException when cellSize is smaller than 1 meter
+	 */
+	CollisionGridIndex ( CollisionList collisions, double cellSize ) throws IllegalArgumentException {
+		if (!(cellSize >= 1))
+			throw new IllegalArgumentException ("Error: the cell size has to be at least 1 meter. ");
+		this.store = collisions.getStore();
+		this.cellSize = cellSize;
+
+		int numOfRows = 0;
+		double sumOfLatitudes = 0;
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				double latitude = store.getLatitude(zipList.getRow(i));
+				if (!Double.isNaN(latitude)) {
+					numOfRows++;
+					sumOfLatitudes += latitude;
+				}
+			}
+		}
+		int [] located = new int [numOfRows];
+		numOfRows = 0;
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				if (!Double.isNaN(store.getLatitude(zipList.getRow(i)))) {
+					located[numOfRows++] = zipList.getRow(i);
+				}
+			}
+		}
+
+		cellHeight = Math.toDegrees(cellSize / EARTH_RADIUS);
+		double meanLatitude = (numOfRows == 0) ? 0 : sumOfLatitudes / numOfRows;
+		cellWidth = cellHeight / Math.max(Math.cos(Math.toRadians(meanLatitude)), 0.01);
+
+		long [] keys = new long [located.length];
+		for (int i = 0; i < located.length; i++) {
+			keys[i] = getKey(getLatitudeCell(store.getLatitude(located[i])),
+					getLongitudeCell(store.getLongitude(located[i])));
+		}
+		cellKeys = distinct(keys);
+
+		//sort the rows by the position of their cell, keeping the order of the rows
+		long [] entries = new long [located.length];
+		for (int i = 0; i < located.length; i++) {
+			entries[i] = ((long) Arrays.binarySearch(cellKeys, keys[i]) << ROW_BITS) | located[i];
+		}
+		Arrays.parallelSort(entries);
+		rows = new int [entries.length];
+		cellStart = new int [cellKeys.length + 1];
+		for (int i = 0; i < entries.length; i++) {
+			rows[i] = (int) entries[i] & Integer.MAX_VALUE;
+			cellStart[(int) (entries[i] >>> ROW_BITS) + 1]++;
+		}
+		for (int i = 0; i < cellKeys.length; i++) {
+			cellStart[i + 1] += cellStart[i];
+		}
+	}
+
+	/*
+	 * Returns the sorted distinct values of an array of keys.
+	 */
+	private static long [] distinct ( long [] keys ) {
+		long [] sorted = keys.clone();
+		Arrays.parallelSort(sorted);
+		int numOfDistinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (numOfDistinct == 0 || sorted[i] != sorted[numOfDistinct - 1]) {
+				sorted[numOfDistinct++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, numOfDistinct);
+	}
+
+	/*
+	 * Returns the key of a cell. Keys are ordered by the latitude cell and then by
+	 * the longitude cell, so the cells of a row of the grid have consecutive keys.
+	 */
+	private static long getKey ( int latitudeCell, int longitudeCell ) {
+		return ((long) latitudeCell << 32) | ((longitudeCell ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	/*
+	 * Returns the row of the grid that contains a latitude.
+	 */
+	private int getLatitudeCell ( double latitude ) {
+		return (int) Math.floor(latitude / cellHeight);
+	}
+
+	/*
+	 * Returns the column of the grid that contains a longitude.
+	 */
+	private int getLongitudeCell ( double longitude ) {
+		return (int) Math.floor(longitude / cellWidth);
+	}
+
+	/**
+	 * Returns the distance between two points along the surface of the Earth,
+	 * computed with the haversine formula.
+	 * @param latitude1 the latitude of the first point in degrees
+	 * @param longitude1 the longitude of the first point in degrees
+	 * @param latitude2 the latitude of the second point in degrees
+	 * @param longitude2 the longitude of the second point in degrees
+	 * @return the distance in meters
+	 */
+	public static double getDistance ( double latitude1, double longitude1, double latitude2,
+			double longitude2 ) {
+		double phi1 = Math.toRadians(latitude1);
+		double phi2 = Math.toRadians(latitude2);
+		double sinHalfPhi = Math.sin((phi2 - phi1) / 2);
+		double sinHalfLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+		double h = sinHalfPhi * sinHalfPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfLambda * sinHalfLambda;
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * Returns the size of the cells of this index.
+	 * @return the width and height of a cell in meters
+	 */
+	public double getCellSize ( ) {
+		return cellSize;
+	}
+
+	/**
+	 * Returns the number of indexed collisions, i.e., the collisions with a known
+	 * location.
+	 * @return the number of collisions
+	 */
+	public int size ( ) {
+		return rows.length;
+	}
+
+	/**
+	 * Returns the number of cells that contain at least one collision.
+	 * @return the number of non-empty cells
+	 */
+	public int getNumOfCells ( ) {
+		return cellKeys.length;
+	}
+
+	/**
+	 * Returns the collisions within a given distance of a point, ordered by cell
+	 * (from south to north and from west to east) and, within a cell, in the order
+	 * in which they were added.
+	 * @param latitude the latitude of the point in degrees
+	 * @param longitude the longitude of the point in degrees
+	 * @param radius the distance in meters
+	 * @return the collisions whose distance from the point is at most radius
+	 */
+	public List<Collision> getWithin ( double latitude, double longitude, double radius ) {
+		ArrayList<Collision> result = new ArrayList<Collision>();
+		scanWithin(latitude, longitude, radius, row -> result.add(new CollisionCursor(store, row)));
+		return result;
+	}
+
+	/**
+	 * Counts the collisions within a given distance of a point.
+	 * @param latitude the latitude of the point in degrees
+	 * @param longitude the longitude of the point in degrees
+	 * @param radius the distance in meters
+	 * @return the number of collisions whose distance from the point is at most radius
+	 */
+	public int countWithin ( double latitude, double longitude, double radius ) {
+		int [] count = { 0 };
+		scanWithin(latitude, longitude, radius, row -> count[0]++);
+		return count[0];
+	}
+
+	/*
+	 * Passes the rows within radius meters of a point to action. Only the cells of
+	 * the bounding box of the circle are examined; the longitude range of the box is
+	 * widened to the whole grid if the circle reaches a pole.
+	 */
+	private void scanWithin ( double latitude, double longitude, double radius,
+			IntConsumer action ) {
+		if (!(radius >= 0) || Double.isNaN(latitude) || Double.isNaN(longitude))
+			return;
+		double angle = radius / EARTH_RADIUS;
+		double south = latitude - Math.toDegrees(angle);
+		double north = latitude + Math.toDegrees(angle);
+		int firstColumn = Integer.MIN_VALUE;
+		int lastColumn = Integer.MAX_VALUE;
+		double sinOfSpan = Math.sin(Math.min(angle, Math.PI / 2)) / Math.cos(Math.toRadians(latitude));
+		if (south > -90 && north < 90 && sinOfSpan < 1) {
+			double span = Math.toDegrees(Math.asin(sinOfSpan));
+			firstColumn = getLongitudeCell(longitude - span);
+			lastColumn = getLongitudeCell(longitude + span);
+		}
+
+		int lastRow = getLatitudeCell(Math.min(north, 90));
+		for (int gridRow = getLatitudeCell(Math.max(south, -90)); gridRow <= lastRow; gridRow++) {
+			int from = lowerBound(getKey(gridRow, firstColumn));
+			int to = (lastColumn == Integer.MAX_VALUE) ? lowerBound(getKey(gridRow + 1, Integer.MIN_VALUE))
+					: lowerBound(getKey(gridRow, lastColumn + 1));
+			for (int i = cellStart[from]; i < cellStart[to]; i++) {
+				if (getDistance(latitude, longitude, store.getLatitude(rows[i]),
+						store.getLongitude(rows[i])) <= radius) {
+					action.accept(rows[i]);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the position of the first cell whose key is at least key.
+	 */
+	private int lowerBound ( long key ) {
+		int position = Arrays.binarySearch(cellKeys, key);
+		return (position >= 0) ? position : -position - 1;
+	}
+
+	/**
+	 * Returns the k cells with the largest number of collisions, from the largest
+	 * number down. Cells with equal numbers are listed from south to north and from
+	 * west to east.
+	 * @param k the number of cells
+	 * @return a list of min(k, getNumOfCells()) cells
+	 */
+	public List<Cell> getDensestCells ( int k ) {
+		//sort the cells by count, ties by position in reverse, and take the last k
+		long [] order = new long [cellKeys.length];
+		for (int i = 0; i < cellKeys.length; i++) {
+			order[i] = ((long) (cellStart[i + 1] - cellStart[i]) << ROW_BITS) | (Integer.MAX_VALUE - i);
+		}
+		Arrays.sort(order);
+		ArrayList<Cell> result = new ArrayList<Cell>(Math.max(0, Math.min(k, order.length)));
+		for (int i = order.length - 1; i >= 0 && result.size() < k; i--) {
+			result.add(new Cell(Integer.MAX_VALUE - ((int) order[i] & Integer.MAX_VALUE)));
+		}
+		return result;
+	}
+
+	/**
+	 * Cell is a non-empty cell of the grid of a CollisionGridIndex object.
+	 */
+	public class Cell {
+
+		private final int index;
+
+		/*
+		 * Creates a Cell object for the cell at a given position of cellKeys.
+		 */
+		private Cell ( int index ) {
+			this.index = index;
+		}
+
+		/**
+		 * Returns the latitude of the center of this cell.
+		 * @return the latitude in degrees
+		 */
+		public double getLatitude ( ) {
+			return ((cellKeys[index] >> 32) + 0.5) * cellHeight;
+		}
+
+		/**
+		 * Returns the longitude of the center of this cell.
+		 * @return the longitude in degrees
+		 */
+		public double getLongitude ( ) {
+			return (((int) cellKeys[index] ^ Integer.MIN_VALUE) + 0.5) * cellWidth;
+		}
+
+		/**
+		 * Returns the number of collisions in this cell.
+		 * @return the number of collisions
+		 */
+		public int getNumOfCollisions ( ) {
+			return cellStart[index + 1] - cellStart[index];
+		}
+
+		/**
+		 * Returns the collisions in this cell, in the order in which they were added.
+		 * @return an unmodifiable list of the collisions
+		 */
+		public List<Collision> getCollisions ( ) {
+			int from = cellStart[index];
+			int to = cellStart[index + 1];
+			return new AbstractList<Collision>() {
+				@Override
+				public Collision get ( int i ) {
+					if (i < 0 || i >= to - from)
+						throw new IndexOutOfBoundsException("Index: " + i + ", size: " + (to - from));
+					return new CollisionCursor(store, rows[from + i]);
+				}
+
+				@Override
+				public int size ( ) {
+					return to - from;
+				}
+			};
+		}
+
+		@Override
+		public String toString ( ) {
+			return String.format("%.6f, %.6f", getLatitude(), getLongitude());
+		}
+	}
+}
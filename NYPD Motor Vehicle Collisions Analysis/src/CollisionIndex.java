@@ -0,0 +1,240 @@
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CollisionIndex is an ordered view of the collisions of a CollisionList object in
+ * one of the sort orders (see SortOrder). The index is built once: the rows of the
+ * collisions are sorted by their key in that order, and collisions with equal keys
+ * are kept in the order in which they were added. Range and top-n queries are
+ * answered with binary search.
+ * An index never changes after it has been built, so any number of threads can
+ * query it at the same time. It describes the list at the time it was built;
+ * collisions added to the list later are not part of it.
+ * The key of a collision is its zip code (ZIP), its unique key (UNIQUEKEY), or its
+ * number of cyclists (CYCLISTS) or persons (PERSONS) injured and killed.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionIndex {
+
+	//number of bits of a packed entry that hold the row
+	private static final int ROW_BITS = 31;
+	//largest key that can be packed into an entry without overflowing
+	private static final long MAX_KEY = Long.MAX_VALUE >>> ROW_BITS;
+
+	private final CollisionStore store;
+	private final SortOrder order;
+
+	//entries in ascending order, each packed as (key << ROW_BITS) | row; the key of a
+	//numeric order is the count itself, the key of a string order is the position of
+	//the string in the sorted array of distinct strings
+	private final long [] entries;
+	private final String [] distinctStrings;
+
+	/**
+	 * Builds the index of the collisions of a given list in a given order. The rows
+	 * are sorted in parallel.
+	 * @param collisions the list to be indexed
+	 * @param order the sort order
+	 */
+	CollisionIndex ( CollisionList collisions, SortOrder order ) {
+		this.store = collisions.getStore();
+		this.order = order;
+
+		int numOfRows = 0;
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			numOfRows += zipList.getNumOfRows();
+		}
+		int [] rows = new int [numOfRows];
+		numOfRows = 0;
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				rows[numOfRows++] = zipList.getRow(i);
+			}
+		}
+
+		entries = new long [rows.length];
+		if (isNumeric()) {
+			distinctStrings = null;
+			for (int i = 0; i < rows.length; i++) {
+				entries[i] = (getCount(rows[i]) << ROW_BITS) | rows[i];
+			}
+		}
+		else {
+			String [] strings = new String [rows.length];
+			for (int i = 0; i < rows.length; i++) {
+				strings[i] = getString(rows[i]);
+			}
+			distinctStrings = distinct(strings);
+			for (int i = 0; i < rows.length; i++) {
+				entries[i] = ((long) Arrays.binarySearch(distinctStrings, strings[i]) << ROW_BITS) | rows[i];
+			}
+		}
+		Arrays.parallelSort(entries);
+	}
+
+	/*
+	 * Returns the sorted distinct values of an array of strings.
+	 */
+	private static String [] distinct ( String [] strings ) {
+		String [] sorted = strings.clone();
+		Arrays.parallelSort(sorted);
+		int numOfDistinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (numOfDistinct == 0 || !sorted[i].equals(sorted[numOfDistinct - 1])) {
+				sorted[numOfDistinct++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, numOfDistinct);
+	}
+
+	/*
+	 * Determines if the keys of this index are counts rather than strings.
+	 */
+	private boolean isNumeric ( ) {
+		return order == SortOrder.CYCLISTS || order == SortOrder.PERSONS;
+	}
+
+	/*
+	 * Returns the count of a row in a numeric order, which is below 2^32.
+	 */
+	private long getCount ( int row ) {
+		if (order == SortOrder.CYCLISTS)
+			return (long) store.getCount(CollisionStore.CYCLISTS_INJURED, row)
+					+ store.getCount(CollisionStore.CYCLISTS_KILLED, row);
+		return (long) store.getCount(CollisionStore.PERSONS_INJURED, row)
+				+ store.getCount(CollisionStore.PERSONS_KILLED, row);
+	}
+
+	/*
+	 * Returns the string of a row in a string order.
+	 */
+	private String getString ( int row ) {
+		return (order == SortOrder.ZIP) ? store.getZip(row) : store.getUniqueKey(row);
+	}
+
+	/**
+	 * Returns the sort order of this index.
+	 * @return the sort order
+	 */
+	public SortOrder getSortOrder ( ) {
+		return order;
+	}
+
+	/**
+	 * Returns the number of collisions in this index.
+	 * @return the number of collisions
+	 */
+	public int size ( ) {
+		return entries.length;
+	}
+
+	/**
+	 * Returns all collisions of this index in ascending order.
+	 * @return an unmodifiable list of the collisions
+	 */
+	public List<Collision> getAll ( ) {
+		return view(0, entries.length);
+	}
+
+	/**
+	 * Returns the collisions whose count lies within a given range, in ascending
+	 * order. Valid for the CYCLISTS and PERSONS orders.
+	 * @param from the smallest count (inclusive)
+	 * @param to the largest count (inclusive)
+	 * @return an unmodifiable list of the collisions in the range
+	 * @throws IllegalArgumentException if this index is not ordered by a count
+	 */
+	public List<Collision> getRange ( long from, long to ) throws IllegalArgumentException {
+		if (!isNumeric())
+			throw new IllegalArgumentException ("Error: the index is ordered by " + order + ". ");
+		from = Math.max(from, 0);
+		if (from > to || from > MAX_KEY)
+			return view(0, 0);
+		//(to + 1) << ROW_BITS would overflow for the largest keys
+		return view(lowerBound(from), (to >= MAX_KEY) ? entries.length : lowerBound(to + 1));
+	}
+
+	/**
+	 * Returns the collisions whose string key lies within a given range, in
+	 * ascending order. Valid for the ZIP and UNIQUEKEY orders; strings are compared
+	 * with String.compareTo.
+	 * @param from the smallest key (inclusive)
+	 * @param to the largest key (inclusive)
+	 * @return an unmodifiable list of the collisions in the range
+	 * @throws IllegalArgumentException if this index is not ordered by a string
+	 */
+	public List<Collision> getRange ( String from, String to ) throws IllegalArgumentException {
+		if (isNumeric())
+			throw new IllegalArgumentException ("Error: the index is ordered by " + order + ". ");
+		if (from.compareTo(to) > 0)
+			return view(0, 0);
+		//positions of the first distinct string >= from and the first one > to
+		int first = Arrays.binarySearch(distinctStrings, from);
+		first = (first >= 0) ? first : -first - 1;
+		int last = Arrays.binarySearch(distinctStrings, to);
+		last = (last >= 0) ? last + 1 : -last - 1;
+		return view(lowerBound(first), lowerBound(last));
+	}
+
+	/**
+	 * Returns the n collisions with the largest keys, from the largest key down.
+	 * Collisions with equal keys are listed in the order in which they were added.
+	 * @param n the number of collisions
+	 * @return a list of min(n, size()) collisions
+	 */
+	public List<Collision> getTop ( int n ) {
+		ArrayList<Collision> result = new ArrayList<Collision>(Math.max(0, Math.min(n, entries.length)));
+		int end = entries.length;
+		while (result.size() < n && end > 0) {
+			//all entries with the key of the entry before end
+			int start = lowerBound(entries[end - 1] >>> ROW_BITS);
+			for (int i = start; i < end && result.size() < n; i++) {
+				result.add(new CollisionCursor(store, (int) entries[i] & Integer.MAX_VALUE));
+			}
+			end = start;
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the position of the first entry whose key is at least key.
+	 */
+	private int lowerBound ( long key ) {
+		long value = key << ROW_BITS;
+		int low = 0;
+		int high = entries.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (entries[mid] < value)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/*
+	 * Returns an unmodifiable list of the collisions of the entries [from, to).
+	 */
+	private List<Collision> view ( int from, int to ) {
+		return new AbstractList<Collision>() {
+			@Override
+			public Collision get ( int i ) {
+				if (i < 0 || i >= to - from)
+					throw new IndexOutOfBoundsException("Index: " + i + ", size: " + (to - from));
+				return new CollisionCursor(store, (int) entries[from + i] & Integer.MAX_VALUE);
+			}
+
+			@Override
+			public int size ( ) {
+				return to - from;
+			}
+		};
+	}
+}
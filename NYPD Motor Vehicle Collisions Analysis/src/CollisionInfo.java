@@ -1,9 +1,16 @@
 
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
 
 /**
  * This is a program that computes some information about the data posted by
@@ -18,14 +25,85 @@ public class CollisionInfo {
 	 * The main method that starts the program. It is responsible for opening and reading the
 	 * input file, creating the CollisionList object and using it compute the 
 	 * predetermined results. 
-	 * @param args the array should contain the name of the input file as the first element, 
+	 * @param args the array should contain the name of the input file as the first element; 
+	 * it can be followed by the options 
+	 *     -benchmark [rowsPerSample]  reports the cost of ingesting each row as the 
+	 *                                 number of stored rows grows 
+	 *     -threads numOfThreads       parses the file on multiple threads (the 
+	 *                                 -benchmark option is ignored in this case) 
+	 *     -follow [seconds]           keeps running, adds records as they are appended 
+	 *                                 to the file (the first element can also name a 
+	 *                                 directory of rotated files) and prints the 
+	 *                                 results every given number of seconds 
+	 *     -checkpoint fileName        saves the position in the followed file, so a 
+	 *                                 restarted program does not read it again 
+	 *     -snapshot fileName          loads the collisions from a binary snapshot 
+	 *                                 instead of parsing the input file, if the 
+	 *                                 snapshot is newer than the file; otherwise the 
+	 *                                 file is parsed and the snapshot is written (in 
+	 *                                 follow mode, the snapshot is saved together 
+	 *                                 with the checkpoint) 
+	 *     -from date -to date         restricts the results to collisions between two 
+	 *                                 dates in the MM/DD/YYYY format (inclusive) 
+	 *     -hours first-last           restricts the results to collisions between two 
+	 *                                 hours of the day (inclusive), for example 22-3 
+	 *     -borough name               restricts the results to collisions in a borough 
+	 *     -vehicles type,type,...     lists the percentage of collisions for the given 
+	 *                                 vehicle types instead of the default ones, or for 
+	 *                                 all vehicle types if the value is "all"; types 
+	 *                                 listed by VehicleType are printed under their 
+	 *                                 names, whatever their case 
+	 *     -trends                     also prints collisions by day of the week and 
+	 *                                 hour, and by month 
+	 *     -hotspots [k]               also prints the k cells of a grid of 100 m 
+	 *                                 cells with the largest number of collisions, 
+	 *                                 using the latitude and longitude entries 
+	 *     -summary fileName           writes a summary of the collisions (or of the 
+	 *                                 collisions selected by the query options) that 
+	 *                                 can be merged with the summaries of other parts 
+	 *                                 of the data by CollisionCoordinator 
+	 *     -approximate [numOfCounters] computes approximate rankings without keeping 
+	 *                                 the collisions in memory, counting the given 
+	 *                                 number of zip codes per ranking (the -threads, 
+	 *                                 -follow, -snapshot, -metrics, -hotspots and 
+	 *                                 query options are ignored in this case) 
+	 *     -metrics [fileName]         counts the lines read and rejected (by reason), 
+	 *                                 the bytes read and the parse and insert times, 
+	 *                                 publishes them over JMX and writes them as JSON 
+	 *                                 to the file (or prints them) at the end, or 
+	 *                                 after every result in follow mode 
+	 *     -offheap [directory]        keeps the collisions outside the heap, in a 
+	 *                                 memory-mapped scratch file in the directory (the 
+	 *                                 temporary directory by default), so that the 
+	 *                                 heap holds only a few bytes per collision 
+	 *     -parallel                   computes the results of a query (-from, -to, 
+	 *                                 -hours or -borough) on all processors, with the 
+	 *                                 selected collisions split across a fork-join 
+	 *                                 pool; without a query the results come from the 
+	 *                                 running totals and nothing is scanned 
+	 *     -format text|csv|json       writes the results as aligned text (the 
+	 *                                 default), as CSV sections with header lines 
+	 *                                 separated by blank lines, or as one JSON object 
+	 *                                 keyed by result (one per result in follow mode); 
+	 *                                 all other output then goes to the error stream 
+	 *                                 (ignored with -approximate) 
+	 *     -dedup [exact|bloom [numOfKeys]] skips collisions whose unique key has been 
+	 *                                 read before, so overlapping files are not 
+	 *                                 counted twice; every key is kept in a set (the 
+	 *                                 default), or only a Bloom filter sized for the 
+	 *                                 given number of keys is kept (about 10 bits per 
+	 *                                 key) and the keys it has possibly seen are 
+	 *                                 looked up in the collisions stored for the same 
+	 *                                 zip code (ignored with -approximate) 
 	 * all other elements are ignored 
-	 * @throws FileNotFoundException if the input file is corrupted or vanishes during the 
+	 * @throws IOException if the input file is corrupted or vanishes during the 
 	 * execution of this program 
 	 */
-	public static void main(String[] args) throws FileNotFoundException {
+	public static void main(String[] args) throws IOException {
 		
-		final int NUM_OF_ENTRIES = 21; 
+		final int DEFAULT_ROWS_PER_SAMPLE = 100000;
+		final int DEFAULT_FOLLOW_INTERVAL = 60;
+		final int DEFAULT_NUM_OF_HOTSPOTS = 10;
 		long startTimer, elapsedTime1, elapsedTime2;
 		
 		
@@ -43,57 +121,596 @@ public class CollisionInfo {
 			System.exit(0);
 		}
 		
-		Scanner fin = new Scanner(fileName);
+		//benchmark mode: report the per-row ingest cost every rowsPerSample rows 
+		int rowsPerSample = 0; 
+		//parallel mode: parse the file on numOfThreads threads
+		int numOfThreads = 1;
+		//follow mode: print the results every followInterval seconds
+		int followInterval = 0;
+		File checkpoint = null;
+		//snapshot mode: load the parsed collisions from a binary snapshot 
+		File snapshot = null;
+		//query mode: compute the results over a subset of the collisions 
+		String fromDate = null, toDate = null, hours = null, borough = null;
+		//vehicle types listed in the results, null for the default types 
+		String vehicles = null;
+		//trend mode: also print the weekday-hour and monthly results 
+		boolean trends = false;
+		//hotspot mode: number of densest grid cells printed 
+		int numOfHotspots = 0;
+		//summary file written in batch mode 
+		File summary = null;
+		//approximate mode: number of counters of every ranking 
+		int numOfCounters = 0;
+		//metrics mode: ingest metrics and the file to which they are written 
+		IngestMetrics metrics = null;
+		File metricsFile = null;
+		//off-heap mode: directory of the scratch files, null to keep the collisions on the heap 
+		File offHeapDirectory = null;
+		//parallel mode: pool on which the results are computed, null for the main thread 
+		ForkJoinPool pool = null;
+		//format in which the results are written 
+		ReportFormat format = ReportFormat.TEXT;
+		//dedup mode: unique keys of the collisions read, null to keep duplicates 
+		CollisionDeduplicator deduplicator = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-benchmark")) {
+				rowsPerSample = DEFAULT_ROWS_PER_SAMPLE;
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					rowsPerSample = parsePositiveInt(args[++i], "number of rows per sample");
+				}
+			}
+			else if (args[i].equals("-threads") && i + 1 < args.length) {
+				numOfThreads = parsePositiveInt(args[++i], "number of threads");
+			}
+			else if (args[i].equals("-follow")) {
+				followInterval = DEFAULT_FOLLOW_INTERVAL;
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					followInterval = parsePositiveInt(args[++i], "number of seconds");
+				}
+			}
+			else if (args[i].equals("-checkpoint") && i + 1 < args.length) {
+				checkpoint = new File(args[++i]);
+			}
+			else if (args[i].equals("-snapshot") && i + 1 < args.length) {
+				snapshot = new File(args[++i]);
+			}
+			else if (args[i].equals("-from") && i + 1 < args.length) {
+				fromDate = args[++i];
+			}
+			else if (args[i].equals("-to") && i + 1 < args.length) {
+				toDate = args[++i];
+			}
+			else if (args[i].equals("-hours") && i + 1 < args.length) {
+				hours = args[++i];
+			}
+			else if (args[i].equals("-borough") && i + 1 < args.length) {
+				borough = args[++i];
+			}
+			else if (args[i].equals("-vehicles") && i + 1 < args.length) {
+				vehicles = args[++i];
+			}
+			else if (args[i].equals("-trends")) {
+				trends = true;
+			}
+			else if (args[i].equals("-hotspots")) {
+				numOfHotspots = DEFAULT_NUM_OF_HOTSPOTS;
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					numOfHotspots = parsePositiveInt(args[++i], "number of hotspots");
+				}
+			}
+			else if (args[i].equals("-summary") && i + 1 < args.length) {
+				summary = new File(args[++i]);
+			}
+			else if (args[i].equals("-approximate")) {
+				numOfCounters = ApproximateCollisionList.DEFAULT_CAPACITY;
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					numOfCounters = parsePositiveInt(args[++i], "number of counters");
+				}
+			}
+			else if (args[i].equals("-metrics")) {
+				metrics = new IngestMetrics();
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					metricsFile = new File(args[++i]);
+				}
+			}
+			else if (args[i].equals("-format") && i + 1 < args.length) {
+				format = parseFormat(args[++i]);
+			}
+			else if (args[i].equals("-parallel")) {
+				pool = ForkJoinPool.commonPool();
+			}
+			else if (args[i].equals("-dedup")) {
+				deduplicator = new CollisionDeduplicator();
+				if (i + 1 < args.length && args[i+1].equals("exact")) {
+					i++;
+				}
+				else if (i + 1 < args.length && args[i+1].equals("bloom")) {
+					i++;
+					long numOfKeys = CollisionDeduplicator.DEFAULT_EXPECTED_NUM_OF_KEYS;
+					if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+						numOfKeys = parsePositiveLong(args[++i], "number of keys");
+					}
+					deduplicator = CollisionDeduplicator.withBloomFilter(numOfKeys, 
+							CollisionDeduplicator.DEFAULT_FALSE_POSITIVE_RATE);
+				}
+			}
+			else if (args[i].equals("-offheap")) {
+				offHeapDirectory = new File(System.getProperty("java.io.tmpdir"));
+				if (i + 1 < args.length && !args[i+1].startsWith("-")) {
+					offHeapDirectory = new File(args[++i]);
+				}
+			}
+		}
+		CollisionQuery query = createQuery(fromDate, toDate, hours, borough);
 		
-		CollisionList list = new CollisionList();
+		if (numOfCounters > 0) {
+			approximate(fileName, numOfCounters, vehicles, trends);
+			return;
+		}
 		
-		while ( fin.hasNextLine() ) {
-
-			String textLine = fin.nextLine(); 
-			ArrayList <String> words = split (textLine ) ;
-
-			if (words.size() != NUM_OF_ENTRIES) {
-				continue; //skip lines that are not complete
+		if (metrics != null) {
+			try {
+				metrics.register();
+			} catch (JMException ex) {
+				System.err.println("Cannot publish the metrics over JMX: " + ex.getMessage());
+			}
+		}
+		
+		if (followInterval > 0) {
+			follow(fileName, checkpoint, snapshot, followInterval, query, vehicles, trends, 
+					numOfHotspots, metrics, metricsFile, offHeapDirectory, pool, format, deduplicator);
+			return;
+		}
+		
+		CollisionList list = null;
+		if (snapshot != null && snapshot.lastModified() >= fileName.lastModified()) {
+			list = loadSnapshot(snapshot, offHeapDirectory);
+			if (list != null) {
+				//collisions added later are checked against the loaded ones 
+				list.setDeduplicator(deduplicator);
+			}
+		}
+		if (list == null) {
+			CollisionReader reader = new CollisionReader(fileName, numOfThreads);
+			reader.setBenchmark(rowsPerSample, System.out);
+			reader.setMetrics(metrics);
+			reader.setParseLocations(numOfHotspots > 0);
+			if (offHeapDirectory != null) {
+				reader.setOffHeap(offHeapDirectory);
+			}
+			reader.setDeduplicator(deduplicator);
+			list = reader.read();
+			if (snapshot != null) {
+				list.writeSnapshot(snapshot);
 			}
-			list.add(words);
 		}
 		elapsedTime1 = System.nanoTime() - startTimer; 
 		
+		//in the CSV and JSON formats, only the results are printed to the output stream 
+		PrintStream info = (format == ReportFormat.TEXT) ? System.out : System.err;
 		startTimer = System.nanoTime();
-		//task 1 
-		System.out.println("ZIP codes with the largest number of collisions:");
-		System.out.println( list.getZipCodesWithMostCollisions( 3 ) );
+		ReportDocument document = new ReportDocument(format, System.out);
+		printReports(list, query, vehicles, trends, pool, document, info);
+		if (numOfHotspots > 0) {
+			printHotspots(list, query, numOfHotspots, document);
+		}
+		document.close();
+
+		elapsedTime2 =  System.nanoTime() - startTimer; 
 		
-		//task2
-		System.out.println("ZIP codes with the fewest number of collisions:");
-		System.out.println( list.getZipCodesWithLeastCollisions( 3 ) ); 
+		if (summary != null) {
+			((query != null) ? list.query(query) : list).getSummary().write(summary);
+		}
 
-		//task 3
-		System.out.println("ZIP codes with the most injuries and fatalities (combined):");
-		System.out.println( list.getZipCodesWithMostPersonIncidents( 3 ) );
+		info.println("\n\n============================================\n");
+		info.printf("Reading and storing data: %,15d nanoseconds\n", elapsedTime1);
+		info.printf("Computation of results  : %,15d nanoseconds\n", elapsedTime2);
+		printRejected(info, list.getNumOfRejectedRecords(), list.getAggregates());
+		if (deduplicator != null) {
+			printDuplicates(info, list);
+		}
 		
-		//task 4
-		System.out.println("ZIP codes with the most cyclist injuries and fatalities:");
-		System.out.println( list.getZipCodesWithMostCyclistIncidents( 3 ) );
+		if (metrics != null) {
+			metrics.setNumOfZipCodes(list.getNumOfZipCodes());
+			printMetrics(info, metrics, metricsFile);
+		}
+		list.close();
+	}
+	
+	/*
+	 * Reads the file into an ApproximateCollisionList object and prints the 
+	 * approximate rankings and the exact totals. 
+	 */
+	private static void approximate (File fileName, int numOfCounters, String vehicles, 
+			boolean trends) throws IOException {
+		long startTimer = System.nanoTime();
+		ApproximateCollisionList list = new ApproximateCollisionList(numOfCounters, 
+				ApproximateCollisionList.DEFAULT_EPSILON, ApproximateCollisionList.DEFAULT_DELTA);
+		new CollisionReader(fileName, 1).read(list);
+		long elapsedTime1 = System.nanoTime() - startTimer;
 		
-		//task5:
+		startTimer = System.nanoTime();
+		System.out.println("ZIP codes with the largest number of collisions (approximate):");
+		System.out.println(list.getZipCodesWithMostCollisions(3));
+		System.out.println("ZIP codes with the most injuries and fatalities (approximate):");
+		System.out.println(list.getZipCodesWithMostPersonIncidents(3));
+		System.out.println("ZIP codes with the most cyclist injuries and fatalities (approximate):");
+		System.out.println(list.getZipCodesWithMostCyclistIncidents(3));
+		System.out.println("Accuracy of the rankings:");
+		System.out.println(list.getErrorBounds());
 		System.out.println("Percentage of collisions involving certain vehicle type:");
-		System.out.println(list.getVehicleTypeStats());
-		
-		//task6:
+		System.out.println(list.getReport(createVehicleTypeReport(vehicles)));
 		System.out.println("Fraction of collisions by hour:");
 		System.out.println(list.getHourlyStats());
-
-		elapsedTime2 =  System.nanoTime() - startTimer; 
-
+		if (trends) {
+			System.out.println("Number of collisions by day of the week and hour:");
+			System.out.println(list.getReport(new WeekdayHourReport()));
+			System.out.println("Number of collisions by month:");
+			System.out.println(list.getReport(new MonthlyReport()));
+		}
+		long elapsedTime2 = System.nanoTime() - startTimer;
+		
 		System.out.println("\n\n============================================\n");
-		System.out.printf("Reading and storing data: %,15d nanoseconds\n", elapsedTime1);
-		System.out.printf("Computation of results  : %,15d nanoseconds\n", elapsedTime2);
-				
-		fin.close();
+		System.out.printf("Reading and counting data: %,15d nanoseconds\n", elapsedTime1);
+		System.out.printf("Computation of results   : %,15d nanoseconds\n", elapsedTime2);
+		printRejected(System.out, list.getNumOfRejectedRecords(), list.getAggregates());
+	}
+	
+	/*
+	 * Follows a growing file (or a directory of rotated files), adding new records to 
+	 * the list as they arrive and printing the results every interval seconds. Runs 
+	 * until the program is terminated. 
+	 * Without a snapshot, the checkpoint is saved after every poll and a restarted 
+	 * program reports only the records that follow the checkpoint. With a snapshot, 
+	 * the snapshot and then the checkpoint are saved after every report, and a 
+	 * restarted program continues from the snapshot. If the two do not match (the 
+	 * program stopped between saving them), all files are read again. 
+	 */
+	private static void follow (File source, File checkpoint, File snapshot, int interval, 
+			CollisionQuery query, String vehicles, boolean trends, int numOfHotspots, 
+			IngestMetrics metrics, File metricsFile, File offHeapDirectory, ForkJoinPool pool, 
+			ReportFormat format, CollisionDeduplicator deduplicator) throws IOException {
+		final long POLL_DELAY = 1000; //milliseconds between checks for new records
+		//in the CSV and JSON formats, only the results are printed to the output stream 
+		PrintStream info = (format == ReportFormat.TEXT) ? System.out : System.err;
+		
+		CollisionFollower follower = new CollisionFollower(source, checkpoint);
+		CollisionList list = null;
+		if (snapshot != null && follower.getNumOfCollisions() > 0) {
+			list = snapshot.exists() ? loadSnapshot(snapshot, offHeapDirectory) : null;
+			if (list == null || list.getAggregates().getTotalNumOfCollisions() 
+					!= follower.getNumOfCollisions()) {
+				System.err.println("Snapshot does not match the checkpoint, reading all files again.");
+				if (list != null) {
+					list.close();
+				}
+				checkpoint.delete();
+				follower = new CollisionFollower(source, checkpoint);
+				list = newList(offHeapDirectory);
+			}
+		}
+		else {
+			list = newList(offHeapDirectory);
+		}
+		list.setDeduplicator(deduplicator);
+		follower.setMetrics(metrics);
+		follower.setParseLocations(numOfHotspots > 0);
+		long nextReport = System.currentTimeMillis();
+		long numOfSavedCollisions = follower.getNumOfCollisions();
+		
+		while (true) {
+			int numOfLines = follower.poll(list);
+			if (snapshot == null && numOfLines > 0) {
+				follower.saveCheckpoint();
+			}
+			
+			long now = System.currentTimeMillis();
+			if (now >= nextReport) {
+				if (snapshot != null && follower.getNumOfCollisions() != numOfSavedCollisions) {
+					list.writeSnapshot(snapshot);
+					follower.saveCheckpoint();
+					numOfSavedCollisions = follower.getNumOfCollisions();
+				}
+				info.printf("\n============================================\n");
+				info.printf("%tF %<tT: %,d collisions, file %s at byte %,d\n\n", 
+						now, list.getAggregates().getTotalNumOfCollisions(), 
+						follower.getCurrentFile(), follower.getPosition());
+				printRejected(info, list.getNumOfRejectedRecords(), list.getAggregates());
+				if (deduplicator != null) {
+					printDuplicates(info, list);
+				}
+				info.println();
+				ReportDocument document = new ReportDocument(format, System.out);
+				printReports(list, query, vehicles, trends, pool, document, info);
+				if (numOfHotspots > 0) {
+					printHotspots(list, query, numOfHotspots, document);
+				}
+				document.close();
+				System.out.flush();
+				if (metrics != null) {
+					printMetrics(info, metrics, metricsFile);
+				}
+				nextReport = now + 1000L * interval;
+			}
+			
+			try {
+				Thread.sleep(POLL_DELAY);
+			} catch (InterruptedException ex) {
+				list.close();
+				return;
+			}
+		}
+	}
+	
+	/*
+	 * Writes the ingest metrics as JSON to a file, replacing it only when the new 
+	 * content is complete, or prints them to info if the file is null. 
+	 */
+	private static void printMetrics (PrintStream info, IngestMetrics metrics, File metricsFile) 
+			throws IOException {
+		if (metricsFile == null) {
+			info.println("\nIngest metrics:");
+			info.println(metrics.toJson());
+			return;
+		}
+		File tmp = new File(metricsFile.getPath() + ".tmp");
+		try (PrintWriter out = new PrintWriter(tmp, "UTF-8")) {
+			out.println(metrics.toJson());
+		}
+		Files.move(tmp.toPath(), metricsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/*
+	 * Creates an empty CollisionList object, outside the heap if a directory for the 
+	 * scratch file is given. 
+	 */
+	private static CollisionList newList (File offHeapDirectory) throws IOException {
+		return (offHeapDirectory == null) ? new CollisionList() : CollisionList.offHeap(offHeapDirectory);
+	}
+	
+	/*
+	 * Loads a snapshot written by CollisionList.writeSnapshot, outside the heap if a 
+	 * directory for the scratch file is given. Returns null if the snapshot cannot be 
+	 * used, so that the caller parses the input again. 
+	 */
+	private static CollisionList loadSnapshot (File snapshot, File offHeapDirectory) {
+		try {
+			return (offHeapDirectory == null) ? CollisionList.readSnapshot(snapshot) 
+					: CollisionList.readSnapshot(snapshot, offHeapDirectory);
+		} catch (IOException ex) {
+			System.err.printf("Cannot load snapshot %s: %s\n", snapshot, ex.getMessage());
+			return null;
+		}
+	}
+	
+	/*
+	 * Creates the query described by the command line options, or returns null if 
+	 * no option restricts the collisions. Exits the program when an option is not 
+	 * valid. 
+	 */
+	private static CollisionQuery createQuery (String fromDate, String toDate, String hours, 
+			String borough) {
+		if (fromDate == null && toDate == null && hours == null && borough == null) 
+			return null;
+		CollisionQuery query = new CollisionQuery();
+		try {
+			if (fromDate != null || toDate != null) {
+				query.setDateRange( (fromDate == null) ? "01/01/" + CollisionStore.FIRST_YEAR : fromDate, 
+						(toDate == null) ? "12/31/" + CollisionStore.LAST_YEAR : toDate );
+			}
+			if (hours != null) {
+				String [] range = hours.split("-");
+				if (range.length != 2) 
+					throw new IllegalArgumentException("Error: invalid hours " + hours + ". ");
+				query.setHourWindow(Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim()));
+			}
+			if (borough != null) {
+				query.setBorough(borough);
+			}
+		} catch (IllegalArgumentException ex) { //includes NumberFormatException
+			System.err.println("Invalid query: " + ex.getMessage());
+			System.exit(0);
+		}
+		return query;
+	}
+	
+	/*
+	 * Computes the six predetermined results in a single pass over the collisions 
+	 * (or over the collisions that match query, if it is not null) and prints them. 
+	 * The vehicle types are listed as given by the -vehicles option, and the trends 
+	 * are added if requested by the -trends option. The scan of the collisions that 
+	 * match query is split across pool unless it is null, the results are added to 
+	 * document and the query is described on info. 
+	 */
+	private static void printReports (CollisionList list, CollisionQuery query, String vehicles, 
+			boolean trends, ForkJoinPool pool, ReportDocument document, PrintStream info) 
+			throws IOException {
+		if (query != null) {
+			list = list.query(query);
+			info.printf("Collisions %s:\n\n", query);
+		}
+		printReports(list.newReportExecutor().setParallel(pool), vehicles, trends, document);
+	}
+	
+	/**
+	 * Computes the six predetermined results (and the trends, if requested) with a 
+	 * given ReportExecutor object and adds them to a document. 
+	 * @param executor the executor over the collisions or their summary 
+	 * @param vehicles the vehicle types listed in the results, as given by the 
+	 * -vehicles option, or null for the default types 
+	 * @param trends true if the weekday-hour and monthly results are printed 
+	 * @param document the document to which the results are added, in the format 
+	 * given by the -format option 
+	 * @throws IOException if the results cannot be written 
+	 */
+	static void printReports (ReportExecutor executor, String vehicles, boolean trends, 
+			ReportDocument document) throws IOException {
+		//all six tasks are computed in a single pass over the collisions
+		CollisionReport [] tasks = {
+				ZipCodeRankingReport.mostCollisions( 3 ),
+				ZipCodeRankingReport.leastCollisions( 3 ),
+				ZipCodeRankingReport.mostPersonIncidents( 3 ),
+				ZipCodeRankingReport.mostCyclistIncidents( 3 ),
+				createVehicleTypeReport(vehicles),
+				new HourlyReport() };
+		String [] titles = {
+				"ZIP codes with the largest number of collisions:",
+				"ZIP codes with the fewest number of collisions:",
+				"ZIP codes with the most injuries and fatalities (combined):",
+				"ZIP codes with the most cyclist injuries and fatalities:",
+				"Percentage of collisions involving certain vehicle type:",
+				"Fraction of collisions by hour:" };
+		String [] names = { "mostCollisions", "leastCollisions", "mostPersonIncidents", 
+				"mostCyclistIncidents", "vehicleTypes", "hourly" };
 		
+		if (trends) {
+			tasks = Arrays.copyOf(tasks, tasks.length + 2);
+			tasks[tasks.length - 2] = new WeekdayHourReport();
+			tasks[tasks.length - 1] = new MonthlyReport();
+			titles = Arrays.copyOf(titles, titles.length + 2);
+			titles[titles.length - 2] = "Number of collisions by day of the week and hour:";
+			titles[titles.length - 1] = "Number of collisions by month:";
+			names = Arrays.copyOf(names, names.length + 2);
+			names[names.length - 2] = "weekdayHour";
+			names[names.length - 1] = "monthly";
+		}
 		
+		for (CollisionReport task : tasks) {
+			executor.register(task);
+		}
+		executor.run();
 		
+		for (int i = 0; i < tasks.length; i++) {
+			document.add(names[i], titles[i], tasks[i]::render);
+		}
+	}
+	
+	/**
+	 * Returns the format named by the -format option. Exits the program when the 
+	 * name is not valid. 
+	 * @param name the name of the format, in any case 
+	 * @return the format 
+	 */
+	static ReportFormat parseFormat (String name) {
+		try {
+			return ReportFormat.valueOf(name.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException ex) {
+			System.err.printf("Invalid format: %s (expected text, csv or json)\n", name);
+			System.exit(0);
+			return null;
+		}
+	}
+	
+	/*
+	 * Adds the k cells of the default grid with the largest number of collisions 
+	 * (or of collisions that match query, if it is not null) to a document. 
+	 */
+	private static void printHotspots (CollisionList list, CollisionQuery query, int k, 
+			ReportDocument document) throws IOException {
+		if (query != null) {
+			list = list.query(query);
+		}
+		CollisionGridIndex grid = list.getGridIndex(CollisionGridIndex.DEFAULT_CELL_SIZE);
+		ArrayList<CollisionGridIndex.Cell> cells = new ArrayList<CollisionGridIndex.Cell> (grid.getDensestCells(k));
+		String title = String.format("Grid cells (%.0f m) with the largest number of collisions:", 
+				grid.getCellSize());
+		document.add("hotspots", title, (format, out) -> {
+			if (format == ReportFormat.TEXT) {
+				for (CollisionGridIndex.Cell cell : cells) {
+					out.append(String.format("    %10.6f, %11.6f  %5d collisions\n", cell.getLatitude(), 
+							cell.getLongitude(), cell.getNumOfCollisions()));
+				}
+				return;
+			}
+			ReportTableWriter table = new ReportTableWriter(format, out, "latitude", "longitude", 
+					"collisions");
+			for (CollisionGridIndex.Cell cell : cells) {
+				table.addRow(cell.getLatitude(), cell.getLongitude(), cell.getNumOfCollisions());
+			}
+			table.close();
+		});
+	}
+	
+	/**
+	 * Prints the number of records that were rejected and the number of collisions 
+	 * with incorrectly formed dates and times. 
+	 * @param out the stream to which the numbers are printed 
+	 * @param numOfRejectedRecords the number of rejected records 
+	 * @param aggregates the running totals of the collisions 
+	 */
+	static void printRejected (PrintStream out, int numOfRejectedRecords, CollisionAggregates aggregates) {
+		out.printf("Rejected records: %,d, invalid dates: %,d, invalid times: %,d\n", 
+				numOfRejectedRecords, aggregates.getNumOfInvalidDates(), 
+				aggregates.getNumOfInvalidTimes());
+	}
+	
+	/*
+	 * Prints the number of collisions that were skipped because their unique key had 
+	 * been read before. 
+	 */
+	private static void printDuplicates (PrintStream out, CollisionList list) {
+		out.printf("Duplicate records skipped: %,d\n", list.getNumOfDuplicateRecords());
+	}
+	
+	/*
+	 * Creates the vehicle type report for the value of the -vehicles option. Known 
+	 * vehicle types are replaced by their names, other codes are kept as given. 
+	 */
+	private static VehicleTypeReport createVehicleTypeReport (String vehicles) {
+		if (vehicles == null) 
+			return new VehicleTypeReport();
+		if (vehicles.equalsIgnoreCase("all")) 
+			return VehicleTypeReport.allTypes();
+		String [] types = vehicles.split(",");
+		for (int i = 0; i < types.length; i++) {
+			VehicleType type = VehicleType.fromCode(types[i]);
+			types[i] = (type != null) ? type.getName() : types[i].trim();
+		}
+		return new VehicleTypeReport(types);
+	}
+	
+	/**
+	 * Parses a command line value that has to be a positive integer. Exits the 
+	 * program when the value is not valid. 
+	 * @param value the command line value 
+	 * @param description what the value is, for the error message 
+	 * @return the positive integer 
+	 */
+	static int parsePositiveInt (String value, String description) {
+		int result = 0;
+		try {
+			result = Integer.parseInt(value);
+		} catch (NumberFormatException ex) {
+			//handled below
+		}
+		if (result < 1) {
+			System.err.printf("Invalid %s: %s\n", description, value);
+			System.exit(0);
+		}
+		return result;
+	}
+	
+	/**
+	 * Parses a command line value that has to be a positive long integer. Exits the 
+	 * program when the value is not valid. 
+	 * @param value the command line value 
+	 * @param description what the value is, for the error message 
+	 * @return the positive long integer 
+	 */
+	static long parsePositiveLong (String value, String description) {
+		long result = 0;
+		try {
+			result = Long.parseLong(value);
+		} catch (NumberFormatException ex) {
+			//handled below
+		}
+		if (result < 1) {
+			System.err.printf("Invalid %s: %s\n", description, value);
+			System.exit(0);
+		}
+		return result;
 	}
 
 
@@ -1,28 +1,104 @@
 
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.TreeSet;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * CollisionList class stores a list of collisions. The organization of this list is
  * based on the zip code associated with a given collision. This organization simplifies 
  * processing of collisions that occur within a particular zip code. 
+ * The collisions are kept in a single columnar CollisionStore object and every 
+ * ZipCodeList object refers to the rows of its zip code. 
+ * The results of the report methods are cached until added collisions change them 
+ * (see getReportCache()). 
  * @author Joanna K. and Dana Kirsanov
  */
 
-public class CollisionList {
+public class CollisionList implements Closeable {
 
 	private ArrayList<ZipCodeList> list;
 	
+	//columnar storage of the collisions of all zip code lists
+	private CollisionStore store;
+	
+	//index of the ZipCodeList objects stored in list keyed by their zip code;
+	//it lets add() find the list for a given zip code in constant time 
+	private HashMap<String, ZipCodeList> zipIndex;
+	
+	//running totals that are updated as collisions are added (computed on first use 
+	//for the results of query()) 
+	private CollisionAggregates aggregates;
+	
+	//number of records that could not be added (see getNumOfRejectedRecords) 
+	private int numOfRejectedRecords;
+	
+	//unique keys of the collisions added so far, or null if duplicates are added 
+	private CollisionDeduplicator deduplicator;
+	
+	//number of collisions skipped as duplicates (see getNumOfDuplicateRecords) 
+	private int numOfDuplicateRecords;
+	
+	//rows partitioned by borough and sorted by date; built by the first query and 
+	//discarded whenever collisions are added 
+	private CollisionDateIndex dateIndex;
+	
+	//ordered views built by getIndex(), discarded whenever collisions are added 
+	private EnumMap<SortOrder, CollisionIndex> indexes;
+	
+	//spatial index built by getGridIndex(), discarded whenever collisions are added 
+	private CollisionGridIndex gridIndex;
+	
+	//results of the report methods, dropped when added collisions change them 
+	private ReportCache reportCache;
+	
+	//true for the results of query(), which share the store of another list 
+	private boolean readOnly;
+	
 	/**
 	 * Creates an empty CollisionList object. 
 	 */
 	public CollisionList() {
+		this(new CollisionStore());
+	}
+	
+	/*
+	 * Creates an empty CollisionList object whose collisions are kept in a given store. 
+	 */
+	private CollisionList ( CollisionStore store ) {
 		list = new ArrayList<ZipCodeList> ();
+		this.store = store;
+		zipIndex = new HashMap<String, ZipCodeList> ();
+		aggregates = new CollisionAggregates();
+		indexes = new EnumMap<SortOrder, CollisionIndex> (SortOrder.class);
+		reportCache = new ReportCache(ReportCache.DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates an empty CollisionList object that keeps its collisions outside the 
+	 * heap, in a memory-mapped scratch file (see CollisionStore.offHeap()), which 
+	 * takes the largest part of the memory of a collision off the heap. The heap 
+	 * still grows with the number of collisions: the zip code views keep 4 bytes per 
+	 * collision, the indexes and the unique keys of a deduplicator (see 
+	 * setDeduplicator()) more, and dates and times in unusual formats are kept as 
+	 * strings. The scratch file is released by close(). 
+	 * @param directory the directory in which the scratch file is created, or null 
+	 * for the default temporary directory 
+	 * @return the new CollisionList object 
+	 * @throws IOException if the scratch file cannot be created 
+	 */
+	public static CollisionList offHeap ( File directory ) throws IOException {
+		return new CollisionList(CollisionStore.offHeap(directory));
 	}
 	
 	
@@ -33,8 +109,8 @@ public class CollisionList {
 	 * time
 	 * borough
 	 * zip
-	 * lattitude^
-	 * longitude ^
+	 * lattitude
+	 * longitude 
 	 * on street name^
 	 * cross street name ^
 	 * personsInjured
@@ -56,28 +132,556 @@ public class CollisionList {
 	 * for order of entries) 
 	 * @return true if the record was added to this CollisionList object, false if any 
 	 * problem occurred and the record was not added 
+	 * @throws UnsupportedOperationException if this object is the result of a query 
 	 */
-	public boolean add ( ArrayList<String> record ) {
+	public boolean add ( ArrayList<String> record ) throws UnsupportedOperationException {
 		
 		try{
-			Collision col = new Collision(record);
-			ZipCodeList tmp = new ZipCodeList(col);
-			
-			
-			int index = list.indexOf(tmp);
-			if (index >= 0) { //add the collision object to the existing zip code list
-				list.get(index).add(col);				
-			}
-			else { //add the new zip code list
-				list.add(tmp);
-			}
+			return add(new Collision(record));
 		}
 		catch (IllegalArgumentException ex ) {
+			numOfRejectedRecords++;
 			return false;  //return false if the Collision constructor failed 
 		}
 		
-		return true; //return true to indicate that the object was added
+	}
+	
+	/**
+	 * Adds a particular Collision object to this CollisionList object. 
+	 * @param col the collision to be added 
+	 * @return true if the collision was added to this CollisionList object, false if 
+	 * col is null (which CollisionTokenizer returns for lines that are not valid 
+	 * records) or is a duplicate (see setDeduplicator()) 
+	 * @throws UnsupportedOperationException if this object is the result of a query 
+	 */
+	public boolean add ( Collision col ) throws UnsupportedOperationException {
+		checkWritable();
+		if (col == null) {
+			numOfRejectedRecords++;
+			return false;
+		}
+		if (deduplicator != null && !deduplicator.add(col.getUniqueKey(), store, zipIndex.get(col.getZip()))) {
+			numOfDuplicateRecords++;
+			return false;
+		}
 		
+		ZipCodeList zipList = getOrCreateZipCodeList(col.getZip());
+		zipList.add(col);
+		int row = zipList.getRow(zipList.getNumOfRows() - 1);
+		aggregates.add(store, row);
+		reportCache.invalidate(zipList, store, row);
+		dateIndex = null;
+		indexes.clear();
+		gridIndex = null;
+		
+		return true; //return true to indicate that the object was added
+	}
+	
+	/**
+	 * Adds all collisions stored in another CollisionList object to this CollisionList 
+	 * object. Zip codes that are new to this object are appended in the order in which 
+	 * they appear in other. If other holds the collisions that follow the ones already 
+	 * stored in this object, the result is the same as adding all records to a single 
+	 * CollisionList object one at a time. 
+	 * If this object skips duplicates, the collisions of other are checked one at a 
+	 * time in the order in which they were added to other, so the result is still 
+	 * the same as adding all records one at a time. 
+	 * @param other the CollisionList object whose collisions should be added 
+	 * @throws UnsupportedOperationException if this object is the result of a query 
+	 */
+	public void addAll ( CollisionList other ) throws UnsupportedOperationException {
+		checkWritable();
+		if (deduplicator != null) {
+			addAllNew(other);
+		}
+		else {
+			CollisionStore.RowCopier copier = (other.store == store) ? null : store.newCopier(other.store);
+			for (ZipCodeList otherZipList : other.list) {
+				getOrCreateZipCodeList(otherZipList.getZip()).addAll(otherZipList, copier);
+			}
+			aggregates.addAll(other.getAggregates());
+		}
+		numOfRejectedRecords += other.numOfRejectedRecords;
+		numOfDuplicateRecords += other.numOfDuplicateRecords;
+		reportCache.invalidateAll();
+		dateIndex = null;
+		indexes.clear();
+		gridIndex = null;
+	}
+	
+	/*
+	 * Adds the collisions of another CollisionList object one at a time, in the order 
+	 * in which they were added to it, skipping those whose unique key has been seen. 
+	 */
+	private void addAllNew ( CollisionList other ) {
+		CollisionStore.RowCopier copier = (other.store == store) ? null : store.newCopier(other.store);
+		for (int otherRow : other.getRowsInOrder()) {
+			if (!deduplicator.add(other.store.getUniqueKey(otherRow), store, 
+					zipIndex.get(other.store.getZip(otherRow)))) {
+				numOfDuplicateRecords++;
+				continue;
+			}
+			//rows of a store shared with other (a query result) are not copied 
+			int row = (copier == null) ? otherRow : copier.add(otherRow);
+			getOrCreateZipCodeList(store.getZip(row)).addStoredRow(row);
+			aggregates.add(store, row);
+		}
+	}
+	
+	/*
+	 * Returns the rows of the collisions of this object in the order in which they 
+	 * were added, which is the order of the rows in the store. 
+	 */
+	private int [] getRowsInOrder ( ) {
+		int numOfRows = 0;
+		for (ZipCodeList zipList : list) {
+			numOfRows += zipList.getNumOfRows();
+		}
+		int [] rows = new int [numOfRows];
+		if (numOfRows == store.size()) { //the store holds exactly these rows 
+			for (int i = 0; i < numOfRows; i++) {
+				rows[i] = i;
+			}
+			return rows;
+		}
+		int n = 0;
+		for (ZipCodeList zipList : list) {
+			for (int i = 0; i < zipList.getNumOfRows(); i++) {
+				rows[n++] = zipList.getRow(i);
+			}
+		}
+		Arrays.sort(rows);
+		return rows;
+	}
+	
+	/**
+	 * Adds copies of the collisions stored in the first numOfRows rows of the store 
+	 * of another CollisionList object, in the order of the rows. The store of other 
+	 * must not be shared with other lists (as it is by the results of query()). 
+	 * Duplicates are skipped if this object skips duplicates. 
+	 * @param other the CollisionList object whose collisions should be added 
+	 * @param numOfRows the number of rows to be copied 
+	 * @throws UnsupportedOperationException if this object is the result of a query 
+	 */
+	void addRows ( CollisionList other, int numOfRows ) throws UnsupportedOperationException {
+		checkWritable();
+		CollisionStore.RowCopier copier = store.newCopier(other.store);
+		for (int otherRow = 0; otherRow < numOfRows; otherRow++) {
+			if (deduplicator != null && !deduplicator.add(other.store.getUniqueKey(otherRow), store, 
+					zipIndex.get(other.store.getZip(otherRow)))) {
+				numOfDuplicateRecords++;
+				continue;
+			}
+			int row = copier.add(otherRow);
+			getOrCreateZipCodeList(store.getZip(row)).addStoredRow(row);
+			aggregates.add(store, row);
+		}
+		reportCache.invalidateAll();
+		dateIndex = null;
+		indexes.clear();
+		gridIndex = null;
+	}
+	
+	/**
+	 * Adds to the number of records that could not be added, for records rejected 
+	 * before they reached this object. 
+	 * @param numOfRecords the number of rejected records 
+	 */
+	void addRejectedRecords ( int numOfRecords ) {
+		numOfRejectedRecords += numOfRecords;
+	}
+	
+	/**
+	 * Makes this CollisionList object skip collisions whose unique key has been seen 
+	 * before, so that reading overlapping inputs does not count collisions twice. The 
+	 * keys of the collisions already stored are added to deduplicator first, in the 
+	 * order in which they were added; they are kept even if some are duplicates. 
+	 * @param deduplicator the object that remembers the unique keys, or null to add 
+	 * duplicates again 
+	 */
+	public void setDeduplicator ( CollisionDeduplicator deduplicator ) {
+		if (deduplicator != null) {
+			for (int row : getRowsInOrder()) {
+				deduplicator.addStored(store.getUniqueKey(row));
+			}
+		}
+		this.deduplicator = deduplicator;
+	}
+	
+	/**
+	 * Returns the object that remembers the unique keys of this CollisionList object. 
+	 * @return the deduplicator, or null if duplicates are not skipped 
+	 */
+	public CollisionDeduplicator getDeduplicator ( ) {
+		return deduplicator;
+	}
+	
+	/**
+	 * Releases the scratch file of a CollisionList object that keeps its collisions 
+	 * outside the heap (see offHeap()). Does nothing for other objects and for the 
+	 * results of query(), whose store belongs to the list they were selected from. 
+	 * The object must not be used after it has been closed. 
+	 * @throws IOException if the scratch file cannot be closed 
+	 */
+	@Override
+	public void close ( ) throws IOException {
+		if (!readOnly) {
+			store.close();
+		}
+	}
+	
+	/*
+	 * Throws an exception if collisions cannot be added to this object because it 
+	 * shares the store of the list it was selected from. 
+	 */
+	private void checkWritable ( ) throws UnsupportedOperationException {
+		if (readOnly)
+			throw new UnsupportedOperationException ("Error: the result of a query cannot be changed. ");
+	}
+	
+	/*
+	 * Returns the ZipCodeList object for a given zip code, appending a new empty 
+	 * one if the zip code has not been seen before. 
+	 */
+	private ZipCodeList getOrCreateZipCodeList ( String zip ) {
+		ZipCodeList zipList = zipIndex.get(zip);
+		if (zipList == null) { //add the new zip code list
+			zipList = new ZipCodeList(zip, store);
+			list.add(zipList);
+			zipIndex.put(zip, zipList);
+		}
+		return zipList;
+	}
+	
+	/**
+	 * Selects the collisions of this CollisionList object that match a query: a date 
+	 * range, an hour window and/or a borough. The result is a CollisionList object 
+	 * that shares the store of this object, so any report can be computed over the 
+	 * selected collisions without copying them. 
+	 * The first query builds an index of the rows partitioned by borough and sorted 
+	 * by date (see CollisionDateIndex); later queries reuse it until more collisions 
+	 * are added, and examine only the rows of the matching boroughs and dates. 
+	 * The result is read-only: collisions cannot be added to it (add() and addAll() 
+	 * throw UnsupportedOperationException), because they would be appended to the 
+	 * shared store. To add collisions, copy the result into a new CollisionList 
+	 * object with addAll(). 
+	 * The running totals of the result are not computed here: reports over the result 
+	 * scan its rows instead (a scan that ReportExecutor.setParallel() can split across 
+	 * threads), and getAggregates() computes them when it is first called. 
+	 * @param query the conditions the collisions have to satisfy 
+	 * @return a CollisionList object with the matching collisions 
+	 */
+	public CollisionList query ( CollisionQuery query ) {
+		if (dateIndex == null) {
+			dateIndex = new CollisionDateIndex(this);
+		}
+		CollisionList result = new CollisionList(store);
+		for (int row : dateIndex.select(query)) {
+			ZipCodeList zipList = result.getOrCreateZipCodeList(store.getZip(row));
+			zipList.addStoredRow(row);
+		}
+		result.aggregates = null;
+		result.readOnly = true;
+		return result;
+	}
+	
+	/**
+	 * Returns an ordered view of the collisions of this CollisionList object in a 
+	 * given sort order, which answers range and top-n queries. The view is built by 
+	 * the first call for that order and returned again until more collisions are 
+	 * added. Views never change, so they can be queried by several threads at once 
+	 * and views in different orders can be used side by side. 
+	 * @param order the sort order 
+	 * @return the ordered view 
+	 */
+	public synchronized CollisionIndex getIndex ( SortOrder order ) {
+		CollisionIndex index = indexes.get(order);
+		if (index == null) {
+			index = new CollisionIndex(this, order);
+			indexes.put(order, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns a spatial index of the collisions of this CollisionList object that 
+	 * have a known location, which answers radius and densest-cell queries. The index 
+	 * is built by the first call and returned again for the same cell size until more 
+	 * collisions are added. 
+	 * @param cellSize the width and height of a grid cell in meters (see 
+	 * CollisionGridIndex.DEFAULT_CELL_SIZE) 
+	 * @return the spatial index 
+	 * @throws IllegalArgumentException when cellSize is smaller than 1 meter 
+	 */
+	public synchronized CollisionGridIndex getGridIndex ( double cellSize ) 
+			throws IllegalArgumentException {
+		if (gridIndex == null || gridIndex.getCellSize() != cellSize) {
+			gridIndex = new CollisionGridIndex(this, cellSize);
+		}
+		return gridIndex;
+	}
+	
+	/**
+	 * Returns the store that holds the collisions of this CollisionList object. 
+	 * @return the store 
+	 */
+	CollisionStore getStore() {
+		return store;
+	}
+	
+	/**
+	 * Returns the number of distinct zip codes stored in this CollisionList object. 
+	 * @return the number of zip codes 
+	 */
+	public int getNumOfZipCodes() {
+		return list.size();
+	}
+	
+	/**
+	 * Returns the number of records that were not added to this CollisionList object 
+	 * because they were incomplete or had an invalid zip code or count (this includes 
+	 * header lines of the input). Records with incorrectly formed dates or times are 
+	 * added; they are counted by CollisionAggregates. 
+	 * @return the number of rejected records 
+	 */
+	public int getNumOfRejectedRecords() {
+		return numOfRejectedRecords;
+	}
+	
+	/**
+	 * Returns the number of collisions that were not added to this CollisionList 
+	 * object because a collision with the same unique key had been added before (see 
+	 * setDeduplicator()). Duplicates are not included in the rejected records. 
+	 * @return the number of duplicate records 
+	 */
+	public int getNumOfDuplicateRecords() {
+		return numOfDuplicateRecords;
+	}
+	
+	/**
+	 * Returns the running totals over all collisions in this CollisionList object. 
+	 * The totals of the result of a query are computed by the first call. 
+	 * @return the running totals 
+	 */
+	public CollisionAggregates getAggregates() {
+		if (aggregates == null) {
+			CollisionAggregates totals = new CollisionAggregates();
+			for (int row : getRowsInOrder()) {
+				totals.add(store, row);
+			}
+			aggregates = totals;
+		}
+		return aggregates;
+	}
+	
+	/**
+	 * Returns the running totals over all collisions in this CollisionList object if 
+	 * they are known, without computing them. 
+	 * @return the running totals, or null for the result of a query whose totals 
+	 * have not been computed yet 
+	 */
+	CollisionAggregates getComputedAggregates() {
+		return aggregates;
+	}
+	
+	/**
+	 * Returns the ZipCodeList objects of this CollisionList object in the order in 
+	 * which their zip codes were first added. 
+	 * @return an unmodifiable list of the zip code lists 
+	 */
+	public List<ZipCodeList> getZipCodeLists() {
+		return Collections.unmodifiableList(list);
+	}
+	
+	/**
+	 * Returns the ZipCodeList object for a given zip code. 
+	 * @param zip the zip code to look up 
+	 * @return the ZipCodeList object associated with zip, or null if no collisions 
+	 * were recorded for that zip code 
+	 */
+	public ZipCodeList getZipCodeList ( String zip ) {
+		return zipIndex.get(zip);
+	}
+	
+	/**
+	 * Writes a binary snapshot of this CollisionList object to a file: the columns 
+	 * and dictionaries of the store, the rows and totals of every ZipCodeList object 
+	 * and the running totals. The snapshot starts with a magic number and a format 
+	 * version (see SnapshotOutput), and is written to a temporary file that replaces 
+	 * file only when it is complete. 
+	 * @param file the snapshot file 
+	 * @throws IOException if the snapshot cannot be written 
+	 */
+	public void writeSnapshot ( File file ) throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		try (SnapshotOutput out = new SnapshotOutput(tmp)) {
+			store.write(out);
+			out.writeInt(list.size());
+			for (ZipCodeList zipList : list) {
+				zipList.write(out);
+			}
+			getAggregates().write(out);
+			out.writeInt(numOfRejectedRecords);
+			out.writeInt(numOfDuplicateRecords);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Loads a CollisionList object from a snapshot written by writeSnapshot(File). 
+	 * The snapshot is memory mapped and its columns are copied in bulk, so no record 
+	 * is parsed again. More collisions can be added to the returned object. 
+	 * @param file the snapshot file 
+	 * @return the CollisionList object stored in the snapshot 
+	 * @throws IOException if the file cannot be read, is not a snapshot, or was 
+	 * written in a format version that is not supported 
+	 */
+	public static CollisionList readSnapshot ( File file ) throws IOException {
+		return readSnapshot(file, new CollisionList());
+	}
+	
+	/**
+	 * Loads a CollisionList object from a snapshot written by writeSnapshot(File) 
+	 * into a CollisionList object that keeps its collisions outside the heap (see 
+	 * offHeap(File)). 
+	 * @param file the snapshot file 
+	 * @param directory the directory in which the scratch file is created, or null 
+	 * for the default temporary directory 
+	 * @return the CollisionList object stored in the snapshot 
+	 * @throws IOException if either file cannot be read or created, the snapshot is 
+	 * not a snapshot, or was written in a format version that is not supported 
+	 */
+	public static CollisionList readSnapshot ( File file, File directory ) throws IOException {
+		CollisionList collisions = offHeap(directory);
+		try {
+			return readSnapshot(file, collisions);
+		}
+		catch (IOException | RuntimeException ex) {
+			collisions.close();
+			throw ex;
+		}
+	}
+	
+	/*
+	 * Loads a snapshot into a given empty CollisionList object. 
+	 */
+	private static CollisionList readSnapshot ( File file, CollisionList collisions ) throws IOException {
+		try (SnapshotInput in = new SnapshotInput(file)) {
+			collisions.store = CollisionStore.read(in, collisions.store);
+			int numOfZipCodes = in.readLength();
+			for (int i = 0; i < numOfZipCodes; i++) {
+				ZipCodeList zipList = ZipCodeList.read(in, collisions.store);
+				collisions.list.add(zipList);
+				collisions.zipIndex.put(zipList.getZip(), zipList);
+			}
+			collisions.aggregates = CollisionAggregates.read(in, collisions.store);
+			collisions.numOfRejectedRecords = in.readInt();
+			collisions.numOfDuplicateRecords = in.readInt();
+		}
+		return collisions;
+	}
+	
+	/**
+	 * Determines the first k zip codes of this CollisionList object in a given order. 
+	 * Zip codes that are equal according to order are ranked by the zip code itself, 
+	 * so the result is deterministic and no zip code is lost because of a tie. 
+	 * The selection keeps a bounded heap of at most k zip codes and runs in 
+	 * O(n log k) time for n zip codes. 
+	 * @param order the order in which zip codes are ranked, for example 
+	 * CompareByNumOfCollisionsDescending
+	 * @param k number of zip codes to be returned 
+	 * @return a list of min(k, number of zip codes) ZipCodeList objects, sorted according 
+	 * to order 
+	 */
+	public ArrayList<ZipCodeList> getTopZipCodes ( Comparator<ZipCodeList> order, int k ) {
+		ZipCodeSelector selector = new ZipCodeSelector(order, k);
+		for (ZipCodeList zipList : list) {
+			selector.offer(zipList);
+		}
+		return selector.getSelected();
+	}
+	
+	/**
+	 * Creates a summary of this CollisionList object: the totals of every zip code 
+	 * and the running totals, without the collisions. Summaries of different parts 
+	 * of the data can be written to files and merged (see CollisionSummary). 
+	 * @return a new CollisionSummary object 
+	 */
+	public CollisionSummary getSummary ( ) {
+		return new CollisionSummary(this);
+	}
+	
+	/**
+	 * Creates a ReportExecutor object that computes any number of reports over this 
+	 * CollisionList object in a single pass. 
+	 * @return a new ReportExecutor object with no registered reports 
+	 */
+	public ReportExecutor newReportExecutor ( ) {
+		return new ReportExecutor(this);
+	}
+	
+	/**
+	 * Returns the cache of the reports computed by the report methods of this 
+	 * CollisionList object (computeReport() and methods such as 
+	 * getZipCodesWithMostCollisions() and getHourlyStats()), which counts hits and 
+	 * misses and whose capacity can be changed. 
+	 * @return the cache 
+	 */
+	public ReportCache getReportCache ( ) {
+		return reportCache;
+	}
+	
+	/**
+	 * Computes a single report over this CollisionList object, or returns the same 
+	 * report computed earlier if it is still cached (see getReportCache()). Its 
+	 * result is not formatted: the numbers are read from the methods of the report, 
+	 * such as ZipCodeRankingReport.getEntries(), and render() writes them in any 
+	 * format when they are needed. 
+	 * @param type the class of the report 
+	 * @param newReport creates the report if it is not cached 
+	 * @param parameters the parameters of the report, which identify it in the cache 
+	 * together with its class 
+	 * @return the computed report, which has to be read before more collisions are 
+	 * added to this CollisionList object 
+	 */
+	public <R extends CollisionReport> R computeReport ( Class<R> type, Supplier<R> newReport, 
+			Object... parameters ) {
+		List<Object> key = getCacheKey(type, parameters);
+		CollisionReport report = reportCache.get(key);
+		if (report == null) {
+			report = newReport.get();
+			newReportExecutor().register(report).run();
+			reportCache.put(key, report, null);
+		}
+		return type.cast(report);
+	}
+	
+	/*
+	 * Returns the result of a single report over this CollisionList object, from the 
+	 * cache if possible. The text of a cached report is formatted only once. 
+	 */
+	private String runReport ( Class<? extends CollisionReport> type, 
+			Supplier<? extends CollisionReport> newReport, Object... parameters ) {
+		List<Object> key = getCacheKey(type, parameters);
+		String result = reportCache.getResult(key);
+		if (result == null) {
+			CollisionReport report = newReport.get();
+			newReportExecutor().register(report).run();
+			result = report.getResult();
+			reportCache.put(key, report, result);
+		}
+		return result;
+	}
+	
+	/*
+	 * Returns the key of a report in the cache: its class followed by its parameters. 
+	 */
+	private static List<Object> getCacheKey ( Class<?> type, Object... parameters ) {
+		List<Object> key = new ArrayList<Object>(parameters.length + 1);
+		key.add(type);
+		key.addAll(Arrays.asList(parameters));
+		return key;
 	}
 	
 	/**
@@ -88,22 +692,8 @@ public class CollisionList {
 	 *  one per line, that contains k zip codes with the highest number of collisions
 	 */
 	public String getZipCodesWithMostCollisions (int k) {
-
-		@SuppressWarnings("unchecked")
-		TreeSet<ZipCodeList> sortedList = new TreeSet<ZipCodeList>(new CompareByNumOfCollisionsDescending());
-		for(ZipCodeList i: list){
-			sortedList.add(i);
-		}
-		
-		StringBuffer result = new StringBuffer();
-		
-		for(int i = 0; i < k  && i < sortedList.size(); i++){
-			ZipCodeList largest = sortedList.pollFirst();
-			result.append(String.format("    %5s  %5d collisions\n",largest.getZip(),
-					largest.getTotalNumOfCollisions()));
-		}
-		
-		return result.toString();
+		return runReport(ZipCodeRankingReport.class, () -> ZipCodeRankingReport.mostCollisions(k), 
+				"mostCollisions", k);
 	}
 	
 	/**
@@ -114,26 +704,10 @@ public class CollisionList {
 	 *  one per line, that contains k zip codes with the lowest number of collisions
 	 */
 	public String getZipCodesWithLeastCollisions (int k) {
-
-		@SuppressWarnings("unchecked")
-		TreeSet<ZipCodeList> sortedList = new TreeSet<ZipCodeList>(new CompareByNumOfCollisionsAscending());
-		for(ZipCodeList i: list){
-			sortedList.add(i);
-		}
-		
-		StringBuffer result = new StringBuffer();
-		
-		for(int i = 0; i < k  && i < sortedList.size(); i++){
-			ZipCodeList smallest = sortedList.pollFirst();
-			result.insert(0, String.format("    %5s  %5d collisions\n",smallest.getZip(),
-					smallest.getTotalNumOfCollisions()));
-		}
-		
-		return result.toString();
+		return runReport(ZipCodeRankingReport.class, () -> ZipCodeRankingReport.leastCollisions(k), 
+				"leastCollisions", k);
 	}
 	
-
-	
 	/**
 	 * Determines k zip codes with most number of collisions involving 
 	 * cyclists in this CollisionList object. 
@@ -143,29 +717,10 @@ public class CollisionList {
 	 *  one per line, that contains k zip codes with the highest number of injured cyclists 
 	 */
 	public String getZipCodesWithMostCyclistIncidents ( int k ) {
-
-		@SuppressWarnings("unchecked")
-		TreeSet<ZipCodeList> sortedList = new TreeSet<ZipCodeList>(new CompareByNumOfCyclistsIncidentsDescending());
-		for(ZipCodeList i: list){
-			sortedList.add(i);
-		}
-
-		
-		StringBuffer result = new StringBuffer();
-		
-		for(int i = 0; i < k  && i < sortedList.size(); i++){
-			ZipCodeList largest = sortedList.pollFirst();
-			int inj = largest.getTotalNumOfCyclistsInjured();
-			int killed =  largest.getTotalNumOfCyclistsKilled();
-			result.append( String.format("    %5s  %5d (%3d killed ) cyclists hurt\n", largest.getZip(),
-					inj + killed, killed ));
-		}
-		
-		return result.toString();
-		
+		return runReport(ZipCodeRankingReport.class, () -> ZipCodeRankingReport.mostCyclistIncidents(k), 
+				"mostCyclistIncidents", k);
 	}
 	
-	
 	/**
 	 * Determines k zip codes with most number of injured and killed persons. 
 	 * @param k number of zip codes with the highest number of injured and killed persons
@@ -174,236 +729,63 @@ public class CollisionList {
 	 *  one per line, that contains k zip codes with the highest number of injured persons 
 	 */
 	public String getZipCodesWithMostPersonIncidents ( int k ) {
-		//change
-		@SuppressWarnings("unchecked")
-		TreeSet<ZipCodeList> sortedList = new TreeSet<ZipCodeList>(new CompareByNumOfPersonsIncidentsDescending());
-		for(ZipCodeList i: list){
-			sortedList.add(i);
-		}
-
-		StringBuffer result = new StringBuffer();
-		
-		for(int i = 0; i < k; i++){
-			ZipCodeList largest = sortedList.pollFirst();
-			int inj = largest.getTotalNumOfPersonsInjured();
-			int killed =  largest.getTotalNumOfPersonsKilled();
-			result.append( String.format("    %5s  %5d (%3d killed ) persons hurt\n", largest.getZip(),
-					inj + killed, killed ));
-		}
-		
-		return result.toString();
-		
+		return runReport(ZipCodeRankingReport.class, () -> ZipCodeRankingReport.mostPersonIncidents(k), 
+				"mostPersonIncidents", k);
 	}
 	
-
 	/**
 	 * Computes percentage of total collisions in this CollisionList object that involved one
 	 * of the following vehicle types: taxi, bus, bicycle, truck, fire truck and ambulance. 
+	 * The result is computed from running totals, without scanning the collisions. 
 	 * @return a string containing the results of the computation 
 	 */
 	public String getVehicleTypeStats ( ) {
-		String result = new String();
-		
-		int taxi = 0;
-		int bus = 0;
-		int bicycle = 0;
-		int fireTruck = 0;
-		int ambulance = 0;
-		
-		int totalNumOfCollisions = 0;
-		
-		for (ZipCodeList l : list) {
-			totalNumOfCollisions += l.getTotalNumOfCollisions(); 
-			for ( Collision c : l ) { 
-				if (c.getVehicleCode1().equalsIgnoreCase("taxi") || 
-						c.getVehicleCode2().equalsIgnoreCase("taxi")) taxi++;
-				if (c.getVehicleCode1().equalsIgnoreCase("bus") ||
-						c.getVehicleCode2().equalsIgnoreCase("bus")) bus++;
-				if (c.getVehicleCode1().equalsIgnoreCase("bicycle") ||
-						c.getVehicleCode2().equalsIgnoreCase("bicycle")) bicycle++;
-				if (c.getVehicleCode1().equalsIgnoreCase("fire truck") ||
-						c.getVehicleCode2().equalsIgnoreCase("fire truck")) fireTruck++;
-				if (c.getVehicleCode1().equalsIgnoreCase("ambulance") ||
-						c.getVehicleCode2().equalsIgnoreCase("ambulance")) ambulance++;
-			}
-		}
-
-		//create a string object with results
-		result += String.format("    %-11s %5.2f%%\n", "taxi", (float)(taxi)/totalNumOfCollisions*100);
-		result += String.format("    %-11s %5.2f%%\n", "bus", (float)(bus)/totalNumOfCollisions*100);
-		result += String.format("    %-11s %5.2f%%\n", "bicycle", (float)(bicycle)/totalNumOfCollisions*100);
-		result += String.format("    %-11s %5.2f%%\n", "fire truck", (float)(fireTruck)/totalNumOfCollisions*100);
-		result += String.format("    %-11s %5.2f%%\n", "ambulance", (float)(ambulance)/totalNumOfCollisions*100);
-		
-		return result;
+		return runReport(VehicleTypeReport.class, () -> new VehicleTypeReport());
+	}
+	
+	/**
+	 * Computes percentage of total collisions in this CollisionList object that involved 
+	 * each of the given vehicle types. Any vehicle code can be given, whether or not it 
+	 * is listed by VehicleType. 
+	 * The result is computed from running totals, without scanning the collisions. 
+	 * @param types the vehicle types (case is ignored) 
+	 * @return a string containing the results of the computation, one type per line 
+	 * in the given order 
+	 */
+	public String getVehicleTypeStats ( String... types ) {
+		String [] listed = types.clone();
+		return runReport(VehicleTypeReport.class, () -> new VehicleTypeReport(listed), 
+				Arrays.asList(listed));
 	}
 	
 	/**
 	 * Computes percentage of total collisions in this CollisionList object that occured within 
 	 * a particular hour. The collisions are placed into bins of 1 hour intervals.  
+	 * The result is computed from running totals, without scanning the collisions. 
 	 * @return a string containing the results of the computation 
 	 */
 	public String getHourlyStats ( ) { 
-		StringBuffer result = new StringBuffer() ;
-		
-		//counter for each hour
-		int [] hourlyCount = new int [24]; 
-		
-		String hour = "", time = ""; 
-		StringBuffer bar; 
-		int totalNumOfCollisions = 0; 
-		
-		for (ZipCodeList l : list) {
-			totalNumOfCollisions += l.getTotalNumOfCollisions(); 
-			for ( Collision c : l ) { 
-				try { 
-					//extract the hour from the time entry 
-					time = c.getTime();
-					hour = time.substring(0,time.indexOf(':')).trim();
-					//increment counter for that hour
-					hourlyCount[Integer.parseInt(hour)]++;
-				} catch (IndexOutOfBoundsException e) {
-					//ignore incorrectly formed times 
-				} catch (NumberFormatException e ) {
-					//ignore incorrectly formed times 
-				}
-			}
-		}
-		
-		for (int i = 0; i < 24; i++ ) {
-			//determine number of "bars" to be printed for visual representation of 
-			//the histogram 
-			int numOfBars = (int)(((double)hourlyCount[i]/totalNumOfCollisions) * 240);
-			bar = new StringBuffer(numOfBars);
-			for (int j = 0; j < numOfBars; j++)
-				bar.append("|");
-			result.append(String.format("%3d h  %5.1f%% %s%n", 
-					i, 100.0*hourlyCount[i]/totalNumOfCollisions, bar.toString() ));
-		}
-		
-		return result.toString();
+		return runReport(HourlyReport.class, () -> new HourlyReport());
 	}
 	
-}
-
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of collisions occurring in each. The resulting order is ascending. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfCollisionsAscending implements Comparator <ZipCodeList> {
-
-	/* (non-Javadoc)
-	 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+	/**
+	 * Computes the number of collisions in this CollisionList object that occurred within 
+	 * every hour of every day of the week, as a table with one row per day. 
+	 * The result is computed from running totals, without scanning the collisions. 
+	 * @return a string containing the results of the computation 
 	 */
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		return arg0.getTotalNumOfCollisions() - arg1.getTotalNumOfCollisions();
+	public String getWeekdayHourStats ( ) { 
+		return runReport(WeekdayHourReport.class, () -> new WeekdayHourReport());
 	}
 	
-}
-
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of collisions occurring in each. The resulting order is descending. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfCollisionsDescending implements Comparator <ZipCodeList> {
-
-	/* (non-Javadoc)
-	 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+	/**
+	 * Computes the number of collisions in this CollisionList object that occurred within 
+	 * every month, from the first to the last month in which a collision occurred. 
+	 * The result is computed from running totals, without scanning the collisions. 
+	 * @return a string containing the results of the computation 
 	 */
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		return arg1.getTotalNumOfCollisions() - arg0.getTotalNumOfCollisions();
-	}
-	
-}
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of injured persons. The resulting order is descending. Ties are resolved
- * based on the number of killed persons. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfPersonsIncidentsDescending implements Comparator <ZipCodeList> {
-
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		int diff = ( arg1.getTotalNumOfPersonsInjured() + arg1.getTotalNumOfPersonsKilled()) 
-				- ( arg0.getTotalNumOfPersonsInjured() + arg0.getTotalNumOfPersonsKilled()) ; 
-
-		if (diff != 0 ) 
-			return diff;
-		else return ( arg1.getTotalNumOfPersonsKilled() - arg0.getTotalNumOfPersonsKilled() );
+	public String getMonthlyStats ( ) { 
+		return runReport(MonthlyReport.class, () -> new MonthlyReport());
 	}
 	
 }
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of injured persons. The resulting order is ascending. Ties are resolved
- * based on the number of killed persons. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfPersonsIncidentsAscending implements Comparator <ZipCodeList> {
-
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		int diff = - ( arg1.getTotalNumOfPersonsInjured() + arg1.getTotalNumOfPersonsKilled()) 
-				+ ( arg0.getTotalNumOfPersonsInjured() + arg0.getTotalNumOfPersonsKilled()) ; 
-
-		if (diff != 0 ) 
-			return diff;
-		else return ( -arg1.getTotalNumOfPersonsKilled() + arg0.getTotalNumOfPersonsKilled() );
-	}
-	
-}
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of injured cyclists. The resulting order is descending. Ties are resolved
- * based on the number of killed cyclists. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfCyclistsIncidentsDescending implements Comparator <ZipCodeList> {
-
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		int diff = ( arg1.getTotalNumOfCyclistsInjured() + arg1.getTotalNumOfCyclistsKilled()) 
-				- ( arg0.getTotalNumOfCyclistsInjured() + arg0.getTotalNumOfCyclistsKilled()) ; 
-
-		if (diff != 0 ) 
-			return diff;
-		else return ( arg1.getTotalNumOfCyclistsKilled() - arg0.getTotalNumOfCyclistsKilled() );
-	}
-	
-}
-
-/*
- * Comparator class for comparing two @see ZipCodeList objects based on the
- * number of injured cyclists. The resulting order is ascending. Ties are resolved
- * based on the number of killed cyclists. 
- * @author Joanna K. 
- *
- */
-class CompareByNumOfCyclistsIncidentsAscending implements Comparator <ZipCodeList> {
-
-	@Override
-	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
-		int diff = - ( arg1.getTotalNumOfCyclistsInjured() + arg1.getTotalNumOfCyclistsKilled()) 
-				+ ( arg0.getTotalNumOfCyclistsInjured() + arg0.getTotalNumOfCyclistsKilled()) ; 
-
-		if (diff != 0 ) 
-			return diff;
-		else return ( -arg1.getTotalNumOfCyclistsKilled() + arg0.getTotalNumOfCyclistsKilled() );
-	}
-	
-}
\ No newline at end of file
@@ -0,0 +1,161 @@
+
+
+/**
+ * CollisionQuery describes a subset of collisions: the collisions that occurred
+ * within a range of dates, within a window of hours of the day and/or in a
+ * particular borough. Every condition that is not set matches all collisions.
+ * A query is applied with CollisionList.query(CollisionQuery), which returns the
+ * matching collisions as a CollisionList object, so all reports can be computed
+ * over them.
+ * The setters return the query itself, so conditions can be chained:
+ *     new CollisionQuery().setDateRange("01/01/2015", "06/30/2015").setBorough("BROOKLYN")
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionQuery {
+
+	private boolean hasDateRange;
+	private int fromDay;
+	private int toDay;
+
+	private boolean hasHourWindow;
+	private int fromHour;
+	private int toHour;
+
+	private String borough;
+
+	/**
+	 * Creates a CollisionQuery object that matches all collisions.
+	 */
+	public CollisionQuery ( ) {
+	}
+
+	/**
+	 * Restricts this query to collisions that occurred between two dates (inclusive).
+	 * Collisions with incorrectly formed dates do not match a query with a date range.
+	 * @param from the first date, in the MM/DD/YYYY format
+	 * @param to the last date, in the MM/DD/YYYY format
+	 * @return this query
+	 * @throws IllegalArgumentException if a date is not valid or from is after to
+	 */
+	public CollisionQuery setDateRange ( String from, String to ) throws IllegalArgumentException {
+		int first = CollisionStore.parseEpochDay(from.trim());
+		int last = CollisionStore.parseEpochDay(to.trim());
+		if (first == CollisionStore.NO_DATE)
+			throw new IllegalArgumentException ("Error: invalid date " + from + ". ");
+		if (last == CollisionStore.NO_DATE)
+			throw new IllegalArgumentException ("Error: invalid date " + to + ". ");
+		if (first > last)
+			throw new IllegalArgumentException ("Error: " + from + " is after " + to + ". ");
+		hasDateRange = true;
+		fromDay = first;
+		toDay = last;
+		return this;
+	}
+
+	/**
+	 * Restricts this query to collisions that occurred within a window of hours of
+	 * the day (inclusive). If from is larger than to, the window wraps around
+	 * midnight, so (22, 3) matches collisions between 22:00 and 3:59.
+	 * Collisions with incorrectly formed times do not match a query with an hour
+	 * window.
+	 * @param from the first hour, between 0 and 23
+	 * @param to the last hour, between 0 and 23
+	 * @return this query
+	 * @throws IllegalArgumentException if an hour is not between 0 and 23
+	 */
+	public CollisionQuery setHourWindow ( int from, int to ) throws IllegalArgumentException {
+		if (from < 0 || from > 23 || to < 0 || to > 23)
+			throw new IllegalArgumentException ("Error: hours have to be between 0 and 23. ");
+		hasHourWindow = true;
+		fromHour = from;
+		toHour = to;
+		return this;
+	}
+
+	/**
+	 * Restricts this query to collisions in a given borough (case is ignored).
+	 * @param borough the borough, as it appears in the data, for example "QUEENS"
+	 * @return this query
+	 */
+	public CollisionQuery setBorough ( String borough ) {
+		this.borough = borough.trim();
+		return this;
+	}
+
+	/**
+	 * Determines if this query has a date range.
+	 * @return true if setDateRange was called
+	 */
+	boolean hasDateRange ( ) {
+		return hasDateRange;
+	}
+
+	/**
+	 * Returns the first day of the date range of this query.
+	 * @return the first day (counted from 01/01/1970) that matches
+	 */
+	int getFromDay ( ) {
+		return fromDay;
+	}
+
+	/**
+	 * Returns the last day of the date range of this query.
+	 * @return the last day (counted from 01/01/1970) that matches
+	 */
+	int getToDay ( ) {
+		return toDay;
+	}
+
+	/**
+	 * Determines if a borough matches this query.
+	 * @param name the name of the borough
+	 * @return true if this query has no borough or name is its borough
+	 */
+	boolean matchesBorough ( String name ) {
+		return borough == null || borough.equalsIgnoreCase(name);
+	}
+
+	/**
+	 * Determines if a time of the day matches the hour window of this query.
+	 * @param minuteOfDay the minute of the day (see CollisionStore.getMinuteOfDay)
+	 * @return true if this query has no hour window or the minute is within it
+	 */
+	boolean matchesTime ( int minuteOfDay ) {
+		if (!hasHourWindow)
+			return true;
+		if (minuteOfDay == CollisionStore.NO_TIME)
+			return false;
+		int hour = minuteOfDay / 60;
+		return (fromHour <= toHour) ? (hour >= fromHour && hour <= toHour)
+				: (hour >= fromHour || hour <= toHour);
+	}
+
+	/**
+	 * Returns a description of this query.
+	 * @return the conditions of this query, or "all collisions" if there are none
+	 */
+	@Override
+	public String toString ( ) {
+		StringBuffer description = new StringBuffer();
+		if (hasDateRange) {
+			description.append(String.format("from %s to %s ", formatDay(fromDay), formatDay(toDay)));
+		}
+		if (hasHourWindow) {
+			description.append(String.format("between %d:00 and %d:59 ", fromHour, toHour));
+		}
+		if (borough != null) {
+			description.append(String.format("in %s ", borough));
+		}
+		return (description.length() == 0) ? "all collisions" : description.toString().trim();
+	}
+
+	/*
+	 * Formats an epoch day in the MM/DD/YYYY format.
+	 */
+	private static String formatDay ( int day ) {
+		int [] ymd = CollisionStore.civilFromDays(day);
+		return String.format("%02d/%02d/%04d", ymd[1], ymd[2], ymd[0]);
+	}
+}
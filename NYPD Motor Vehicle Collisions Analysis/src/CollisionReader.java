@@ -0,0 +1,307 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * CollisionReader loads a collision data file into a CollisionList object using
+ * one or more threads. The file is cut into byte ranges that start and end on line
+ * boundaries. Each range is memory mapped and parsed by a CollisionTokenizer on a
+ * separate worker thread into a partial CollisionList object and the partial lists
+ * are merged in file order, so the result is the same as reading the file line by
+ * line on a single thread.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionReader {
+
+	private static final long WINDOW_SIZE = 1 << 28;
+
+	private File file;
+	private int numOfThreads;
+	private Charset charset;
+
+	//destination and frequency of the ingest cost samples, if requested
+	private PrintStream out;
+	private int rowsPerSample;
+
+	//ingest metrics, if requested
+	private IngestMetrics metrics;
+
+	//true if the latitude and longitude entries are parsed
+	private boolean parseLocations;
+
+	//true if the collisions are kept outside the heap, in scratch files in offHeapDirectory
+	private boolean offHeap;
+	private File offHeapDirectory;
+
+	//unique keys of the collisions read, if duplicates are skipped
+	private CollisionDeduplicator deduplicator;
+
+	/**
+	 * Creates a CollisionReader object for a given file.
+	 * @param file the collision data file to be read
+	 * @param numOfThreads the number of worker threads used for parsing
+	 * @throws IllegalArgumentException when numOfThreads is smaller than 1
+	 */
+	public CollisionReader ( File file, int numOfThreads ) throws IllegalArgumentException {
+		if (numOfThreads < 1)
+			throw new IllegalArgumentException ("Error: at least one thread is needed. ");
+		this.file = file;
+		this.numOfThreads = numOfThreads;
+		//same character set that Scanner uses for reading files
+		this.charset = Charset.defaultCharset();
+	}
+
+	/**
+	 * Requests that the cost of ingesting each row is printed every rowsPerSample
+	 * lines while the file is read. The samples are printed only if the file is
+	 * read on a single thread.
+	 * @param rowsPerSample the number of lines between two samples
+	 * @param out the stream to which the samples are printed
+	 */
+	public void setBenchmark ( int rowsPerSample, PrintStream out ) {
+		this.rowsPerSample = rowsPerSample;
+		this.out = (rowsPerSample > 0 && numOfThreads == 1) ? out : null;
+	}
+
+	/**
+	 * Requests that the latitude and longitude of the collisions are parsed from
+	 * the file (see CollisionTokenizer.setParseLocations()), so that the collisions
+	 * can be indexed by location (see CollisionList.getGridIndex()).
+	 * @param parseLocations true if the locations should be parsed
+	 */
+	public void setParseLocations ( boolean parseLocations ) {
+		this.parseLocations = parseLocations;
+	}
+
+	/**
+	 * Requests that the collisions are kept outside the heap, in memory-mapped
+	 * scratch files (see CollisionList.offHeap()), which takes most of the memory of
+	 * the collisions off the heap. The partial lists of the worker threads are kept
+	 * outside the heap as well, and closed once they have been merged.
+	 * @param directory the directory in which the scratch files are created, or
+	 * null for the default temporary directory
+	 */
+	public void setOffHeap ( File directory ) {
+		this.offHeap = true;
+		this.offHeapDirectory = directory;
+	}
+
+	/**
+	 * Requests that collisions whose unique key has been seen before are skipped
+	 * (see CollisionList.setDeduplicator()). The worker threads parse their ranges
+	 * without checking the keys; the keys are checked as the partial lists are
+	 * merged in file order, so the same collisions are skipped as on a single thread.
+	 * @param deduplicator the object that remembers the unique keys, or null to keep
+	 * duplicates
+	 */
+	public void setDeduplicator ( CollisionDeduplicator deduplicator ) {
+		this.deduplicator = deduplicator;
+	}
+
+	/**
+	 * Requests that the lines, bytes, rejections and parse and insert times are
+	 * counted in a given IngestMetrics object while the file is read.
+	 * @param metrics the metrics to be updated, or null for none
+	 */
+	public void setMetrics ( IngestMetrics metrics ) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Reads the entire file and returns the collisions stored in it. Lines that
+	 * do not have exactly 21 entries and records rejected by CollisionList.add
+	 * are skipped.
+	 * @return a CollisionList object containing all valid collisions from the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public CollisionList read ( ) throws IOException {
+		if (numOfThreads == 1) {
+			if (out != null) {
+				out.println("Ingest cost per row:");
+				out.printf("    %12s  %8s  %12s\n", "rows", "zips", "ns/row");
+			}
+			CollisionList result = readChunk(0, file.length(), deduplicator);
+			if (out != null) {
+				out.println();
+			}
+			if (metrics != null) {
+				metrics.setNumOfZipCodes(result.getNumOfZipCodes());
+				metrics.addDuplicates(result.getNumOfDuplicateRecords());
+				metrics.addInvalid(result.getAggregates());
+			}
+			return result;
+		}
+
+		long [] bounds = findChunkBounds();
+
+		ExecutorService pool = Executors.newFixedThreadPool(numOfThreads);
+		try {
+			ArrayList<Future<CollisionList>> parts = new ArrayList<Future<CollisionList>>();
+			for (int i = 0; i < bounds.length - 1; i++) {
+				final long start = bounds[i];
+				final long end = bounds[i+1];
+				parts.add(pool.submit(() -> readChunk(start, end, null)));
+			}
+
+			//merge the partial lists in file order
+			CollisionList result = newList();
+			result.setDeduplicator(deduplicator);
+			for (Future<CollisionList> part : parts) {
+				CollisionList partial = part.get();
+				result.addAll(partial);
+				partial.close();
+			}
+			if (metrics != null) {
+				metrics.setNumOfZipCodes(result.getNumOfZipCodes());
+				metrics.addDuplicates(result.getNumOfDuplicateRecords());
+				metrics.addInvalid(result.getAggregates());
+			}
+			return result;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Reading interrupted", ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException)
+				throw (IOException) ex.getCause();
+			throw new IOException(ex.getCause());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Computes the byte offsets at which the chunks start. Each chunk, apart from the
+	 * first one, starts right after a line break. The last element is the file size.
+	 * Empty chunks are possible when the file contains very long lines.
+	 * @return an array of numOfThreads + 1 increasing offsets
+	 */
+	private long [] findChunkBounds ( ) throws IOException {
+		long [] bounds = new long [numOfThreads + 1];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			long size = raf.length();
+			bounds[numOfThreads] = size;
+			for (int i = 1; i < numOfThreads; i++) {
+				long nominal = size / numOfThreads * i;
+				if (nominal <= bounds[i-1]) {
+					//previous chunk starts beyond this point already
+					bounds[i] = bounds[i-1];
+					continue;
+				}
+				//move to the first byte after the line break at or after nominal - 1
+				long pos = nominal - 1;
+				raf.seek(pos);
+				int b;
+				while ( (b = raf.read()) != -1 && b != '\n' ) {
+					pos++;
+				}
+				bounds[i] = Math.min(pos + 1, size);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Reads the entire file on a single thread and adds its collisions to an
+	 * ApproximateCollisionList object, which does not keep them.
+	 * @param list the list to which the collisions are added
+	 * @throws IOException if the file cannot be read
+	 */
+	public void read ( ApproximateCollisionList list ) throws IOException {
+		scan(0, file.length(), col -> list.add(col));
+	}
+
+	/*
+	 * Creates an empty CollisionList object, on or off the heap as requested.
+	 */
+	private CollisionList newList ( ) throws IOException {
+		return offHeap ? CollisionList.offHeap(offHeapDirectory) : new CollisionList();
+	}
+
+	/*
+	 * Parses all lines that start within [start, end) into a new CollisionList object,
+	 * which skips duplicates if deduplicator is not null.
+	 */
+	private CollisionList readChunk ( long start, long end, CollisionDeduplicator deduplicator )
+			throws IOException {
+		CollisionList part = newList();
+		part.setDeduplicator(deduplicator);
+		//number of lines read and start time of the current sample
+		long [] sample = { 0, System.nanoTime() };
+
+		scan(start, end, col -> {
+			part.add(col);
+			sample[0]++;
+
+			if (out != null && sample[0] % rowsPerSample == 0) {
+				long now = System.nanoTime();
+				out.printf("    %,12d  %,8d  %,12.1f\n", sample[0], part.getNumOfZipCodes(),
+						(double)(now - sample[1]) / rowsPerSample);
+				sample[1] = now;
+			}
+		});
+		return part;
+	}
+
+	/*
+	 * Parses all lines that start within [start, end) and passes them to action, as
+	 * returned by CollisionTokenizer.nextCollision(). The range is memory mapped in
+	 * windows of at most WINDOW_SIZE bytes; each window ends after the last complete
+	 * line it contains. If metrics are requested, the time spent in nextCollision()
+	 * is recorded as parse time and the time spent in action as insert time.
+	 */
+	private void scan ( long start, long end, Consumer<Collision> action ) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long pos = start;
+			long windowSize = WINDOW_SIZE;
+			while (pos < end) {
+				long windowEnd = Math.min(end, pos + windowSize);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, windowEnd - pos);
+				CollisionTokenizer tokenizer = new CollisionTokenizer(buffer, charset, windowEnd == end);
+				tokenizer.setParseLocations(parseLocations);
+
+				if (metrics == null) {
+					while (tokenizer.hasNextLine()) {
+						action.accept(tokenizer.nextCollision());
+					}
+				}
+				else {
+					while (tokenizer.hasNextLine()) {
+						long parseStart = System.nanoTime();
+						Collision col = tokenizer.nextCollision();
+						metrics.addParsed(col, tokenizer.getRejectReason(), System.nanoTime() - parseStart);
+						long insertStart = System.nanoTime();
+						action.accept(col);
+						if (col != null) {
+							metrics.addInserted(System.nanoTime() - insertStart);
+						}
+					}
+					metrics.addBytes(tokenizer.getPosition());
+				}
+
+				if (tokenizer.getPosition() == 0) {
+					//a single line does not fit in the window
+					windowSize = Math.min(2 * windowSize, Integer.MAX_VALUE);
+				}
+				pos += tokenizer.getPosition();
+			}
+		}
+	}
+}
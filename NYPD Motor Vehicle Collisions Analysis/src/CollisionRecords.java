@@ -0,0 +1,231 @@
+
+
+import java.io.IOException;
+
+/**
+ * CollisionRecords holds the fixed-width values of the rows of a CollisionStore
+ * object: the eight injury and fatality counts, the epoch day, the ids of the zip
+ * code, borough and vehicle codes (all int columns), the minute of the day, the
+ * unique key and the location. The variable-width values (the dictionaries and the
+ * dates and times that are not in the usual format) stay in the CollisionStore
+ * object. The values are kept either in arrays on the heap (see
+ * HeapCollisionRecords) or in a memory-mapped file outside the heap (see
+ * MappedCollisionRecords).
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+abstract class CollisionRecords {
+
+	/** Int column of the epoch day; columns 0 to 7 are the counts (see CollisionStore). */
+	static final int EPOCH_DAY = CollisionStore.NUM_OF_COUNTS;
+	/** Int column of the zip code id. */
+	static final int ZIP_ID = EPOCH_DAY + 1;
+	/** Int column of the borough id. */
+	static final int BOROUGH_ID = EPOCH_DAY + 2;
+	/** Int column of the vehicle 1 code id. */
+	static final int VEHICLE_CODE_1_ID = EPOCH_DAY + 3;
+	/** Int column of the vehicle 2 code id. */
+	static final int VEHICLE_CODE_2_ID = EPOCH_DAY + 4;
+	/** Number of int columns. */
+	static final int NUM_OF_INT_COLUMNS = EPOCH_DAY + 5;
+
+	//number of rows copied at a time by the default write and read methods
+	private static final int CHUNK_SIZE = 1 << 14;
+
+	/**
+	 * Makes room for a given number of rows.
+	 * @param numOfRows the number of rows that have to fit
+	 */
+	abstract void ensureCapacity ( int numOfRows );
+
+	/**
+	 * Returns the value of an int column in a given row.
+	 * @param column the column (a count column, EPOCH_DAY or one of the id columns)
+	 * @param row the row number
+	 * @return the value
+	 */
+	abstract int getInt ( int column, int row );
+
+	/**
+	 * Sets the value of an int column in a given row.
+	 * @param column the column
+	 * @param row the row number
+	 * @param value the value
+	 */
+	abstract void setInt ( int column, int row, int value );
+
+	/**
+	 * Returns the minute of the day of a given row.
+	 * @param row the row number
+	 * @return the minute of the day or CollisionStore.NO_TIME
+	 */
+	abstract int getMinuteOfDay ( int row );
+
+	/**
+	 * Sets the minute of the day of a given row.
+	 * @param row the row number
+	 * @param minute the minute of the day or CollisionStore.NO_TIME
+	 */
+	abstract void setMinuteOfDay ( int row, int minute );
+
+	/**
+	 * Returns the encoded unique key of a given row (see CollisionStore).
+	 * @param row the row number
+	 * @return the encoded key
+	 */
+	abstract long getUniqueKey ( int row );
+
+	/**
+	 * Sets the encoded unique key of a given row.
+	 * @param row the row number
+	 * @param key the encoded key
+	 */
+	abstract void setUniqueKey ( int row, long key );
+
+	/**
+	 * Determines if any row has a known location.
+	 * @return true if a location other than NaN has been stored
+	 */
+	abstract boolean hasLocations ( );
+
+	/**
+	 * Returns the latitude of a given row.
+	 * @param row the row number
+	 * @return the latitude, or NaN if the location is not known
+	 */
+	abstract double getLatitude ( int row );
+
+	/**
+	 * Returns the longitude of a given row.
+	 * @param row the row number
+	 * @return the longitude, or NaN if the location is not known
+	 */
+	abstract double getLongitude ( int row );
+
+	/**
+	 * Sets the location of a given row. It has to be set for every row.
+	 * @param row the row number
+	 * @param latitude the latitude, or NaN if the location is not known
+	 * @param longitude the longitude, or NaN if the location is not known
+	 */
+	abstract void setLocation ( int row, double latitude, double longitude );
+
+	/**
+	 * Releases the resources held outside the heap. The records must not be used
+	 * after they have been closed. Records on the heap hold no such resources.
+	 * @throws IOException if a resource cannot be released
+	 */
+	void close ( ) throws IOException {
+	}
+
+	/**
+	 * Writes the first size rows to a snapshot, one column after another: the
+	 * counts, the minute of the day, the epoch day, the ids, the unique key and,
+	 * if any row has a location, the latitude and longitude. The rows are copied
+	 * in chunks through arrays.
+	 * @param out the snapshot
+	 * @param size the number of rows
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	void write ( SnapshotOutput out, int size ) throws IOException {
+		int [] ints = new int [Math.min(size, CHUNK_SIZE)];
+		for (int column = 0; column < NUM_OF_INT_COLUMNS; column++) {
+			if (column == EPOCH_DAY) {
+				short [] shorts = new short [ints.length];
+				for (int start = 0; start < size; start += CHUNK_SIZE) {
+					int n = Math.min(CHUNK_SIZE, size - start);
+					for (int i = 0; i < n; i++) {
+						shorts[i] = (short) getMinuteOfDay(start + i);
+					}
+					out.writeShorts(shorts, n);
+				}
+			}
+			for (int start = 0; start < size; start += CHUNK_SIZE) {
+				int n = Math.min(CHUNK_SIZE, size - start);
+				for (int i = 0; i < n; i++) {
+					ints[i] = getInt(column, start + i);
+				}
+				out.writeInts(ints, n);
+			}
+		}
+		long [] longs = new long [ints.length];
+		for (int start = 0; start < size; start += CHUNK_SIZE) {
+			int n = Math.min(CHUNK_SIZE, size - start);
+			for (int i = 0; i < n; i++) {
+				longs[i] = getUniqueKey(start + i);
+			}
+			out.writeLongs(longs, n);
+		}
+		out.writeInt(hasLocations() ? 1 : 0);
+		if (hasLocations()) {
+			double [] doubles = new double [ints.length];
+			for (int coordinate = 0; coordinate < 2; coordinate++) {
+				for (int start = 0; start < size; start += CHUNK_SIZE) {
+					int n = Math.min(CHUNK_SIZE, size - start);
+					for (int i = 0; i < n; i++) {
+						doubles[i] = (coordinate == 0) ? getLatitude(start + i) : getLongitude(start + i);
+					}
+					out.writeDoubles(doubles, n);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads size rows written by write(SnapshotOutput, int) into these records,
+	 * which have to be empty. The rows are copied in chunks through arrays.
+	 * @param in the snapshot
+	 * @param size the number of rows
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	void read ( SnapshotInput in, int size ) throws IOException {
+		ensureCapacity(size);
+		for (int column = 0; column < NUM_OF_INT_COLUMNS; column++) {
+			if (column == EPOCH_DAY) {
+				for (int start = 0; start < size; start += CHUNK_SIZE) {
+					int n = Math.min(CHUNK_SIZE, size - start);
+					short [] shorts = in.readShorts(n, n);
+					for (int i = 0; i < n; i++) {
+						setMinuteOfDay(start + i, shorts[i]);
+					}
+				}
+			}
+			for (int start = 0; start < size; start += CHUNK_SIZE) {
+				int n = Math.min(CHUNK_SIZE, size - start);
+				int [] ints = in.readInts(n, n);
+				for (int i = 0; i < n; i++) {
+					setInt(column, start + i, ints[i]);
+				}
+			}
+		}
+		for (int start = 0; start < size; start += CHUNK_SIZE) {
+			int n = Math.min(CHUNK_SIZE, size - start);
+			long [] longs = in.readLongs(n, n);
+			for (int i = 0; i < n; i++) {
+				setUniqueKey(start + i, longs[i]);
+			}
+		}
+		if (in.readInt() != 0) {
+			for (int start = 0; start < size; start += CHUNK_SIZE) {
+				int n = Math.min(CHUNK_SIZE, size - start);
+				double [] latitudes = in.readDoubles(n, n);
+				for (int i = 0; i < n; i++) {
+					setLocation(start + i, latitudes[i], Double.NaN);
+				}
+			}
+			for (int start = 0; start < size; start += CHUNK_SIZE) {
+				int n = Math.min(CHUNK_SIZE, size - start);
+				double [] longitudes = in.readDoubles(n, n);
+				for (int i = 0; i < n; i++) {
+					setLocation(start + i, getLatitude(start + i), longitudes[i]);
+				}
+			}
+		}
+		else {
+			for (int row = 0; row < size; row++) {
+				setLocation(row, Double.NaN, Double.NaN);
+			}
+		}
+	}
+}
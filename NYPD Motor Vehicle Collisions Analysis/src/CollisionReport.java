@@ -0,0 +1,118 @@
+
+
+import java.io.IOException;
+
+/**
+ * CollisionReport is implemented by reports computed over the collisions stored in a 
+ * CollisionList object. A report is fed the data by a ReportExecutor object, which 
+ * computes any number of reports in a single pass over the data: reports that can be 
+ * computed from running totals are given those (see addAggregates()), for all other 
+ * reports every zip code list is passed to addZipCode() and, if the report needs 
+ * them, the individual collisions of that zip code are passed to addCollision(). 
+ * A report that can be split (see newPartial()) can also be computed on several 
+ * threads: each thread feeds a part of the collisions to its own partial report and 
+ * the partial reports are then merged into the original one (see merge()). 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public interface CollisionReport {
+	
+	/**
+	 * Offers the running totals of the collisions to this report. A report that can 
+	 * be computed from the totals alone takes what it needs and returns true, in 
+	 * which case it is not passed any zip code lists or collisions. 
+	 * @param aggregates the running totals of all collisions 
+	 * @return true if the report has been computed from aggregates, false otherwise 
+	 */
+	default boolean addAggregates ( CollisionAggregates aggregates ) {
+		return false;
+	}
+	
+	/**
+	 * Determines if this report needs to see every collision or only the totals 
+	 * of the zip code lists. 
+	 * @return true if addCollision() should be called for every collision 
+	 */
+	boolean needsCollisions ( );
+	
+	/**
+	 * Adds a zip code list to this report. Called once for every zip code, before 
+	 * the collisions of that zip code are added. If the collisions are split across 
+	 * partial reports (see newPartial()), the collisions of a zip code can also be 
+	 * added to partial reports that are not passed the zip code list. 
+	 * @param zipList the zip code list 
+	 */
+	void addZipCode ( ZipCodeList zipList );
+	
+	/**
+	 * Adds a single collision to this report. Called only if needsCollisions() 
+	 * returns true. 
+	 * @param store the store that holds the collision 
+	 * @param row the row of the store at which the collision is stored 
+	 */
+	void addCollision ( CollisionStore store, int row );
+	
+	/**
+	 * Creates an empty report of the same kind and with the same settings as this 
+	 * report. The new report is fed a part of the data, possibly on another thread, 
+	 * and then merged into this report (see merge()). This method may be called by 
+	 * several threads at once. Reports that return null are never split, so a 
+	 * ReportExecutor object computes them on a single thread. 
+	 * @return the new report, or null if this report cannot be split 
+	 */
+	default CollisionReport newPartial ( ) {
+		return null;
+	}
+	
+	/**
+	 * Adds the data fed to another report to this report, as if it had been fed to 
+	 * this report after its own data. 
+	 * @param partial a report created by newPartial() of this report (or of a 
+	 * report created by it) 
+	 * @throws UnsupportedOperationException if this report cannot be split 
+	 */
+	default void merge ( CollisionReport partial ) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException ("Error: report cannot be merged. ");
+	}
+	
+	/**
+	 * Determines if the result of this report, once computed, is changed by a 
+	 * collision that has been added to the collisions over which it was computed. 
+	 * Cached results are dropped only if this method returns true (see 
+	 * ReportCache). The default implementation assumes that every collision 
+	 * changes the result. 
+	 * @param zipList the zip code list to which the collision has been added 
+	 * @param store the store that holds the collision 
+	 * @param row the row at which the collision is stored 
+	 * @return true if the result may have changed, false if it is certainly the same 
+	 */
+	default boolean isAffectedBy ( ZipCodeList zipList, CollisionStore store, int row ) {
+		return true;
+	}
+	
+	/**
+	 * Returns the result of this report, after all the data has been added. 
+	 * @return a string containing the results of the report 
+	 */
+	String getResult ( );
+	
+	/**
+	 * Writes the result of this report, after all the data has been added, in a 
+	 * given format. The built-in reports write the text format piece by piece 
+	 * instead of building a string first, and also support the CSV and JSON 
+	 * formats; their results are also available as numbers from methods of the 
+	 * reports themselves. The default implementation writes getResult() in the 
+	 * text format and supports no other format. 
+	 * @param format the format 
+	 * @param out the destination 
+	 * @throws IOException if out cannot be written 
+	 * @throws UnsupportedOperationException if the report cannot be written in format 
+	 */
+	default void render ( ReportFormat format, Appendable out ) 
+			throws IOException, UnsupportedOperationException {
+		if (format != ReportFormat.TEXT)
+			throw new UnsupportedOperationException ("Error: report cannot be written as " + format + ". ");
+		out.append(getResult());
+	}
+}
@@ -0,0 +1,744 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CollisionStore keeps collision records as fixed-width primitive values instead of
+ * one object per collision, and a collision is identified by its row number. The
+ * injury and fatality counts are stored as ints, the time as a minute-of-day short,
+ * the date as an epoch-day int, and the zip code, borough and vehicle codes as
+ * integer ids assigned by StringDictionary objects. Numeric unique keys are stored
+ * as longs, and the latitude and longitude as doubles. Dates and times that are not
+ * in the usual MM/DD/YYYY and H:MM format are kept as strings next to the values,
+ * so the original entries can always be reproduced.
+ * The fixed-width values are kept by a CollisionRecords object: by default in one
+ * primitive array per attribute (a column) on the heap, or, for data sets larger
+ * than the heap, in a memory-mapped file outside the heap (see offHeap()). Either
+ * way, reading a value does not create any object.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionStore {
+
+	/** Column of the number of injured persons. */
+	public static final int PERSONS_INJURED = 0;
+	/** Column of the number of killed persons. */
+	public static final int PERSONS_KILLED = 1;
+	/** Column of the number of injured pedestrians. */
+	public static final int PEDESTRIANS_INJURED = 2;
+	/** Column of the number of killed pedestrians. */
+	public static final int PEDESTRIANS_KILLED = 3;
+	/** Column of the number of injured cyclists. */
+	public static final int CYCLISTS_INJURED = 4;
+	/** Column of the number of killed cyclists. */
+	public static final int CYCLISTS_KILLED = 5;
+	/** Column of the number of injured motorists. */
+	public static final int MOTORISTS_INJURED = 6;
+	/** Column of the number of killed motorists. */
+	public static final int MOTORISTS_KILLED = 7;
+	/** Number of count columns. */
+	public static final int NUM_OF_COUNTS = 8;
+
+	/** Value of the minute-of-day column for times that could not be parsed. */
+	public static final int NO_TIME = -1;
+	/** Value of the epoch-day column for dates that could not be parsed. */
+	public static final int NO_DATE = Integer.MIN_VALUE;
+	/** Value returned by findUniqueKey() for keys that no row holds. */
+	static final long UNKNOWN_KEY = Long.MIN_VALUE;
+	/** First year of a valid date; earlier dates are treated as mistyped. */
+	public static final int FIRST_YEAR = 1900;
+	/**
+	 * Last year of a valid date; later dates are treated as mistyped. The bound is
+	 * fixed, so that the same input is always parsed the same way.
+	 */
+	public static final int LAST_YEAR = 2099;
+
+	//times in the H:MM format, indexed by minute of the day
+	private static final String [] TIMES = new String [24 * 60];
+	static {
+		for (int i = 0; i < TIMES.length; i++) {
+			TIMES[i] = String.format("%d:%02d", i / 60, i % 60);
+		}
+	}
+
+	private int size;
+
+	//fixed-width values of the rows; unique keys that are non-negative are numeric
+	//keys, negative values -(id+1) refer to otherKeys
+	private CollisionRecords records;
+
+	private StringDictionary zips;
+	private StringDictionary boroughs;
+	private StringDictionary vehicleCodes;
+	private StringDictionary otherKeys;
+
+	//original entries of the rows whose date or time is not in the usual format
+	private HashMap<Integer, String> otherDates;
+	private HashMap<Integer, String> otherTimes;
+
+	/**
+	 * Creates an empty CollisionStore object that keeps its rows on the heap.
+	 */
+	public CollisionStore() {
+		this(new HeapCollisionRecords());
+	}
+
+	/*
+	 * Creates an empty CollisionStore object that keeps its rows in given records.
+	 */
+	private CollisionStore ( CollisionRecords records ) {
+		this.records = records;
+
+		zips = new StringDictionary();
+		boroughs = new StringDictionary();
+		vehicleCodes = new StringDictionary();
+		otherKeys = new StringDictionary();
+
+		otherDates = new HashMap<Integer, String> ();
+		otherTimes = new HashMap<Integer, String> ();
+	}
+
+	/**
+	 * Creates an empty CollisionStore object that keeps the fixed-width values of its
+	 * rows outside the heap, as records in a memory-mapped scratch file (see
+	 * MappedCollisionRecords). The dictionaries and the entries in unusual formats
+	 * are still kept on the heap. The scratch file is deleted right after it has been
+	 * created; close() releases it.
+	 * @param directory the directory in which the scratch file is created, or null
+	 * for the default temporary directory
+	 * @return the new store
+	 * @throws IOException if the scratch file cannot be created
+	 */
+	public static CollisionStore offHeap ( File directory ) throws IOException {
+		return new CollisionStore(new MappedCollisionRecords(directory));
+	}
+
+	/**
+	 * Appends a collision to this CollisionStore object.
+	 * @param col the collision to be stored
+	 * @return the row number of the stored collision
+	 */
+	public int add ( Collision col ) {
+		int row = newRow();
+
+		records.setInt(PERSONS_INJURED, row, col.getPersonsInjured());
+		records.setInt(PERSONS_KILLED, row, col.getPersonsKilled());
+		records.setInt(PEDESTRIANS_INJURED, row, col.getPedestriansInjured());
+		records.setInt(PEDESTRIANS_KILLED, row, col.getPedestriansKilled());
+		records.setInt(CYCLISTS_INJURED, row, col.getCyclistsInjured());
+		records.setInt(CYCLISTS_KILLED, row, col.getCyclistsKilled());
+		records.setInt(MOTORISTS_INJURED, row, col.getMotoristsInjured());
+		records.setInt(MOTORISTS_KILLED, row, col.getMotoristsKilled());
+
+		setDate(row, col.getDate(), col.getEpochDay());
+		setTime(row, col.getTime(), col.getMinuteOfDay());
+		records.setInt(CollisionRecords.ZIP_ID, row, zips.encode(col.getZip()));
+		records.setInt(CollisionRecords.BOROUGH_ID, row, boroughs.encode(col.getBorough()));
+		records.setInt(CollisionRecords.VEHICLE_CODE_1_ID, row, vehicleCodes.encode(col.getVehicleCode1()));
+		records.setInt(CollisionRecords.VEHICLE_CODE_2_ID, row, vehicleCodes.encode(col.getVehicleCode2()));
+		setUniqueKey(row, col.getUniqueKey());
+		records.setLocation(row, col.getLatitude(), col.getLongitude());
+
+		return row;
+	}
+
+	/**
+	 * Appends a copy of a row stored in another CollisionStore object.
+	 * @param other the store containing the row
+	 * @param otherRow the row to be copied
+	 * @return the row number of the copy in this CollisionStore object
+	 */
+	public int add ( CollisionStore other, int otherRow ) {
+		long key = other.records.getUniqueKey(otherRow);
+		return copy(other, otherRow, zips.encode(other.getZip(otherRow)),
+				boroughs.encode(other.getBorough(otherRow)),
+				vehicleCodes.encode(other.getVehicleCode1(otherRow)),
+				vehicleCodes.encode(other.getVehicleCode2(otherRow)),
+				(key >= 0) ? key : -(otherKeys.encode(other.otherKeys.decode((int) (-key - 1))) + 1));
+	}
+
+	/**
+	 * Creates a RowCopier object that appends copies of rows of another
+	 * CollisionStore object to this one. Copying many rows with it is faster than
+	 * calling add(CollisionStore, int) for each row.
+	 * @param other the store containing the rows
+	 * @return the new RowCopier object
+	 */
+	RowCopier newCopier ( CollisionStore other ) {
+		return new RowCopier(other);
+	}
+
+	/**
+	 * RowCopier appends copies of rows of another CollisionStore object to this one.
+	 * The dictionary ids of the other store are translated through id tables that
+	 * are filled as the ids are met, so every distinct string is encoded once per
+	 * copier instead of once per row. The other store must not gain new strings
+	 * while the copier is used.
+	 */
+	class RowCopier {
+
+		private CollisionStore other;
+		//ids in this store of the ids in other, or -1 if not translated yet
+		private int [] zipIds;
+		private int [] boroughIds;
+		private int [] vehicleCodeIds;
+		private int [] otherKeyIds;
+
+		private RowCopier ( CollisionStore other ) {
+			this.other = other;
+			zipIds = newIdTable(other.zips);
+			boroughIds = newIdTable(other.boroughs);
+			vehicleCodeIds = newIdTable(other.vehicleCodes);
+			otherKeyIds = newIdTable(other.otherKeys);
+		}
+
+		/**
+		 * Appends a copy of a row of the other store.
+		 * @param otherRow the row to be copied
+		 * @return the row number of the copy
+		 */
+		int add ( int otherRow ) {
+			CollisionRecords from = other.records;
+			long key = from.getUniqueKey(otherRow);
+			return copy(other, otherRow,
+					translate(zipIds, other.zips, zips, from.getInt(CollisionRecords.ZIP_ID, otherRow)),
+					translate(boroughIds, other.boroughs, boroughs,
+							from.getInt(CollisionRecords.BOROUGH_ID, otherRow)),
+					translate(vehicleCodeIds, other.vehicleCodes, vehicleCodes,
+							from.getInt(CollisionRecords.VEHICLE_CODE_1_ID, otherRow)),
+					translate(vehicleCodeIds, other.vehicleCodes, vehicleCodes,
+							from.getInt(CollisionRecords.VEHICLE_CODE_2_ID, otherRow)),
+					(key >= 0) ? key
+							: -(translate(otherKeyIds, other.otherKeys, otherKeys, (int) (-key - 1)) + 1));
+		}
+	}
+
+	/*
+	 * Creates a table of translated ids for a dictionary, with no id translated yet.
+	 */
+	private static int [] newIdTable ( StringDictionary dictionary ) {
+		int [] table = new int [dictionary.size()];
+		Arrays.fill(table, -1);
+		return table;
+	}
+
+	/*
+	 * Returns the id in dictionary to of the string with a given id in dictionary
+	 * from, encoding the string only the first time the id is met.
+	 */
+	private static int translate ( int [] table, StringDictionary from, StringDictionary to, int id ) {
+		if (table[id] < 0) {
+			table[id] = to.encode(from.decode(id));
+		}
+		return table[id];
+	}
+
+	/*
+	 * Appends a copy of a row of another store whose dictionary ids and unique key
+	 * have already been translated to this store.
+	 */
+	private int copy ( CollisionStore other, int otherRow, int zipId, int boroughId,
+			int vehicleCode1Id, int vehicleCode2Id, long key ) {
+		int row = newRow();
+
+		for (int i = 0; i < NUM_OF_COUNTS; i++) {
+			records.setInt(i, row, other.getCount(i, otherRow));
+		}
+		records.setMinuteOfDay(row, other.getMinuteOfDay(otherRow));
+		records.setInt(CollisionRecords.EPOCH_DAY, row, other.getEpochDay(otherRow));
+		records.setInt(CollisionRecords.ZIP_ID, row, zipId);
+		records.setInt(CollisionRecords.BOROUGH_ID, row, boroughId);
+		records.setInt(CollisionRecords.VEHICLE_CODE_1_ID, row, vehicleCode1Id);
+		records.setInt(CollisionRecords.VEHICLE_CODE_2_ID, row, vehicleCode2Id);
+		records.setUniqueKey(row, key);
+		records.setLocation(row, other.getLatitude(otherRow), other.getLongitude(otherRow));
+
+		if (!other.otherDates.isEmpty() && other.otherDates.containsKey(otherRow)) {
+			otherDates.put(row, other.otherDates.get(otherRow));
+		}
+		if (!other.otherTimes.isEmpty() && other.otherTimes.containsKey(otherRow)) {
+			otherTimes.put(row, other.otherTimes.get(otherRow));
+		}
+
+		return row;
+	}
+
+	/**
+	 * Releases the scratch file of a store created by offHeap(); does nothing for a
+	 * store on the heap. The store must not be used after it has been closed.
+	 * @throws IOException if the scratch file cannot be closed
+	 */
+	public void close ( ) throws IOException {
+		records.close();
+	}
+
+	/*
+	 * Reserves the next row, growing the records if necessary.
+	 */
+	private int newRow ( ) {
+		records.ensureCapacity(size + 1);
+		return size++;
+	}
+
+	/**
+	 * Writes the columns and dictionaries of this CollisionStore object to a snapshot.
+	 * @param out the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	void write ( SnapshotOutput out ) throws IOException {
+		out.writeInt(size);
+		records.write(out, size);
+
+		zips.write(out);
+		boroughs.write(out);
+		vehicleCodes.write(out);
+		otherKeys.write(out);
+		writeEntries(out, otherDates);
+		writeEntries(out, otherTimes);
+	}
+
+	/*
+	 * Writes the rows and the entries of a map of original entries.
+	 */
+	private static void writeEntries ( SnapshotOutput out, HashMap<Integer, String> entries )
+			throws IOException {
+		int [] rows = new int [entries.size()];
+		ArrayList<String> values = new ArrayList<String> (entries.size());
+		for (Map.Entry<Integer, String> entry : entries.entrySet()) {
+			rows[values.size()] = entry.getKey();
+			values.add(entry.getValue());
+		}
+		out.writeInt(rows.length);
+		out.writeInts(rows, rows.length);
+		out.writeStrings(values);
+	}
+
+	/**
+	 * Reads the rows written by write(SnapshotOutput) into an empty CollisionStore
+	 * object.
+	 * @param in the snapshot
+	 * @param store the empty store, on or off the heap
+	 * @return the store
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	static CollisionStore read ( SnapshotInput in, CollisionStore store ) throws IOException {
+		int size = in.readLength();
+		store.records.read(in, size);
+		store.size = size;
+
+		store.zips = StringDictionary.read(in);
+		store.boroughs = StringDictionary.read(in);
+		store.vehicleCodes = StringDictionary.read(in);
+		store.otherKeys = StringDictionary.read(in);
+		readEntries(in, store.otherDates, size);
+		readEntries(in, store.otherTimes, size);
+		return store;
+	}
+
+	/*
+	 * Reads a map of original entries written by writeEntries.
+	 */
+	private static void readEntries ( SnapshotInput in, HashMap<Integer, String> entries,
+			int size ) throws IOException {
+		int n = in.readLength();
+		int [] rows = in.readInts(n, n);
+		ArrayList<String> values = in.readStrings();
+		if (values.size() != n)
+			throw new IOException("Corrupted snapshot: entries do not match their rows");
+		for (int i = 0; i < n; i++) {
+			if (rows[i] < 0 || rows[i] >= size)
+				throw new IOException("Corrupted snapshot: row out of range");
+			entries.put(rows[i], values.get(i));
+		}
+	}
+
+	/*
+	 * Stores the date entry of a row and its parsed value. Dates in the MM/DD/YYYY
+	 * format are stored only in the epoch-day column.
+	 */
+	private void setDate ( int row, String date, int day ) {
+		records.setInt(CollisionRecords.EPOCH_DAY, row, day);
+		boolean usual = day != NO_DATE && date.length() == 10
+				&& date.charAt(2) == '/' && date.charAt(5) == '/';
+		for (int i = 0; usual && i < date.length(); i++) {
+			usual = (i == 2 || i == 5 || (date.charAt(i) >= '0' && date.charAt(i) <= '9'));
+		}
+		if (!usual && !(day == NO_DATE && date.isEmpty())) {
+			otherDates.put(row, date);
+		}
+	}
+
+	/*
+	 * Stores the time entry of a row and its parsed value. Times in the H:MM format
+	 * are stored only in the minute-of-day column.
+	 */
+	private void setTime ( int row, String time, int minute ) {
+		records.setMinuteOfDay(row, minute);
+		if (!(minute == NO_TIME ? time.isEmpty() : TIMES[minute].equals(time))) {
+			otherTimes.put(row, time);
+		}
+	}
+
+	/*
+	 * Stores the unique key of a row. Keys that are decimal numbers without leading
+	 * zeros are stored as numbers, all other keys are encoded in a dictionary.
+	 */
+	private void setUniqueKey ( int row, String key ) {
+		long value = parseNumericKey(key);
+		records.setUniqueKey(row, (value >= 0) ? value : -(otherKeys.encode(key) + 1));
+	}
+
+	/**
+	 * Returns the value in which a unique key is stored, without adding the key to
+	 * the dictionary of keys that are not numbers, so that it can be compared with
+	 * the stored values (see getStoredUniqueKey()).
+	 * @param key the unique key
+	 * @return the stored value, or UNKNOWN_KEY if no row holds the key
+	 */
+	long findUniqueKey ( String key ) {
+		long value = parseNumericKey(key);
+		if (value >= 0)
+			return value;
+		int id = otherKeys.lookup(key);
+		return (id < 0) ? UNKNOWN_KEY : -(id + 1);
+	}
+
+	/**
+	 * Returns the value in which the unique key of a given row is stored: the key
+	 * itself if it is a number, a negative value for any other key.
+	 * @param row the row number
+	 * @return the stored value
+	 */
+	long getStoredUniqueKey ( int row ) {
+		return records.getUniqueKey(row);
+	}
+
+	/**
+	 * Parses a unique key that is a decimal number without leading zeros (and at
+	 * most 18 digits long), which is how the keys of the data are formed.
+	 * @param key the unique key entry
+	 * @return the number, or -1 if the key is not such a number
+	 */
+	static long parseNumericKey ( String key ) {
+		if (key.length() == 0 || key.length() > 18 || (key.charAt(0) == '0' && key.length() > 1))
+			return -1;
+		long value = 0;
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Parses a time entry in the H:MM format (the hour is the part before the colon,
+	 * followed by exactly two digits of minutes).
+	 * @param time the time entry
+	 * @return the minute of the day, or NO_TIME if the hour is not between 0 and 23
+	 * or the minutes are not two digits between 00 and 59
+	 */
+	static int parseMinuteOfDay ( String time ) {
+		int colon = time.indexOf(':');
+		if (colon < 0)
+			return NO_TIME;
+		//the hour is parsed like Integer.parseInt(time.substring(0, colon).trim())
+		int start = 0;
+		int end = colon;
+		while (start < end && time.charAt(start) <= ' ') start++;
+		while (end > start && time.charAt(end - 1) <= ' ') end--;
+		boolean negative = false;
+		if (start < end && (time.charAt(start) == '-' || time.charAt(start) == '+')) {
+			negative = time.charAt(start) == '-';
+			start++;
+		}
+		int hour = parseDigits(time, start, end);
+		if (hour < 0 || hour > 23 || (negative && hour != 0))
+			return NO_TIME;
+		if (time.length() != colon + 3)
+			return NO_TIME;
+		int minute = parseDigits(time, colon + 1, colon + 3);
+		if (minute < 0 || minute > 59)
+			return NO_TIME;
+		return hour * 60 + minute;
+	}
+
+	/**
+	 * Parses a date entry in the MM/DD/YYYY format.
+	 * @param date the date entry
+	 * @return the number of days since 01/01/1970, or NO_DATE if the date is not valid
+	 * or its year is not between FIRST_YEAR and LAST_YEAR, so that a single mistyped
+	 * year does not stretch the monthly counts over centuries
+	 */
+	static int parseEpochDay ( String date ) {
+		int first = date.indexOf('/');
+		int second = date.indexOf('/', first + 1);
+		if (first < 0 || second < 0)
+			return NO_DATE;
+		int month = parseDigits(date, 0, first);
+		int day = parseDigits(date, first + 1, second);
+		int year = parseDigits(date, second + 1, date.length());
+		if (month < 1 || month > 12 || day < 1 || year < FIRST_YEAR || year > LAST_YEAR
+				|| day > daysInMonth(year, month))
+			return NO_DATE;
+
+		//days from the civil calendar, shifted so that the year starts in March
+		int y = (month <= 2) ? year - 1 : year;
+		int era = y / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	/*
+	 * Parses the digits in [start, end) of s; returns -1 if there are none, if any
+	 * other character is found or if the number has more than 9 digits.
+	 */
+	private static int parseDigits ( String s, int start, int end ) {
+		if (start >= end || end - start > 9)
+			return -1;
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/*
+	 * Returns the number of days in a month of the Gregorian calendar.
+	 */
+	private static int daysInMonth ( int year, int month ) {
+		if (month == 2) {
+			boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			return leap ? 29 : 28;
+		}
+		return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+	}
+
+	/**
+	 * Returns the number of rows in this CollisionStore object.
+	 * @return the number of stored collisions
+	 */
+	public int size ( ) {
+		return size;
+	}
+
+	/**
+	 * Returns a count of a given row.
+	 * @param column one of the count columns (PERSONS_INJURED to MOTORISTS_KILLED)
+	 * @param row the row number
+	 * @return the value of the count
+	 */
+	public int getCount ( int column, int row ) {
+		return records.getInt(column, row);
+	}
+
+	/**
+	 * Returns the minute of the day at which the collision in a given row occurred.
+	 * @param row the row number
+	 * @return the minute of the day, or NO_TIME if the time entry was not valid
+	 */
+	public int getMinuteOfDay ( int row ) {
+		return records.getMinuteOfDay(row);
+	}
+
+	/**
+	 * Returns the day (counted from 01/01/1970) on which the collision in a given row
+	 * occurred.
+	 * @param row the row number
+	 * @return the epoch day, or NO_DATE if the date entry was not valid
+	 */
+	public int getEpochDay ( int row ) {
+		return records.getInt(CollisionRecords.EPOCH_DAY, row);
+	}
+
+	/**
+	 * Determines if any row of this CollisionStore object has a known location.
+	 * @return true if a location has been stored, false otherwise
+	 */
+	public boolean hasLocations ( ) {
+		return records.hasLocations();
+	}
+
+	/**
+	 * Returns the latitude of the collision in a given row.
+	 * @param row the row number
+	 * @return the latitude in degrees, or NaN if the location is not known
+	 */
+	public double getLatitude ( int row ) {
+		return records.getLatitude(row);
+	}
+
+	/**
+	 * Returns the longitude of the collision in a given row.
+	 * @param row the row number
+	 * @return the longitude in degrees, or NaN if the location is not known
+	 */
+	public double getLongitude ( int row ) {
+		return records.getLongitude(row);
+	}
+
+	/**
+	 * Returns the id of the zip code of a given row (see getZips()).
+	 * @param row the row number
+	 * @return the zip code id
+	 */
+	public int getZipId ( int row ) {
+		return records.getInt(CollisionRecords.ZIP_ID, row);
+	}
+
+	/**
+	 * Returns the id of the borough of a given row (see getBoroughs()).
+	 * @param row the row number
+	 * @return the borough id
+	 */
+	public int getBoroughId ( int row ) {
+		return records.getInt(CollisionRecords.BOROUGH_ID, row);
+	}
+
+	/**
+	 * Returns the id of the vehicle 1 code of a given row (see getVehicleCodes()).
+	 * @param row the row number
+	 * @return the vehicle 1 code id
+	 */
+	public int getVehicleCode1Id ( int row ) {
+		return records.getInt(CollisionRecords.VEHICLE_CODE_1_ID, row);
+	}
+
+	/**
+	 * Returns the id of the vehicle 2 code of a given row (see getVehicleCodes()).
+	 * @param row the row number
+	 * @return the vehicle 2 code id
+	 */
+	public int getVehicleCode2Id ( int row ) {
+		return records.getInt(CollisionRecords.VEHICLE_CODE_2_ID, row);
+	}
+
+	/**
+	 * Returns the date entry of a given row.
+	 * @param row the row number
+	 * @return the date
+	 */
+	public String getDate ( int row ) {
+		if (!otherDates.isEmpty()) {
+			String date = otherDates.get(row);
+			if (date != null) return date;
+		}
+		int day = getEpochDay(row);
+		if (day == NO_DATE)
+			return "";
+		int [] ymd = civilFromDays(day);
+		return String.format("%02d/%02d/%04d", ymd[1], ymd[2], ymd[0]);
+	}
+
+	/*
+	 * Converts an epoch day to {year, month, day}.
+	 */
+	static int [] civilFromDays ( int days ) {
+		int z = days + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return new int [] {year, month, day};
+	}
+
+	/**
+	 * Returns the time entry of a given row.
+	 * @param row the row number
+	 * @return the time
+	 */
+	public String getTime ( int row ) {
+		if (!otherTimes.isEmpty()) {
+			String time = otherTimes.get(row);
+			if (time != null) return time;
+		}
+		int minute = getMinuteOfDay(row);
+		return (minute == NO_TIME) ? "" : TIMES[minute];
+	}
+
+	/**
+	 * Returns the zip code of a given row.
+	 * @param row the row number
+	 * @return the zip code
+	 */
+	public String getZip ( int row ) {
+		return zips.decode(getZipId(row));
+	}
+
+	/**
+	 * Returns the borough of a given row.
+	 * @param row the row number
+	 * @return the borough
+	 */
+	public String getBorough ( int row ) {
+		return boroughs.decode(getBoroughId(row));
+	}
+
+	/**
+	 * Returns the vehicle 1 entry of a given row.
+	 * @param row the row number
+	 * @return the vehicle 1 code
+	 */
+	public String getVehicleCode1 ( int row ) {
+		return vehicleCodes.decode(getVehicleCode1Id(row));
+	}
+
+	/**
+	 * Returns the vehicle 2 entry of a given row.
+	 * @param row the row number
+	 * @return the vehicle 2 code
+	 */
+	public String getVehicleCode2 ( int row ) {
+		return vehicleCodes.decode(getVehicleCode2Id(row));
+	}
+
+	/**
+	 * Returns the unique key of a given row.
+	 * @param row the row number
+	 * @return the unique key
+	 */
+	public String getUniqueKey ( int row ) {
+		long key = records.getUniqueKey(row);
+		return (key >= 0) ? Long.toString(key) : otherKeys.decode((int) (-key - 1));
+	}
+
+	/**
+	 * Returns the dictionary of zip codes used by this CollisionStore object.
+	 * @return the zip code dictionary
+	 */
+	public StringDictionary getZips ( ) {
+		return zips;
+	}
+
+	/**
+	 * Returns the dictionary of boroughs used by this CollisionStore object.
+	 * @return the borough dictionary
+	 */
+	public StringDictionary getBoroughs ( ) {
+		return boroughs;
+	}
+
+	/**
+	 * Returns the dictionary of vehicle codes used by this CollisionStore object.
+	 * @return the vehicle code dictionary
+	 */
+	public StringDictionary getVehicleCodes ( ) {
+		return vehicleCodes;
+	}
+}
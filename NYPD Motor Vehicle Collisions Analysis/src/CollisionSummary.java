@@ -0,0 +1,245 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * CollisionSummary keeps the partial results of a CollisionList object that are
+ * needed by the predetermined reports: the totals of every zip code and the running
+ * totals of all collisions (hourly counts, vehicle type counts and so on), without
+ * the collisions themselves. Summaries of different parts of the data (for example,
+ * the collisions of different years processed on different machines) can be written
+ * to files, read back and merged. The reports computed over the merged summary are
+ * the same as the reports computed over a single CollisionList object holding all
+ * the collisions.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionSummary {
+
+	private ArrayList<ZipCodeList> list;
+
+	//index of the ZipCodeList objects stored in list keyed by their zip code
+	private HashMap<String, ZipCodeList> zipIndex;
+
+	private CollisionAggregates aggregates;
+	private int numOfRejectedRecords;
+
+	/**
+	 * Creates an empty CollisionSummary object.
+	 */
+	public CollisionSummary ( ) {
+		list = new ArrayList<ZipCodeList>();
+		zipIndex = new HashMap<String, ZipCodeList>();
+		aggregates = new CollisionAggregates();
+	}
+
+	/**
+	 * Creates a summary of the collisions stored in a CollisionList object. The
+	 * summary does not change when more collisions are added to collisions.
+	 * @param collisions the collisions to be summarized
+	 */
+	public CollisionSummary ( CollisionList collisions ) {
+		this();
+		for (ZipCodeList zipList : collisions.getZipCodeLists()) {
+			addZipCode(zipList.getTotals());
+		}
+		aggregates.addAll(collisions.getAggregates());
+		numOfRejectedRecords = collisions.getNumOfRejectedRecords();
+	}
+
+	/**
+	 * Adds another summary to this summary. Zip codes that are new to this summary
+	 * are appended in the order in which they appear in other.
+	 * @param other the summary to be added
+	 */
+	public void addAll ( CollisionSummary other ) {
+		for (ZipCodeList otherZipList : other.list) {
+			ZipCodeList zipList = zipIndex.get(otherZipList.getZip());
+			if (zipList == null) {
+				addZipCode(otherZipList.getTotals());
+			}
+			else {
+				zipList.addTotals(otherZipList);
+			}
+		}
+		aggregates.addAll(other.aggregates);
+		numOfRejectedRecords += other.numOfRejectedRecords;
+	}
+
+	/**
+	 * Adds to the number of rejected records, for records rejected before they
+	 * reached any summarized CollisionList object.
+	 * @param numOfRecords the number of rejected records
+	 */
+	void addRejectedRecords ( int numOfRecords ) {
+		numOfRejectedRecords += numOfRecords;
+	}
+
+	/*
+	 * Appends the totals of a zip code that is not in this summary yet.
+	 */
+	private void addZipCode ( ZipCodeList zipList ) {
+		list.add(zipList);
+		zipIndex.put(zipList.getZip(), zipList);
+	}
+
+	/**
+	 * Writes this summary to a file. The summary is written to a temporary file that
+	 * replaces file only when it is complete.
+	 * @param file the summary file
+	 * @throws IOException if the summary cannot be written
+	 */
+	public void write ( File file ) throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		try (SnapshotOutput out = new SnapshotOutput(tmp, SnapshotOutput.SUMMARY_MAGIC)) {
+			out.writeInt(list.size());
+			for (ZipCodeList zipList : list) {
+				zipList.writeSummary(out);
+			}
+			aggregates.write(out);
+			out.writeInt(numOfRejectedRecords);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a summary written by write(File).
+	 * @param file the summary file
+	 * @return the summary stored in the file
+	 * @throws IOException if the file cannot be read, is not a summary, or was
+	 * written in a format version that is not supported
+	 */
+	public static CollisionSummary read ( File file ) throws IOException {
+		CollisionSummary summary = new CollisionSummary();
+		try (SnapshotInput in = new SnapshotInput(file, SnapshotOutput.SUMMARY_MAGIC)) {
+			int numOfZipCodes = in.readLength();
+			for (int i = 0; i < numOfZipCodes; i++) {
+				ZipCodeList zipList = ZipCodeList.readSummary(in);
+				if (summary.zipIndex.containsKey(zipList.getZip()))
+					throw new IOException("Corrupted summary: zip code " + zipList.getZip() + " repeated");
+				summary.addZipCode(zipList);
+			}
+			summary.aggregates = CollisionAggregates.read(in, null);
+			summary.numOfRejectedRecords = in.readInt();
+		}
+		return summary;
+	}
+
+	/**
+	 * Returns the number of zip codes in this summary.
+	 * @return the number of zip codes
+	 */
+	public int getNumOfZipCodes ( ) {
+		return list.size();
+	}
+
+	/**
+	 * Returns the number of records that were rejected by the summarized
+	 * CollisionList objects.
+	 * @return the number of rejected records
+	 */
+	public int getNumOfRejectedRecords ( ) {
+		return numOfRejectedRecords;
+	}
+
+	/**
+	 * Returns the running totals of all summarized collisions.
+	 * @return the totals
+	 */
+	public CollisionAggregates getAggregates ( ) {
+		return aggregates;
+	}
+
+	/**
+	 * Returns the totals of every zip code, as ZipCodeList objects without
+	 * collisions, in the order in which the zip codes were added.
+	 * @return an unmodifiable view of the zip code lists
+	 */
+	public List<ZipCodeList> getZipCodeLists ( ) {
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Creates a ReportExecutor object that computes any number of reports over this
+	 * summary. Reports that need the individual collisions cannot be computed.
+	 * @return a new ReportExecutor object with no registered reports
+	 */
+	public ReportExecutor newReportExecutor ( ) {
+		return new ReportExecutor(this);
+	}
+
+	/*
+	 * Computes a single report over this summary.
+	 */
+	private String runReport ( CollisionReport report ) {
+		newReportExecutor().register(report).run();
+		return report.getResult();
+	}
+
+	/**
+	 * Determines k zip codes with most collisions (see
+	 * CollisionList.getZipCodesWithMostCollisions()).
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostCollisions ( int k ) {
+		return runReport(ZipCodeRankingReport.mostCollisions(k));
+	}
+
+	/**
+	 * Determines k zip codes with least collisions (see
+	 * CollisionList.getZipCodesWithLeastCollisions()).
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithLeastCollisions ( int k ) {
+		return runReport(ZipCodeRankingReport.leastCollisions(k));
+	}
+
+	/**
+	 * Determines k zip codes with most injured and killed cyclists (see
+	 * CollisionList.getZipCodesWithMostCyclistIncidents()).
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostCyclistIncidents ( int k ) {
+		return runReport(ZipCodeRankingReport.mostCyclistIncidents(k));
+	}
+
+	/**
+	 * Determines k zip codes with most injured and killed persons (see
+	 * CollisionList.getZipCodesWithMostPersonIncidents()).
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostPersonIncidents ( int k ) {
+		return runReport(ZipCodeRankingReport.mostPersonIncidents(k));
+	}
+
+	/**
+	 * Computes the percentage of collisions involving the default vehicle types (see
+	 * CollisionList.getVehicleTypeStats()).
+	 * @return a string containing the results of the computation
+	 */
+	public String getVehicleTypeStats ( ) {
+		return runReport(new VehicleTypeReport());
+	}
+
+	/**
+	 * Computes the fraction of collisions that occurred within every hour (see
+	 * CollisionList.getHourlyStats()).
+	 * @return a string containing the results of the computation
+	 */
+	public String getHourlyStats ( ) {
+		return runReport(new HourlyReport());
+	}
+}
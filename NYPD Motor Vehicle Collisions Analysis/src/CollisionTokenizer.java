@@ -0,0 +1,357 @@
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * CollisionTokenizer parses collision records directly from the bytes of a
+ * ByteBuffer (usually a MappedByteBuffer obtained from a FileChannel). Each line
+ * of the buffer is split into 21 entries according to commas (commas within
+ * double quotes are ignored, the quotes themselves are removed and the entries are
+ * trimmed), in exactly the same way as CollisionInfo.split does it.
+ * Unlike CollisionInfo.split, the tokenizer does not create any intermediate
+ * objects: the eight numeric entries are parsed straight from the bytes, the
+ * entries that are not used by Collision are skipped and only the entries stored
+ * in a Collision object are turned into strings. The latitude and longitude are
+ * parsed only if requested (see setParseLocations()).
+ * The buffer is assumed to use a character set in which the comma, the double
+ * quote, the digits and the white space characters are single bytes (for example
+ * UTF-8 or ISO-8859-1).
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CollisionTokenizer {
+
+	private static final int NUM_OF_ENTRIES = 21;
+
+	//indexes of the entries used by Collision (see the Collision constructor)
+	private static final int DATE = 0;
+	private static final int TIME = 1;
+	private static final int BOROUGH = 2;
+	private static final int ZIP = 3;
+	private static final int LATITUDE = 4;
+	private static final int LONGITUDE = 5;
+	private static final int FIRST_COUNT = 8;
+	private static final int LAST_COUNT = 15;
+	private static final int UNIQUE_KEY = 18;
+	private static final int VEHICLE_CODE_1 = 19;
+	private static final int VEHICLE_CODE_2 = 20;
+
+	//powers of ten that are exact doubles, for parsing coordinates
+	private static final double [] POWERS_OF_TEN = new double [23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+		}
+	}
+
+	private ByteBuffer buffer;
+	private Charset charset;
+	private boolean endOfInput;
+	private boolean parseLocations;
+
+	private int position;
+	private int limit;
+
+	//reason for which the last line was rejected, null if it was valid
+	private RejectReason rejectReason;
+
+	//reused for every line, so that parsing does not allocate
+	private byte [] scratch = new byte [64];
+	private int [] counts = new int [LAST_COUNT - FIRST_COUNT + 1];
+	private String [] strings = new String [NUM_OF_ENTRIES];
+	private double latitude;
+	private double longitude;
+
+	/**
+	 * Creates a CollisionTokenizer object for the bytes between the current position
+	 * and the limit of buffer. The position of the buffer is not modified.
+	 * @param buffer the buffer containing lines of collision records
+	 * @param charset the character set used for decoding text entries
+	 * @param endOfInput true if the buffer ends at the end of the input, in which
+	 * case the last line does not need to be terminated by a line break; if false,
+	 * an unterminated last line is left unread (see getPosition())
+	 */
+	public CollisionTokenizer ( ByteBuffer buffer, Charset charset, boolean endOfInput ) {
+		this.buffer = buffer;
+		this.charset = charset;
+		this.endOfInput = endOfInput;
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+	}
+
+	/**
+	 * Requests that the latitude and longitude entries are parsed and stored in the
+	 * Collision objects (see Collision.getLatitude()). They are skipped by default.
+	 * @param parseLocations true if the locations should be parsed
+	 */
+	public void setParseLocations ( boolean parseLocations ) {
+		this.parseLocations = parseLocations;
+	}
+
+	/**
+	 * Determines if there is another complete line in the buffer.
+	 * @return true if nextCollision() can be called, false otherwise
+	 */
+	public boolean hasNextLine ( ) {
+		if (position >= limit)
+			return false;
+		if (endOfInput)
+			return true;
+		for (int i = position; i < limit; i++) {
+			if (buffer.get(i) == '\n')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of bytes of the buffer that have been consumed, i.e., the
+	 * offset (relative to the initial position of the buffer) of the first line
+	 * that has not been read yet.
+	 * @return the number of consumed bytes
+	 */
+	public int getPosition ( ) {
+		return position - buffer.position();
+	}
+
+	/**
+	 * Parses the next line of the buffer. The line is consumed even if it does not
+	 * describe a valid collision.
+	 * @return a Collision object created from the line, or null if the line does not
+	 * contain exactly 21 entries or the entries do not describe a valid collision
+	 * (see the Collision constructor)
+	 */
+	public Collision nextCollision ( ) {
+		//find the end of the line
+		int lineStart = position;
+		int lineEnd = lineStart;
+		while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+			lineEnd++;
+		}
+		position = (lineEnd < limit) ? lineEnd + 1 : limit;
+		if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+			lineEnd--;
+		}
+
+		int entry = 0;
+		int entryStart = lineStart;
+		boolean insideQuotes = false;
+		boolean valid = true;
+		latitude = Double.NaN;
+		longitude = Double.NaN;
+
+		for (int i = lineStart; i <= lineEnd; i++) {
+			byte nextByte = (i < lineEnd) ? buffer.get(i) : (byte) ',';
+			if (nextByte == '"') {
+				insideQuotes = !insideQuotes;
+			}
+			//end of the current entry reached (the end of the line counts as a comma)
+			else if (nextByte == ',' && (!insideQuotes || i == lineEnd)) {
+				if (valid && entry < NUM_OF_ENTRIES) {
+					valid = parseEntry(entry, entryStart, i);
+				}
+				entry++;
+				entryStart = i + 1;
+			}
+		}
+
+		if (entry != NUM_OF_ENTRIES) {
+			rejectReason = RejectReason.FIELD_COUNT;
+			return null;
+		}
+		if (!valid) {
+			rejectReason = RejectReason.INVALID_NUMBER;
+			return null;
+		}
+
+		try {
+			Collision col = new Collision(strings[DATE], strings[TIME], strings[BOROUGH], strings[ZIP], counts,
+					strings[UNIQUE_KEY], strings[VEHICLE_CODE_1], strings[VEHICLE_CODE_2]);
+			if (parseLocations) {
+				col.setLocation(latitude, longitude);
+			}
+			rejectReason = null;
+			return col;
+		}
+		catch (IllegalArgumentException ex ) {
+			rejectReason = RejectReason.INVALID_ZIP;
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the reason for which the line parsed by the last call to
+	 * nextCollision() was rejected.
+	 * @return the reason, or null if the line described a valid collision
+	 */
+	public RejectReason getRejectReason ( ) {
+		return rejectReason;
+	}
+
+	/*
+	 * Parses a single entry stored in the bytes [start, end) of the buffer.
+	 * @return false if the entry is not valid, true otherwise
+	 */
+	private boolean parseEntry ( int entry, int start, int end ) {
+		if (entry >= FIRST_COUNT && entry <= LAST_COUNT) {
+			return parseCount(entry - FIRST_COUNT, start, end);
+		}
+		switch (entry) {
+		case DATE:
+		case TIME:
+		case BOROUGH:
+		case ZIP:
+		case UNIQUE_KEY:
+		case VEHICLE_CODE_1:
+		case VEHICLE_CODE_2:
+			strings[entry] = decode(start, end);
+			return true;
+		case LATITUDE:
+			if (parseLocations) {
+				latitude = parseCoordinate(start, end);
+			}
+			return true;
+		case LONGITUDE:
+			if (parseLocations) {
+				longitude = parseCoordinate(start, end);
+			}
+			return true;
+		default:
+			//entries not used by Collision are never decoded
+			return true;
+		}
+	}
+
+	/*
+	 * Converts the bytes [start, end) of the buffer to a string, with double quotes
+	 * removed and leading and trailing white space trimmed.
+	 */
+	private String decode ( int start, int end ) {
+		int length = 0;
+		if (scratch.length < end - start) {
+			scratch = new byte [Math.max(end - start, 2 * scratch.length)];
+		}
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b != '"') {
+				scratch[length++] = b;
+			}
+		}
+		int first = 0;
+		while (first < length && (scratch[first] & 0xff) <= ' ') {
+			first++;
+		}
+		while (length > first && (scratch[length - 1] & 0xff) <= ' ') {
+			length--;
+		}
+		return new String(scratch, first, length - first, charset);
+	}
+
+	/*
+	 * Parses the bytes [start, end) of the buffer as a coordinate, with the result of
+	 * Double.parseDouble applied to the trimmed entry with double quotes removed.
+	 * Plain decimal numbers with at most 18 digits are parsed straight from the
+	 * bytes: their digits form an exact integer that is divided by an exact power of
+	 * ten, which rounds the same way. All other entries are decoded and passed to
+	 * Double.parseDouble.
+	 * @return the coordinate, or NaN if the entry is empty or not a number
+	 */
+	private double parseCoordinate ( int start, int end ) {
+		long mantissa = 0;
+		int numOfDigits = 0;
+		int numOfDecimals = -1;
+		boolean negative = false;
+		boolean plain = true;
+		int first = start;
+		int last = end;
+		while (first < last && ((buffer.get(first) & 0xff) <= ' ' || buffer.get(first) == '"')) {
+			first++;
+		}
+		while (last > first && ((buffer.get(last - 1) & 0xff) <= ' ' || buffer.get(last - 1) == '"')) {
+			last--;
+		}
+		if (first == last)
+			return Double.NaN;
+		if (buffer.get(first) == '-' || buffer.get(first) == '+') {
+			negative = (buffer.get(first) == '-');
+			first++;
+		}
+		for (int i = first; plain && i < last; i++) {
+			byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				numOfDigits++;
+				if (numOfDecimals >= 0) numOfDecimals++;
+			}
+			else if (b == '.' && numOfDecimals < 0) {
+				numOfDecimals = 0;
+			}
+			else {
+				plain = false;
+			}
+		}
+		if (plain && numOfDigits > 0 && numOfDigits <= 18 && mantissa < (1L << 53)
+				&& numOfDecimals < POWERS_OF_TEN.length) {
+			double value = (numOfDecimals > 0) ? mantissa / POWERS_OF_TEN[numOfDecimals] : mantissa;
+			return negative ? -value : value;
+		}
+		try {
+			return Double.parseDouble(decode(start, end));
+		}
+		catch (NumberFormatException ex) {
+			return Double.NaN;
+		}
+	}
+
+	/*
+	 * Parses the bytes [start, end) of the buffer as an integer, following the rules of
+	 * Integer.parseInt applied to the trimmed entry with double quotes removed. Counts
+	 * cannot be negative (see Collision).
+	 * @return false if the entry is not a valid count, true otherwise
+	 */
+	private boolean parseCount ( int index, int start, int end ) {
+		long value = 0;
+		boolean negative = false;
+		boolean seenSign = false;
+		boolean seenDigit = false;
+		boolean seenTrailingSpace = false;
+
+		for (int i = start; i < end; i++) {
+			int b = buffer.get(i) & 0xff;
+			if (b == '"') {
+				continue;
+			}
+			if (b <= ' ') {
+				//white space is allowed only before and after the number
+				if (seenSign || seenDigit) seenTrailingSpace = true;
+				continue;
+			}
+			if (seenTrailingSpace)
+				return false;
+			if (b >= '0' && b <= '9') {
+				seenDigit = true;
+				value = value * 10 + (b - '0');
+				if (value > (long) Integer.MAX_VALUE + 1)
+					return false;
+			}
+			else if ((b == '-' || b == '+') && !seenSign && !seenDigit) {
+				seenSign = true;
+				negative = (b == '-');
+			}
+			else {
+				return false;
+			}
+		}
+		if (!seenDigit)
+			return false;
+		if (negative && value != 0)
+			return false;
+		if (value > Integer.MAX_VALUE)
+			return false;
+		counts[index] = (int) value;
+		return true;
+	}
+}
@@ -0,0 +1,21 @@
+
+
+import java.util.Comparator;
+
+/*
+ * Comparator class for comparing two @see ZipCodeList objects based on the
+ * number of collisions occurring in each. The resulting order is descending. 
+ * @author Joanna K. 
+ *
+ */
+class CompareByNumOfCollisionsDescending implements Comparator <ZipCodeList> {
+
+	/* (non-Javadoc)
+	 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
+		return Integer.compare(arg1.getTotalNumOfCollisions(), arg0.getTotalNumOfCollisions());
+	}
+	
+}
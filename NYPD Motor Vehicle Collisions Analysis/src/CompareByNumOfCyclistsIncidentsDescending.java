@@ -0,0 +1,24 @@
+
+
+import java.util.Comparator;
+
+/*
+ * Comparator class for comparing two @see ZipCodeList objects based on the
+ * number of injured cyclists. The resulting order is descending. Ties are resolved
+ * based on the number of killed cyclists. 
+ * @author Joanna K. 
+ *
+ */
+class CompareByNumOfCyclistsIncidentsDescending implements Comparator <ZipCodeList> {
+
+	@Override
+	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
+		int diff = Long.compare( (long) arg1.getTotalNumOfCyclistsInjured() + arg1.getTotalNumOfCyclistsKilled(), 
+				(long) arg0.getTotalNumOfCyclistsInjured() + arg0.getTotalNumOfCyclistsKilled()) ; 
+
+		if (diff != 0 ) 
+			return diff;
+		else return Integer.compare( arg1.getTotalNumOfCyclistsKilled(), arg0.getTotalNumOfCyclistsKilled() );
+	}
+	
+}
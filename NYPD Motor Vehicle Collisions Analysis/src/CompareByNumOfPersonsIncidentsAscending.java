@@ -0,0 +1,24 @@
+
+
+import java.util.Comparator;
+
+/*
+ * Comparator class for comparing two @see ZipCodeList objects based on the
+ * number of injured persons. The resulting order is ascending. Ties are resolved
+ * based on the number of killed persons. 
+ * @author Joanna K. 
+ *
+ */
+class CompareByNumOfPersonsIncidentsAscending implements Comparator <ZipCodeList> {
+
+	@Override
+	public int compare(ZipCodeList arg0, ZipCodeList arg1) {
+		int diff = Long.compare( (long) arg0.getTotalNumOfPersonsInjured() + arg0.getTotalNumOfPersonsKilled(), 
+				(long) arg1.getTotalNumOfPersonsInjured() + arg1.getTotalNumOfPersonsKilled()) ; 
+
+		if (diff != 0 ) 
+			return diff;
+		else return Integer.compare( arg0.getTotalNumOfPersonsKilled(), arg1.getTotalNumOfPersonsKilled() );
+	}
+	
+}
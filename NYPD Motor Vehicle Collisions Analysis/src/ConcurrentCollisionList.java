@@ -0,0 +1,267 @@
+
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentCollisionList is a thread-safe collection of collisions that any number
+ * of threads can add to at the same time. The zip codes are divided among a fixed
+ * number of stripes by their hash code. Every stripe is a CollisionList object with
+ * its own lock, so threads that add collisions of zip codes in different stripes do
+ * not wait for each other, and no lock is held while a record is parsed. The number
+ * of collisions and of rejected records are kept in LongAdder counters, which can be
+ * read at any time without locking.
+ * Readers work on consistent snapshots, taken while writers keep adding: a summary
+ * (see getSummary()), which is all the predetermined reports need, or a copy of all
+ * collisions (see snapshot()). A snapshot contains exactly the collisions added
+ * before a single point in time.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ConcurrentCollisionList {
+
+	/**
+	 * Default number of stripes.
+	 */
+	public static final int DEFAULT_NUM_OF_STRIPES = 64;
+
+	private CollisionList [] stripes;
+	private ReentrantLock [] locks;
+
+	private LongAdder numOfCollisions;
+	private LongAdder numOfRejectedRecords;
+
+	/**
+	 * Creates an empty ConcurrentCollisionList object with the default number of
+	 * stripes.
+	 */
+	public ConcurrentCollisionList ( ) {
+		this(DEFAULT_NUM_OF_STRIPES);
+	}
+
+	/**
+	 * Creates an empty ConcurrentCollisionList object.
+	 * @param numOfStripes the number of stripes, which limits the number of threads
+	 * that can add collisions at the same moment
+	 * @throws IllegalArgumentException when numOfStripes is smaller than 1
+	 */
+	public ConcurrentCollisionList ( int numOfStripes ) throws IllegalArgumentException {
+		if (numOfStripes < 1)
+			throw new IllegalArgumentException ("Error: at least one stripe is needed. ");
+		stripes = new CollisionList [numOfStripes];
+		locks = new ReentrantLock [numOfStripes];
+		for (int i = 0; i < numOfStripes; i++) {
+			stripes[i] = new CollisionList();
+			locks[i] = new ReentrantLock();
+		}
+		numOfCollisions = new LongAdder();
+		numOfRejectedRecords = new LongAdder();
+	}
+
+	/**
+	 * Adds a collision described by a record (see CollisionList.add()). The record
+	 * is parsed before any lock is taken.
+	 * @param record a list of strings describing a particular collision
+	 * @return true if the record was added, false if it does not describe a valid
+	 * collision
+	 */
+	public boolean add ( ArrayList<String> record ) {
+		try {
+			return add(new Collision(record));
+		}
+		catch (IllegalArgumentException ex) {
+			numOfRejectedRecords.increment();
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a particular Collision object. Only the stripe of its zip code is locked.
+	 * @param col the collision to be added
+	 * @return true if the collision was added, false if col is null (which
+	 * CollisionTokenizer returns for lines that are not valid records)
+	 */
+	public boolean add ( Collision col ) {
+		if (col == null) {
+			numOfRejectedRecords.increment();
+			return false;
+		}
+		int stripe = getStripe(col.getZip());
+		locks[stripe].lock();
+		try {
+			stripes[stripe].add(col);
+		}
+		finally {
+			locks[stripe].unlock();
+		}
+		numOfCollisions.increment();
+		return true;
+	}
+
+	/*
+	 * Returns the stripe of a zip code.
+	 */
+	private int getStripe ( String zip ) {
+		int hash = zip.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+	}
+
+	/**
+	 * Returns the number of collisions added so far. The value is exact when no
+	 * collisions are being added at the same time.
+	 * @return the number of collisions
+	 */
+	public long getNumOfCollisions ( ) {
+		return numOfCollisions.sum();
+	}
+
+	/**
+	 * Returns the number of records that were not added because they did not
+	 * describe a valid collision. The value is exact when no records are being added
+	 * at the same time.
+	 * @return the number of rejected records
+	 */
+	public long getNumOfRejectedRecords ( ) {
+		return numOfRejectedRecords.sum();
+	}
+
+	/**
+	 * Returns a summary of the collisions added before this call: the totals of
+	 * every zip code and the running totals. All stripes are locked while their
+	 * totals are copied, which takes time proportional to the number of zip codes,
+	 * not to the number of collisions.
+	 * @return a consistent summary of this object
+	 */
+	public CollisionSummary getSummary ( ) {
+		CollisionSummary summary = new CollisionSummary();
+		lockAll();
+		try {
+			for (CollisionList stripe : stripes) {
+				summary.addAll(stripe.getSummary());
+			}
+			summary.addRejectedRecords((int) numOfRejectedRecords.sum());
+		}
+		finally {
+			unlockAll();
+		}
+		return summary;
+	}
+
+	/**
+	 * Copies the collisions added before this call into a new CollisionList object,
+	 * over which any report or query can be computed. All stripes are locked only
+	 * while the number of rows of every stripe is recorded; the rows are then copied
+	 * one stripe at a time, holding the lock of that stripe only, so writers are
+	 * blocked for a short time. The zip codes of the copy are grouped by stripe.
+	 * @return a consistent copy of this object
+	 */
+	public CollisionList snapshot ( ) {
+		int [] sizes = new int [stripes.length];
+		long numOfRejected;
+		lockAll();
+		try {
+			for (int i = 0; i < stripes.length; i++) {
+				sizes[i] = stripes[i].getStore().size();
+			}
+			numOfRejected = numOfRejectedRecords.sum();
+		}
+		finally {
+			unlockAll();
+		}
+
+		CollisionList result = new CollisionList();
+		for (int i = 0; i < stripes.length; i++) {
+			//rows are only appended, so the first sizes[i] rows are still the same
+			locks[i].lock();
+			try {
+				result.addRows(stripes[i], sizes[i]);
+			}
+			finally {
+				locks[i].unlock();
+			}
+		}
+		result.addRejectedRecords((int) numOfRejected);
+		return result;
+	}
+
+	/*
+	 * Locks all stripes, always in the same order, so that two threads taking a
+	 * snapshot cannot deadlock.
+	 */
+	private void lockAll ( ) {
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+	}
+
+	/*
+	 * Unlocks all stripes locked by lockAll().
+	 */
+	private void unlockAll ( ) {
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+
+	/**
+	 * Determines k zip codes with most collisions (see
+	 * CollisionList.getZipCodesWithMostCollisions()), over a summary of this object.
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostCollisions ( int k ) {
+		return getSummary().getZipCodesWithMostCollisions(k);
+	}
+
+	/**
+	 * Determines k zip codes with least collisions (see
+	 * CollisionList.getZipCodesWithLeastCollisions()), over a summary of this object.
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithLeastCollisions ( int k ) {
+		return getSummary().getZipCodesWithLeastCollisions(k);
+	}
+
+	/**
+	 * Determines k zip codes with most injured and killed cyclists (see
+	 * CollisionList.getZipCodesWithMostCyclistIncidents()), over a summary of this
+	 * object.
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostCyclistIncidents ( int k ) {
+		return getSummary().getZipCodesWithMostCyclistIncidents(k);
+	}
+
+	/**
+	 * Determines k zip codes with most injured and killed persons (see
+	 * CollisionList.getZipCodesWithMostPersonIncidents()), over a summary of this
+	 * object.
+	 * @param k number of zip codes
+	 * @return a string containing the results of the computation
+	 */
+	public String getZipCodesWithMostPersonIncidents ( int k ) {
+		return getSummary().getZipCodesWithMostPersonIncidents(k);
+	}
+
+	/**
+	 * Computes the percentage of collisions involving the default vehicle types (see
+	 * CollisionList.getVehicleTypeStats()), over a summary of this object.
+	 * @return a string containing the results of the computation
+	 */
+	public String getVehicleTypeStats ( ) {
+		return getSummary().getVehicleTypeStats();
+	}
+
+	/**
+	 * Computes the fraction of collisions that occurred within every hour (see
+	 * CollisionList.getHourlyStats()), over a summary of this object.
+	 * @return a string containing the results of the computation
+	 */
+	public String getHourlyStats ( ) {
+		return getSummary().getHourlyStats();
+	}
+}
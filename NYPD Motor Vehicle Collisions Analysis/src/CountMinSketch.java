@@ -0,0 +1,140 @@
+
+
+/**
+ * CountMinSketch estimates how often every item of a stream of weighted strings
+ * occurred, in memory that does not depend on the number of items. The sketch is a
+ * table of counters with depth rows and width columns; every item is mapped to one
+ * counter in each row by a different hash function and its weight is added to all of
+ * them. The estimate of an item is the smallest of its counters.
+ * An estimate is never smaller than the true total weight of the item. With the
+ * width and depth chosen by the constructor from epsilon and delta, an estimate
+ * exceeds the true weight by more than epsilon times the total weight of all items
+ * with probability at most delta.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class CountMinSketch {
+
+	private int width;
+	private int depth;
+	//counter of column c in row r is stored at r * width + c
+	private long [] counts;
+	private long totalWeight;
+
+	/**
+	 * Creates an empty CountMinSketch object.
+	 * @param epsilon the error of an estimate as a fraction of the total weight,
+	 * between 0 and 1
+	 * @param delta the probability that an estimate exceeds that error, between 0 and 1
+	 * @throws IllegalArgumentException if epsilon or delta is not between 0 and 1, or
+	 * the sketch would need too many counters
+	 */
+	public CountMinSketch ( double epsilon, double delta ) throws IllegalArgumentException {
+		if (!(epsilon > 0 && epsilon < 1))
+			throw new IllegalArgumentException ("Error: invalid sketch error " + epsilon + ". ");
+		if (!(delta > 0 && delta < 1))
+			throw new IllegalArgumentException ("Error: invalid sketch probability " + delta + ". ");
+		double numOfColumns = Math.ceil(Math.E / epsilon);
+		int numOfRows = (int) Math.ceil(Math.log(1 / delta));
+		if (numOfColumns * numOfRows > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException ("Error: sketch too large. ");
+		this.width = (int) numOfColumns;
+		this.depth = Math.max(1, numOfRows);
+		this.counts = new long [width * depth];
+	}
+
+	/**
+	 * Adds weight to the total weight of an item.
+	 * @param item the item
+	 * @param weight the weight to be added, not negative
+	 * @throws IllegalArgumentException if weight is negative
+	 */
+	public void add ( String item, long weight ) throws IllegalArgumentException {
+		if (weight < 0)
+			throw new IllegalArgumentException ("Error: negative weight " + weight + ". ");
+		long hash = hash(item);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32) | 1;
+		for (int row = 0; row < depth; row++) {
+			counts[row * width + Math.floorMod(hash1 + row * hash2, width)] += weight;
+		}
+		totalWeight += weight;
+	}
+
+	/**
+	 * Estimates the total weight of an item.
+	 * @param item the item
+	 * @return the estimate, which is at least the true total weight of the item
+	 */
+	public long estimate ( String item ) {
+		long hash = hash(item);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32) | 1;
+		long result = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			result = Math.min(result, counts[row * width + Math.floorMod(hash1 + row * hash2, width)]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the total weight of all items added to this sketch.
+	 * @return the total weight
+	 */
+	public long getTotalWeight ( ) {
+		return totalWeight;
+	}
+
+	/**
+	 * Returns the largest amount by which an estimate exceeds the true weight of an
+	 * item, unless it is one of the estimates allowed to fail (see getDelta()).
+	 * @return the error bound of the estimates at the current total weight
+	 */
+	public long getErrorBound ( ) {
+		return (long) Math.ceil(Math.E / width * totalWeight);
+	}
+
+	/**
+	 * Returns the probability that an estimate exceeds the error bound.
+	 * @return the failure probability of the estimates
+	 */
+	public double getDelta ( ) {
+		return Math.exp(-depth);
+	}
+
+	/**
+	 * Returns the number of counters in every row of this sketch.
+	 * @return the width of the sketch
+	 */
+	public int getWidth ( ) {
+		return width;
+	}
+
+	/**
+	 * Returns the number of rows (hash functions) of this sketch.
+	 * @return the depth of the sketch
+	 */
+	public int getDepth ( ) {
+		return depth;
+	}
+
+	/*
+	 * Computes a 64 bit hash of a string: FNV-1a over its characters followed by the
+	 * finalizer of MurmurHash3, so that both halves of the result are well mixed.
+	 * The row hashes are derived from the two halves.
+	 */
+	private static long hash ( String item ) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < item.length(); i++) {
+			hash ^= item.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
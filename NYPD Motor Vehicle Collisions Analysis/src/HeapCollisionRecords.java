@@ -0,0 +1,156 @@
+
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HeapCollisionRecords keeps the fixed-width values of the rows of a CollisionStore
+ * object in primitive arrays on the heap, one array per column. The arrays double
+ * in size when they are full. The location columns are allocated only when the
+ * first known location is stored, so data without locations costs no memory for
+ * them.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class HeapCollisionRecords extends CollisionRecords {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int [][] ints;
+	private short [] minuteOfDay;
+	private long [] uniqueKey;
+	//null until a row with a location is stored; NaN for rows without one
+	private double [] latitude;
+	private double [] longitude;
+
+	/**
+	 * Creates empty HeapCollisionRecords.
+	 */
+	HeapCollisionRecords ( ) {
+		ints = new int [NUM_OF_INT_COLUMNS][INITIAL_CAPACITY];
+		minuteOfDay = new short [INITIAL_CAPACITY];
+		uniqueKey = new long [INITIAL_CAPACITY];
+	}
+
+	@Override
+	void ensureCapacity ( int numOfRows ) {
+		if (numOfRows <= uniqueKey.length)
+			return;
+		int capacity = Math.max(numOfRows, 2 * uniqueKey.length);
+		for (int i = 0; i < NUM_OF_INT_COLUMNS; i++) {
+			ints[i] = Arrays.copyOf(ints[i], capacity);
+		}
+		minuteOfDay = Arrays.copyOf(minuteOfDay, capacity);
+		uniqueKey = Arrays.copyOf(uniqueKey, capacity);
+		if (latitude != null) {
+			latitude = Arrays.copyOf(latitude, capacity);
+			longitude = Arrays.copyOf(longitude, capacity);
+		}
+	}
+
+	@Override
+	int getInt ( int column, int row ) {
+		return ints[column][row];
+	}
+
+	@Override
+	void setInt ( int column, int row, int value ) {
+		ints[column][row] = value;
+	}
+
+	@Override
+	int getMinuteOfDay ( int row ) {
+		return minuteOfDay[row];
+	}
+
+	@Override
+	void setMinuteOfDay ( int row, int minute ) {
+		minuteOfDay[row] = (short) minute;
+	}
+
+	@Override
+	long getUniqueKey ( int row ) {
+		return uniqueKey[row];
+	}
+
+	@Override
+	void setUniqueKey ( int row, long key ) {
+		uniqueKey[row] = key;
+	}
+
+	@Override
+	boolean hasLocations ( ) {
+		return latitude != null;
+	}
+
+	@Override
+	double getLatitude ( int row ) {
+		return (latitude == null) ? Double.NaN : latitude[row];
+	}
+
+	@Override
+	double getLongitude ( int row ) {
+		return (longitude == null) ? Double.NaN : longitude[row];
+	}
+
+	@Override
+	void setLocation ( int row, double lat, double lon ) {
+		if (latitude == null) {
+			if (Double.isNaN(lat))
+				return;
+			latitude = new double [uniqueKey.length];
+			longitude = new double [uniqueKey.length];
+			Arrays.fill(latitude, 0, row, Double.NaN);
+			Arrays.fill(longitude, 0, row, Double.NaN);
+		}
+		latitude[row] = lat;
+		longitude[row] = lon;
+	}
+
+	/**
+	 * Writes the first size rows to a snapshot, straight from the arrays.
+	 * @param out the snapshot
+	 * @param size the number of rows
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	@Override
+	void write ( SnapshotOutput out, int size ) throws IOException {
+		for (int i = 0; i < CollisionStore.NUM_OF_COUNTS; i++) {
+			out.writeInts(ints[i], size);
+		}
+		out.writeShorts(minuteOfDay, size);
+		for (int i = EPOCH_DAY; i < NUM_OF_INT_COLUMNS; i++) {
+			out.writeInts(ints[i], size);
+		}
+		out.writeLongs(uniqueKey, size);
+		out.writeInt(hasLocations() ? 1 : 0);
+		if (hasLocations()) {
+			out.writeDoubles(latitude, size);
+			out.writeDoubles(longitude, size);
+		}
+	}
+
+	/**
+	 * Reads size rows written by write(SnapshotOutput, int) straight into new arrays.
+	 * @param in the snapshot
+	 * @param size the number of rows
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	@Override
+	void read ( SnapshotInput in, int size ) throws IOException {
+		int capacity = Math.max(size, INITIAL_CAPACITY);
+		for (int i = 0; i < CollisionStore.NUM_OF_COUNTS; i++) {
+			ints[i] = in.readInts(size, capacity);
+		}
+		minuteOfDay = in.readShorts(size, capacity);
+		for (int i = EPOCH_DAY; i < NUM_OF_INT_COLUMNS; i++) {
+			ints[i] = in.readInts(size, capacity);
+		}
+		uniqueKey = in.readLongs(size, capacity);
+		if (in.readInt() != 0) {
+			latitude = in.readDoubles(size, capacity);
+			longitude = in.readDoubles(size, capacity);
+		}
+	}
+}
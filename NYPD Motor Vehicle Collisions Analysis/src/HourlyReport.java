@@ -0,0 +1,114 @@
+
+
+import java.io.IOException;
+
+/**
+ * HourlyReport computes the percentage of collisions that occurred within a particular 
+ * hour. The collisions are placed into bins of 1 hour intervals; collisions with 
+ * incorrectly formed times are not placed in any bin, but they still count towards 
+ * the total. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class HourlyReport implements CollisionReport {
+	
+	//counter for each hour
+	private int [] hourlyCount = new int [24]; 
+	private int totalNumOfCollisions; 
+
+	@Override
+	public boolean addAggregates ( CollisionAggregates aggregates ) {
+		totalNumOfCollisions = aggregates.getTotalNumOfCollisions();
+		for (int i = 0; i < 24; i++) {
+			hourlyCount[i] = aggregates.getHourlyCount(i);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean needsCollisions ( ) {
+		return true;
+	}
+
+	@Override
+	public void addZipCode ( ZipCodeList zipList ) {
+		totalNumOfCollisions += zipList.getTotalNumOfCollisions(); 
+	}
+
+	@Override
+	public void addCollision ( CollisionStore store, int row ) {
+		//the time entry was parsed when the collision was added 
+		int minute = store.getMinuteOfDay(row);
+		if (minute != CollisionStore.NO_TIME) { //ignore incorrectly formed times 
+			hourlyCount[minute / 60]++;
+		}
+	}
+
+	@Override
+	public CollisionReport newPartial ( ) {
+		return new HourlyReport();
+	}
+
+	@Override
+	public void merge ( CollisionReport partial ) {
+		HourlyReport other = (HourlyReport) partial;
+		totalNumOfCollisions += other.totalNumOfCollisions;
+		for (int i = 0; i < 24; i++) {
+			hourlyCount[i] += other.hourlyCount[i];
+		}
+	}
+
+	/**
+	 * Returns the number of collisions that occurred within a given hour. 
+	 * @param hour the hour, from 0 to 23 
+	 * @return the number of collisions 
+	 */
+	public int getCount ( int hour ) {
+		return hourlyCount[hour];
+	}
+	
+	/**
+	 * Returns the number of all collisions, including those with incorrectly 
+	 * formed times. 
+	 * @return the number of collisions 
+	 */
+	public int getTotalNumOfCollisions ( ) {
+		return totalNumOfCollisions;
+	}
+	
+	/**
+	 * Returns the percentage of all collisions that occurred within a given hour. 
+	 * @param hour the hour, from 0 to 23 
+	 * @return the percentage, or NaN if there are no collisions 
+	 */
+	public double getPercentage ( int hour ) {
+		return 100.0 * hourlyCount[hour] / totalNumOfCollisions;
+	}
+
+	@Override
+	public String getResult ( ) {
+		return ReportFormat.TEXT.render(this);
+	}
+
+	@Override
+	public void render ( ReportFormat format, Appendable out ) throws IOException {
+		if (format != ReportFormat.TEXT) {
+			ReportTableWriter table = new ReportTableWriter(format, out, "hour", "collisions", "percentage");
+			for (int i = 0; i < 24; i++) {
+				table.addRow(i, hourlyCount[i], getPercentage(i));
+			}
+			table.close();
+			return;
+		}
+		for (int i = 0; i < 24; i++ ) {
+			//determine number of "bars" to be printed for visual representation of 
+			//the histogram 
+			int numOfBars = (int)(((double)hourlyCount[i]/totalNumOfCollisions) * 240);
+			out.append(String.format("%3d h  %5.1f%% ", i, getPercentage(i)));
+			for (int j = 0; j < numOfBars; j++)
+				out.append('|');
+			out.append('\n');
+		}
+	}
+}
@@ -0,0 +1,309 @@
+
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * IngestMetrics counts what happens on the ingest path: the lines and bytes read,
+ * the lines rejected by reason (see RejectReason), the collisions skipped as
+ * duplicates (see CollisionList.setDeduplicator()), the stored collisions with
+ * invalid dates or times, and the number of zip codes found. Every line read is
+ * either accepted, rejected or skipped as a duplicate; CollisionReader counts the
+ * duplicates and the invalid dates and times once the whole file has been read,
+ * when it is known which collisions were stored. It also keeps
+ * histograms of the time spent parsing every line and storing every collision (see
+ * CollisionReader.setMetrics() and CollisionFollower.setMetrics()); lines are timed
+ * only when a metrics object is set, so ingest without metrics costs nothing extra.
+ * All counters can be updated by any number of threads at the same time and read at
+ * any time. The metrics can be written as a JSON object (see toJson()) or published
+ * over JMX (see register()).
+ * The rates are averages over the time between the creation of this object and the
+ * last time bytes were read.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class IngestMetrics implements IngestMetricsMBean {
+
+	/**
+	 * Name under which the metrics are registered with the platform MBean server.
+	 */
+	public static final String OBJECT_NAME = "NYPDCollisions:type=IngestMetrics";
+
+	private LongAdder rowsRead;
+	private LongAdder rowsAccepted;
+	private LongAdder [] rowsRejected;
+	private LongAdder duplicates;
+	private LongAdder invalidDates;
+	private LongAdder invalidTimes;
+	private LongAdder bytesRead;
+	private volatile int numOfZipCodes;
+
+	private LatencyHistogram parseTimes;
+	private LatencyHistogram insertTimes;
+
+	private long startTime;
+	//System.nanoTime() of the last read, for the rates
+	private LongAccumulator lastReadTime;
+
+	/**
+	 * Creates an IngestMetrics object with all counters set to zero.
+	 */
+	public IngestMetrics ( ) {
+		rowsRead = new LongAdder();
+		rowsAccepted = new LongAdder();
+		rowsRejected = new LongAdder [RejectReason.values().length];
+		for (int i = 0; i < rowsRejected.length; i++) {
+			rowsRejected[i] = new LongAdder();
+		}
+		duplicates = new LongAdder();
+		invalidDates = new LongAdder();
+		invalidTimes = new LongAdder();
+		bytesRead = new LongAdder();
+		parseTimes = new LatencyHistogram();
+		insertTimes = new LatencyHistogram();
+		startTime = System.nanoTime();
+		lastReadTime = new LongAccumulator(Long::max, startTime);
+	}
+
+	/**
+	 * Counts a parsed line.
+	 * @param col the collision returned by CollisionTokenizer.nextCollision()
+	 * @param reason the reason for which the line was rejected, if col is null
+	 * @param nanos the time spent parsing the line
+	 */
+	void addParsed ( Collision col, RejectReason reason, long nanos ) {
+		rowsRead.increment();
+		parseTimes.record(nanos);
+		if (col == null) {
+			rowsRejected[reason.ordinal()].increment();
+			return;
+		}
+		rowsAccepted.increment();
+	}
+
+	/**
+	 * Counts the invalid date and time of a collision that has been stored.
+	 * @param col the collision
+	 */
+	void addInvalid ( Collision col ) {
+		if (col.getEpochDay() == CollisionStore.NO_DATE) {
+			invalidDates.increment();
+		}
+		if (col.getMinuteOfDay() == CollisionStore.NO_TIME) {
+			invalidTimes.increment();
+		}
+	}
+
+	/**
+	 * Counts the invalid dates and times of all collisions stored in a list.
+	 * @param aggregates the running totals of the list
+	 */
+	void addInvalid ( CollisionAggregates aggregates ) {
+		invalidDates.add(aggregates.getNumOfInvalidDates());
+		invalidTimes.add(aggregates.getNumOfInvalidTimes());
+	}
+
+	/**
+	 * Counts valid collisions that were skipped because their unique key had been
+	 * read before, which are no longer counted as accepted.
+	 * @param numOfDuplicates the number of collisions
+	 */
+	void addDuplicates ( long numOfDuplicates ) {
+		duplicates.add(numOfDuplicates);
+	}
+
+	/**
+	 * Records the time spent storing a collision.
+	 * @param nanos the time spent
+	 */
+	void addInserted ( long nanos ) {
+		insertTimes.record(nanos);
+	}
+
+	/**
+	 * Counts bytes that have been read.
+	 * @param numOfBytes the number of bytes
+	 */
+	void addBytes ( long numOfBytes ) {
+		bytesRead.add(numOfBytes);
+		lastReadTime.accumulate(System.nanoTime());
+	}
+
+	/**
+	 * Sets the number of distinct zip codes found so far.
+	 * @param numOfZipCodes the number of zip codes
+	 */
+	void setNumOfZipCodes ( int numOfZipCodes ) {
+		this.numOfZipCodes = numOfZipCodes;
+	}
+
+	/**
+	 * Registers this object with the platform MBean server under OBJECT_NAME, so
+	 * that JMX clients (such as jconsole) can read the metrics.
+	 * @throws JMException if the object cannot be registered, for example because
+	 * another object is registered under the same name
+	 */
+	public void register ( ) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+	}
+
+	@Override
+	public long getRowsRead ( ) {
+		return rowsRead.sum();
+	}
+
+	@Override
+	public long getRowsAccepted ( ) {
+		//duplicates are counted after they were accepted, so read them first
+		long numOfDuplicates = duplicates.sum();
+		return rowsAccepted.sum() - numOfDuplicates;
+	}
+
+	@Override
+	public long getDuplicates ( ) {
+		return duplicates.sum();
+	}
+
+	@Override
+	public long getRowsRejected ( ) {
+		long result = 0;
+		for (LongAdder count : rowsRejected) {
+			result += count.sum();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of lines rejected for a given reason.
+	 * @param reason the reason
+	 * @return the number of lines
+	 */
+	public long getRowsRejected ( RejectReason reason ) {
+		return rowsRejected[reason.ordinal()].sum();
+	}
+
+	@Override
+	public long getRejectedFieldCount ( ) {
+		return getRowsRejected(RejectReason.FIELD_COUNT);
+	}
+
+	@Override
+	public long getRejectedInvalidNumber ( ) {
+		return getRowsRejected(RejectReason.INVALID_NUMBER);
+	}
+
+	@Override
+	public long getRejectedInvalidZip ( ) {
+		return getRowsRejected(RejectReason.INVALID_ZIP);
+	}
+
+	@Override
+	public long getInvalidDates ( ) {
+		return invalidDates.sum();
+	}
+
+	@Override
+	public long getInvalidTimes ( ) {
+		return invalidTimes.sum();
+	}
+
+	@Override
+	public long getBytesRead ( ) {
+		return bytesRead.sum();
+	}
+
+	/**
+	 * Returns the time between the creation of this object and the last read.
+	 * @return the time in nanoseconds
+	 */
+	public long getElapsedNanos ( ) {
+		return lastReadTime.get() - startTime;
+	}
+
+	@Override
+	public double getBytesPerSecond ( ) {
+		return perSecond(getBytesRead());
+	}
+
+	@Override
+	public double getRowsPerSecond ( ) {
+		return perSecond(getRowsRead());
+	}
+
+	/*
+	 * Returns the average rate of a count over the elapsed time.
+	 */
+	private double perSecond ( long count ) {
+		long elapsed = getElapsedNanos();
+		return (elapsed == 0) ? 0 : count * 1e9 / elapsed;
+	}
+
+	@Override
+	public int getNumOfZipCodes ( ) {
+		return numOfZipCodes;
+	}
+
+	@Override
+	public double getMeanParseNanos ( ) {
+		return parseTimes.getMean();
+	}
+
+	@Override
+	public long getP99ParseNanos ( ) {
+		return parseTimes.getPercentile(99);
+	}
+
+	@Override
+	public double getMeanInsertNanos ( ) {
+		return insertTimes.getMean();
+	}
+
+	@Override
+	public long getP99InsertNanos ( ) {
+		return insertTimes.getPercentile(99);
+	}
+
+	@Override
+	public String getJson ( ) {
+		return toJson();
+	}
+
+	/**
+	 * Describes all metrics as a JSON object. The latency histograms list the
+	 * number of durations in every non-empty bucket, keyed by the upper bound of the
+	 * bucket in nanoseconds.
+	 * @return the JSON text
+	 */
+	public String toJson ( ) {
+		StringBuffer result = new StringBuffer();
+		result.append("{\n");
+		result.append(String.format(Locale.ROOT, "  \"rowsRead\": %d,\n", getRowsRead()));
+		result.append(String.format(Locale.ROOT, "  \"rowsAccepted\": %d,\n", getRowsAccepted()));
+		result.append(String.format(Locale.ROOT, "  \"rowsRejected\": %d,\n", getRowsRejected()));
+		result.append(String.format(Locale.ROOT, "  \"duplicates\": %d,\n", getDuplicates()));
+		result.append("  \"rejectedByReason\": {");
+		String separator = "";
+		for (RejectReason reason : RejectReason.values()) {
+			result.append(String.format(Locale.ROOT, "%s\"%s\": %d", separator, reason.getName(),
+					getRowsRejected(reason)));
+			separator = ", ";
+		}
+		result.append("},\n");
+		result.append(String.format(Locale.ROOT, "  \"invalidDates\": %d,\n", getInvalidDates()));
+		result.append(String.format(Locale.ROOT, "  \"invalidTimes\": %d,\n", getInvalidTimes()));
+		result.append(String.format(Locale.ROOT, "  \"bytesRead\": %d,\n", getBytesRead()));
+		result.append(String.format(Locale.ROOT, "  \"elapsedNanos\": %d,\n", getElapsedNanos()));
+		result.append(String.format(Locale.ROOT, "  \"bytesPerSecond\": %.1f,\n", getBytesPerSecond()));
+		result.append(String.format(Locale.ROOT, "  \"rowsPerSecond\": %.1f,\n", getRowsPerSecond()));
+		result.append(String.format(Locale.ROOT, "  \"zipCodes\": %d,\n", getNumOfZipCodes()));
+		result.append(String.format(Locale.ROOT, "  \"parseNanos\": %s,\n", parseTimes.toJson()));
+		result.append(String.format(Locale.ROOT, "  \"insertNanos\": %s\n", insertTimes.toJson()));
+		result.append("}");
+		return result.toString();
+	}
+}
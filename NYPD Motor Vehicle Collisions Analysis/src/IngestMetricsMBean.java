@@ -0,0 +1,123 @@
+
+
+/**
+ * Management interface of IngestMetrics, through which the ingest metrics of a
+ * running program are published over JMX (see IngestMetrics.register()). Durations
+ * are given in nanoseconds.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public interface IngestMetricsMBean {
+
+	/**
+	 * Returns the number of lines read.
+	 * @return the number of lines
+	 */
+	long getRowsRead ( );
+
+	/**
+	 * Returns the number of lines that described a valid collision that was not
+	 * skipped as a duplicate.
+	 * @return the number of accepted lines
+	 */
+	long getRowsAccepted ( );
+
+	/**
+	 * Returns the number of lines that described a valid collision whose unique key
+	 * had been read before, and which was therefore skipped.
+	 * @return the number of duplicate lines
+	 */
+	long getDuplicates ( );
+
+	/**
+	 * Returns the number of lines that were rejected for any reason.
+	 * @return the number of rejected lines
+	 */
+	long getRowsRejected ( );
+
+	/**
+	 * Returns the number of lines rejected because they do not have 21 entries.
+	 * @return the number of lines
+	 */
+	long getRejectedFieldCount ( );
+
+	/**
+	 * Returns the number of lines rejected because of an invalid count.
+	 * @return the number of lines
+	 */
+	long getRejectedInvalidNumber ( );
+
+	/**
+	 * Returns the number of lines rejected because of an invalid zip code.
+	 * @return the number of lines
+	 */
+	long getRejectedInvalidZip ( );
+
+	/**
+	 * Returns the number of accepted collisions whose date could not be parsed.
+	 * @return the number of collisions
+	 */
+	long getInvalidDates ( );
+
+	/**
+	 * Returns the number of accepted collisions whose time could not be parsed.
+	 * @return the number of collisions
+	 */
+	long getInvalidTimes ( );
+
+	/**
+	 * Returns the number of bytes read.
+	 * @return the number of bytes
+	 */
+	long getBytesRead ( );
+
+	/**
+	 * Returns the average number of bytes read per second.
+	 * @return the read rate
+	 */
+	double getBytesPerSecond ( );
+
+	/**
+	 * Returns the average number of lines read per second.
+	 * @return the read rate
+	 */
+	double getRowsPerSecond ( );
+
+	/**
+	 * Returns the number of distinct zip codes found so far.
+	 * @return the number of zip codes
+	 */
+	int getNumOfZipCodes ( );
+
+	/**
+	 * Returns the mean time spent parsing a line.
+	 * @return the mean in nanoseconds
+	 */
+	double getMeanParseNanos ( );
+
+	/**
+	 * Returns an upper bound of the 99th percentile of the time spent parsing a line.
+	 * @return the percentile in nanoseconds
+	 */
+	long getP99ParseNanos ( );
+
+	/**
+	 * Returns the mean time spent storing a collision.
+	 * @return the mean in nanoseconds
+	 */
+	double getMeanInsertNanos ( );
+
+	/**
+	 * Returns an upper bound of the 99th percentile of the time spent storing a
+	 * collision.
+	 * @return the percentile in nanoseconds
+	 */
+	long getP99InsertNanos ( );
+
+	/**
+	 * Returns all metrics, including the latency histograms, as a JSON object.
+	 * @return the JSON text
+	 */
+	String getJson ( );
+}
@@ -0,0 +1,128 @@
+
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram counts durations in buckets whose bounds are powers of two: bucket
+ * b holds the durations d with 2^(b-1) <= d < 2^b nanoseconds (bucket 0 holds zero).
+ * Recording a duration is a single atomic increment, so any number of threads can
+ * record into the same histogram. Percentiles are reported as the upper bound of the
+ * bucket in which they fall, so they are at most twice the true value.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class LatencyHistogram {
+
+	private static final int NUM_OF_BUCKETS = 64;
+
+	private AtomicLongArray buckets;
+	private LongAdder count;
+	private LongAdder total;
+
+	/**
+	 * Creates an empty LatencyHistogram object.
+	 */
+	LatencyHistogram ( ) {
+		buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+		count = new LongAdder();
+		total = new LongAdder();
+	}
+
+	/**
+	 * Records a duration.
+	 * @param nanos the duration in nanoseconds; negative values count as zero
+	 */
+	void record ( long nanos ) {
+		nanos = Math.max(nanos, 0);
+		buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+		count.increment();
+		total.add(nanos);
+	}
+
+	/**
+	 * Returns the number of recorded durations.
+	 * @return the number of durations
+	 */
+	long getCount ( ) {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the mean of the recorded durations.
+	 * @return the mean in nanoseconds, or 0 if nothing has been recorded
+	 */
+	double getMean ( ) {
+		long n = count.sum();
+		return (n == 0) ? 0 : (double) total.sum() / n;
+	}
+
+	/**
+	 * Returns an upper bound of a percentile of the recorded durations.
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the upper bound of the bucket containing the percentile, in
+	 * nanoseconds, or 0 if nothing has been recorded
+	 */
+	long getPercentile ( double percentile ) {
+		long [] counts = getBuckets();
+		long n = 0;
+		for (long c : counts) {
+			n += c;
+		}
+		if (n == 0)
+			return 0;
+		long rank = (long) Math.ceil(percentile / 100 * n);
+		long seen = 0;
+		for (int b = 0; b < counts.length; b++) {
+			seen += counts[b];
+			if (seen >= Math.max(rank, 1))
+				return getUpperBound(b);
+		}
+		return getUpperBound(counts.length - 1);
+	}
+
+	/**
+	 * Returns the number of durations in every bucket.
+	 * @return a new array with one element per bucket
+	 */
+	long [] getBuckets ( ) {
+		long [] counts = new long [NUM_OF_BUCKETS];
+		for (int b = 0; b < counts.length; b++) {
+			counts[b] = buckets.get(b);
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the largest duration counted in a bucket.
+	 * @param bucket the bucket
+	 * @return the upper bound of the bucket in nanoseconds
+	 */
+	static long getUpperBound ( int bucket ) {
+		return (bucket == 0) ? 0 : (bucket >= 63) ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	/**
+	 * Describes this histogram as a JSON object with the count, the mean, some
+	 * percentiles and the non-empty buckets, given by their upper bounds.
+	 * @return the JSON text
+	 */
+	String toJson ( ) {
+		StringBuffer result = new StringBuffer();
+		result.append(String.format(Locale.ROOT, "{\"count\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, \"p99\": %d, "
+				+ "\"p999\": %d, \"buckets\": {", getCount(), getMean(), getPercentile(50), getPercentile(90),
+				getPercentile(99), getPercentile(99.9)));
+		long [] counts = getBuckets();
+		String separator = "";
+		for (int b = 0; b < counts.length; b++) {
+			if (counts[b] > 0) {
+				result.append(String.format(Locale.ROOT, "%s\"%d\": %d", separator, getUpperBound(b), counts[b]));
+				separator = ", ";
+			}
+		}
+		result.append("}}");
+		return result.toString();
+	}
+}
@@ -0,0 +1,96 @@
+
+
+/**
+ * LongHashSet is a set of long values stored in a single primitive array, without
+ * an object per value. It uses open addressing with linear probing: a value is
+ * placed in the first free slot at or after the slot chosen by its hash. The table
+ * is doubled whenever it becomes half full, so a value is found in about two probes
+ * and the set needs between 16 and 32 bytes per value. A free slot is marked by the
+ * value 0, which is therefore kept in a separate flag.
+ * Values can only be added, never removed.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class LongHashSet {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long [] table;
+	private int size;
+	private boolean containsZero;
+
+	/**
+	 * Creates an empty LongHashSet object.
+	 */
+	LongHashSet ( ) {
+		table = new long [INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds a value to this set.
+	 * @param value the value
+	 * @return true if the value was added, false if it was already in the set
+	 */
+	boolean add ( long value ) {
+		if (value == 0) {
+			if (containsZero)
+				return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int mask = table.length - 1;
+		int slot = hash(value) & mask;
+		while (table[slot] != 0) {
+			if (table[slot] == value)
+				return false;
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = value;
+		size++;
+		if (2 * size > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the table of this set.
+	 * @return the number of bytes
+	 */
+	long getMemoryUsage ( ) {
+		return 8L * table.length;
+	}
+
+	/*
+	 * Doubles the table and places all values again.
+	 */
+	private void grow ( ) {
+		long [] old = table;
+		table = new long [2 * old.length];
+		int mask = table.length - 1;
+		for (long value : old) {
+			if (value != 0) {
+				int slot = hash(value) & mask;
+				while (table[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+		}
+	}
+
+	/*
+	 * Spreads the bits of a value over the whole hash (the finalizer of MurmurHash3),
+	 * so that consecutive keys do not fill consecutive slots.
+	 */
+	private static int hash ( long value ) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return (int) value;
+	}
+}
@@ -0,0 +1,148 @@
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedCollisionRecords keeps the fixed-width values of the rows of a
+ * CollisionStore object outside the heap, as records of RECORD_SIZE bytes in a
+ * memory-mapped scratch file. The file is mapped in segments of a fixed number of
+ * records, and a new segment is mapped whenever the last one is full, so the rows
+ * never move. Of the records, only the array of segments is kept on the heap, and
+ * the operating system pages the records in and out of memory as needed (which
+ * also allows more records than fit in memory).
+ * The scratch file is created in a given directory and deleted right after it has
+ * been opened (or when the program exits, on systems where open files cannot be
+ * deleted). close() closes the file; its space is released once the segments,
+ * which Java cannot unmap explicitly, have been garbage collected.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class MappedCollisionRecords extends CollisionRecords {
+
+	/** Number of bytes of a record. */
+	static final int RECORD_SIZE = 80;
+
+	//offsets of the values within a record; the int columns come first
+	private static final int MINUTE_OF_DAY = 4 * NUM_OF_INT_COLUMNS;
+	private static final int UNIQUE_KEY = 56;
+	private static final int LATITUDE = 64;
+	private static final int LONGITUDE = 72;
+
+	//number of records of a segment is 2^SEGMENT_BITS
+	private static final int SEGMENT_BITS = 16;
+	private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+	private static final long SEGMENT_SIZE = (long) RECORD_SIZE << SEGMENT_BITS;
+
+	private FileChannel channel;
+	private MappedByteBuffer [] segments;
+	private int numOfSegments;
+	private boolean hasLocations;
+
+	/**
+	 * Creates empty MappedCollisionRecords backed by a new scratch file.
+	 * @param directory the directory of the scratch file, or null for the default
+	 * temporary directory
+	 * @throws IOException if the scratch file cannot be created
+	 */
+	MappedCollisionRecords ( File directory ) throws IOException {
+		File file = File.createTempFile("collisions", ".records", directory);
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+		segments = new MappedByteBuffer [16];
+	}
+
+	@Override
+	void close ( ) throws IOException {
+		segments = null;
+		numOfSegments = 0;
+		channel.close();
+	}
+
+	@Override
+	void ensureCapacity ( int numOfRows ) {
+		while ((long) numOfSegments << SEGMENT_BITS < numOfRows) {
+			if (numOfSegments == segments.length) {
+				segments = Arrays.copyOf(segments, 2 * segments.length);
+			}
+			try {
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+						numOfSegments * SEGMENT_SIZE, SEGMENT_SIZE);
+				segment.order(ByteOrder.nativeOrder());
+				segments[numOfSegments++] = segment;
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException("Cannot extend the scratch file of the records", ex);
+			}
+		}
+	}
+
+	/*
+	 * Returns the position of a value of a row within its segment.
+	 */
+	private static int offset ( int row, int field ) {
+		return (row & SEGMENT_MASK) * RECORD_SIZE + field;
+	}
+
+	@Override
+	int getInt ( int column, int row ) {
+		return segments[row >>> SEGMENT_BITS].getInt(offset(row, 4 * column));
+	}
+
+	@Override
+	void setInt ( int column, int row, int value ) {
+		segments[row >>> SEGMENT_BITS].putInt(offset(row, 4 * column), value);
+	}
+
+	@Override
+	int getMinuteOfDay ( int row ) {
+		return segments[row >>> SEGMENT_BITS].getShort(offset(row, MINUTE_OF_DAY));
+	}
+
+	@Override
+	void setMinuteOfDay ( int row, int minute ) {
+		segments[row >>> SEGMENT_BITS].putShort(offset(row, MINUTE_OF_DAY), (short) minute);
+	}
+
+	@Override
+	long getUniqueKey ( int row ) {
+		return segments[row >>> SEGMENT_BITS].getLong(offset(row, UNIQUE_KEY));
+	}
+
+	@Override
+	void setUniqueKey ( int row, long key ) {
+		segments[row >>> SEGMENT_BITS].putLong(offset(row, UNIQUE_KEY), key);
+	}
+
+	@Override
+	boolean hasLocations ( ) {
+		return hasLocations;
+	}
+
+	@Override
+	double getLatitude ( int row ) {
+		return segments[row >>> SEGMENT_BITS].getDouble(offset(row, LATITUDE));
+	}
+
+	@Override
+	double getLongitude ( int row ) {
+		return segments[row >>> SEGMENT_BITS].getDouble(offset(row, LONGITUDE));
+	}
+
+	@Override
+	void setLocation ( int row, double latitude, double longitude ) {
+		MappedByteBuffer segment = segments[row >>> SEGMENT_BITS];
+		segment.putDouble(offset(row, LATITUDE), latitude);
+		segment.putDouble(offset(row, LONGITUDE), longitude);
+		hasLocations |= !Double.isNaN(latitude);
+	}
+}
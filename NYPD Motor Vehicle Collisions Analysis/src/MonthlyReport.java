@@ -0,0 +1,136 @@
+
+
+import java.io.IOException;
+
+/**
+ * MonthlyReport computes the trend of collisions over time: the number of 
+ * collisions in every month from the first to the last month of the data, with a 
+ * bar proportional to that number. Collisions with incorrectly formed dates are not 
+ * placed in any month. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class MonthlyReport implements CollisionReport {
+	
+	//length of the bar of the month with the most collisions 
+	private static final int MAX_BAR = 60; 
+	
+	//counts taken from the running totals or from a scan 
+	private CollisionAggregates counts;
+
+	@Override
+	public boolean addAggregates ( CollisionAggregates aggregates ) {
+		counts = aggregates;
+		return true;
+	}
+
+	@Override
+	public boolean needsCollisions ( ) {
+		return true;
+	}
+
+	@Override
+	public void addZipCode ( ZipCodeList zipList ) {
+		//the counts are taken from the collisions 
+	}
+
+	@Override
+	public void addCollision ( CollisionStore store, int row ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.add(store, row);
+	}
+
+	@Override
+	public CollisionReport newPartial ( ) {
+		return new MonthlyReport();
+	}
+
+	@Override
+	public void merge ( CollisionReport partial ) {
+		CollisionAggregates other = ((MonthlyReport) partial).counts;
+		if (other == null) 
+			return;
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.addAll(other);
+	}
+
+	@Override
+	public boolean isAffectedBy ( ZipCodeList zipList, CollisionStore store, int row ) {
+		//collisions that are not placed in any month do not change the trend 
+		return store.getEpochDay(row) != CollisionStore.NO_DATE;
+	}
+
+	/**
+	 * Returns the first month in which a collision occurred. 
+	 * @return the month, numbered as year * 12 + month - 1 (see 
+	 * CollisionAggregates.monthOf()), or 0 if there are no dated collisions 
+	 */
+	public int getFirstMonth ( ) {
+		return getCounts().getFirstMonth();
+	}
+	
+	/**
+	 * Returns the last month in which a collision occurred. 
+	 * @return the month, numbered as in getFirstMonth(), or -1 if there are no dated 
+	 * collisions 
+	 */
+	public int getLastMonth ( ) {
+		return getCounts().getLastMonth();
+	}
+	
+	/**
+	 * Returns the number of collisions that occurred within a given month. 
+	 * @param month the month, numbered as in getFirstMonth() 
+	 * @return the number of collisions 
+	 */
+	public int getCount ( int month ) {
+		return getCounts().getMonthlyCount(month);
+	}
+	
+	/*
+	 * Returns the counts, which are empty if no data has been added. 
+	 */
+	private CollisionAggregates getCounts ( ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		return counts;
+	}
+
+	@Override
+	public String getResult ( ) {
+		return ReportFormat.TEXT.render(this);
+	}
+
+	@Override
+	public void render ( ReportFormat format, Appendable out ) throws IOException {
+		int first = getFirstMonth();
+		int last = getLastMonth();
+		if (format != ReportFormat.TEXT) {
+			ReportTableWriter table = new ReportTableWriter(format, out, "month", "collisions");
+			for (int month = first; month <= last; month++) {
+				table.addRow(String.format("%04d-%02d", month / 12, month % 12 + 1), getCount(month));
+			}
+			table.close();
+			return;
+		}
+		int max = 0;
+		for (int month = first; month <= last; month++) {
+			max = Math.max(max, getCount(month));
+		}
+		
+		for (int month = first; month <= last; month++) {
+			int count = getCount(month);
+			int numOfBars = (int)((double)count / max * MAX_BAR);
+			out.append(String.format("    %04d-%02d %8d ", month / 12, month % 12 + 1, count));
+			for (int j = 0; j < numOfBars; j++)
+				out.append('|');
+			out.append('\n');
+		}
+	}
+}
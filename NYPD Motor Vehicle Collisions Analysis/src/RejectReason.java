@@ -0,0 +1,31 @@
+
+
+/**
+ * Enumerator of the reasons for which a line of collision data is rejected (see
+ * CollisionTokenizer.getRejectReason()).
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public enum RejectReason {
+
+	/** The line does not have exactly 21 entries. */
+	FIELD_COUNT ("fieldCount"),
+	/** One of the injury and fatality counts is not an integer or is negative. */
+	INVALID_NUMBER ("invalidNumber"),
+	/** The zip code does not consist of five digits. */
+	INVALID_ZIP ("invalidZip");
+
+	private String name;
+
+	private RejectReason ( String name ) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of this reason as used in the metrics (see IngestMetrics).
+	 * @return the name
+	 */
+	public String getName ( ) {
+		return name;
+	}
+}
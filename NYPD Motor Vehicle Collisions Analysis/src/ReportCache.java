@@ -0,0 +1,232 @@
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * ReportCache keeps the reports computed over a CollisionList object, so that
+ * asking for the same report again does not compute it again. Reports are kept
+ * as objects and their text is formatted only when it is first asked for, so that
+ * callers that read the numbers of a report never pay for formatting. Results are
+ * keyed by the kind of report and its parameters. When a collision is added, only
+ * the results that the collision changes are dropped: every cached report is asked
+ * whether it is affected by the new collision (see CollisionReport.isAffectedBy()).
+ * When many collisions are added at once, all results are dropped.
+ * The cache holds at most a given number of results and drops the least recently
+ * used result when it is full. It counts hits, misses, evictions and invalidations.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ReportCache {
+
+	/** Number of results kept by default. */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/*
+	 * A cached report, which also decides when it is no longer valid, together with
+	 * its text once it has been asked for.
+	 */
+	private static class Entry {
+		CollisionReport report;
+		String result;
+
+		Entry ( CollisionReport report, String result ) {
+			this.report = report;
+			this.result = result;
+		}
+
+		String getResult ( ) {
+			if (result == null) {
+				result = report.getResult();
+			}
+			return result;
+		}
+	}
+
+	private int capacity;
+	//entries in access order, the least recently used first
+	private LinkedHashMap<Object, Entry> entries;
+	//number of entries, readable without the lock so that adding a collision to a
+	//list with an empty cache does not synchronize
+	private volatile int numOfEntries;
+
+	private long numOfHits;
+	private long numOfMisses;
+	private long numOfEvictions;
+	private long numOfInvalidations;
+
+	/**
+	 * Creates an empty ReportCache object.
+	 * @param capacity the largest number of results kept, 0 to keep none
+	 * @throws IllegalArgumentException when capacity is negative
+	 */
+	public ReportCache ( int capacity ) throws IllegalArgumentException {
+		setCapacity(capacity);
+		entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+	}
+
+	/**
+	 * Changes the largest number of results kept, dropping the least recently used
+	 * results if there are more.
+	 * @param capacity the largest number of results kept, 0 to keep none
+	 * @throws IllegalArgumentException when capacity is negative
+	 */
+	public synchronized void setCapacity ( int capacity ) throws IllegalArgumentException {
+		if (capacity < 0)
+			throw new IllegalArgumentException ("Error: the capacity cannot be negative. ");
+		this.capacity = capacity;
+		if (entries != null) {
+			evict();
+			numOfEntries = entries.size();
+		}
+	}
+
+	/**
+	 * Returns a cached report and counts a hit, or counts a miss if there is none.
+	 * @param key the kind of report and its parameters
+	 * @return the report, or null if it is not cached
+	 */
+	synchronized CollisionReport get ( Object key ) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			numOfMisses++;
+			return null;
+		}
+		numOfHits++;
+		return entry.report;
+	}
+
+	/**
+	 * Returns the text of a cached report and counts a hit, or counts a miss if there
+	 * is none. The text is formatted the first time it is asked for and kept with
+	 * the report.
+	 * @param key the kind of report and its parameters
+	 * @return the result of the report, or null if it is not cached
+	 */
+	synchronized String getResult ( Object key ) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			numOfMisses++;
+			return null;
+		}
+		numOfHits++;
+		return entry.getResult();
+	}
+
+	/**
+	 * Caches a report.
+	 * @param key the kind of report and its parameters
+	 * @param report the computed report
+	 * @param result the text of the report, or null to format it when it is first
+	 * asked for
+	 */
+	synchronized void put ( Object key, CollisionReport report, String result ) {
+		if (capacity == 0)
+			return;
+		entries.put(key, new Entry(report, result));
+		evict();
+		numOfEntries = entries.size();
+	}
+
+	/*
+	 * Drops the least recently used results until at most capacity are left.
+	 */
+	private void evict ( ) {
+		Iterator<Entry> it = entries.values().iterator();
+		while (entries.size() > capacity) {
+			it.next();
+			it.remove();
+			numOfEvictions++;
+		}
+	}
+
+	/**
+	 * Drops the results that are changed by a collision that has just been added.
+	 * @param zipList the zip code list to which the collision has been added
+	 * @param store the store that holds the collision
+	 * @param row the row at which the collision is stored
+	 */
+	void invalidate ( ZipCodeList zipList, CollisionStore store, int row ) {
+		if (numOfEntries == 0) //while the list is loaded, nothing is cached
+			return;
+		synchronized (this) {
+			Iterator<Entry> it = entries.values().iterator();
+			while (it.hasNext()) {
+				if (it.next().report.isAffectedBy(zipList, store, row)) {
+					it.remove();
+					numOfInvalidations++;
+				}
+			}
+			numOfEntries = entries.size();
+		}
+	}
+
+	/**
+	 * Drops all results, for example after many collisions have been added at once.
+	 */
+	synchronized void invalidateAll ( ) {
+		numOfInvalidations += entries.size();
+		entries.clear();
+		numOfEntries = 0;
+	}
+
+	/**
+	 * Returns the largest number of results kept.
+	 * @return the capacity
+	 */
+	public synchronized int getCapacity ( ) {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of results currently cached.
+	 * @return the number of results
+	 */
+	public synchronized int size ( ) {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of requests answered from the cache.
+	 * @return the number of hits
+	 */
+	public synchronized long getNumOfHits ( ) {
+		return numOfHits;
+	}
+
+	/**
+	 * Returns the number of requests for which the report had to be computed.
+	 * @return the number of misses
+	 */
+	public synchronized long getNumOfMisses ( ) {
+		return numOfMisses;
+	}
+
+	/**
+	 * Returns the number of results dropped because the cache was full.
+	 * @return the number of evictions
+	 */
+	public synchronized long getNumOfEvictions ( ) {
+		return numOfEvictions;
+	}
+
+	/**
+	 * Returns the number of results dropped because collisions were added.
+	 * @return the number of invalidations
+	 */
+	public synchronized long getNumOfInvalidations ( ) {
+		return numOfInvalidations;
+	}
+
+	/**
+	 * Describes the counters of this cache.
+	 * @return a string with the hits, misses, evictions and invalidations
+	 */
+	@Override
+	public synchronized String toString ( ) {
+		return String.format("%,d of %,d results cached, %,d hits, %,d misses, %,d evictions, "
+				+ "%,d invalidations", entries.size(), capacity, numOfHits, numOfMisses, numOfEvictions,
+				numOfInvalidations);
+	}
+}
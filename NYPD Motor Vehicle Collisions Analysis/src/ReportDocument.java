@@ -0,0 +1,98 @@
+
+
+import java.io.IOException;
+
+/**
+ * ReportDocument writes the results of a program run, one named section after
+ * another, as a single document in a given format. In the text format every
+ * section is preceded by its title and followed by a blank line. In CSV, the
+ * sections are separated by blank lines and every section starts with its own
+ * header line; the titles are left out. In JSON, the document is one object that
+ * maps the name of every section to its rows. Either way, the document contains
+ * nothing but the sections, so CSV and JSON documents can be read by other
+ * programs as they are.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class ReportDocument {
+
+	/**
+	 * The content of a section, written in a given format (for example the render
+	 * method of a CollisionReport object).
+	 */
+	interface Section {
+		/**
+		 * Writes the content of this section. In JSON the content is a single value,
+		 * such as the array written by ReportTableWriter, without a line break after it.
+		 * @param format the format of the document
+		 * @param out the destination
+		 * @throws IOException if out cannot be written
+		 */
+		void render ( ReportFormat format, Appendable out ) throws IOException;
+	}
+
+	private ReportFormat format;
+	private Appendable out;
+	private int numOfSections;
+
+	/**
+	 * Creates a ReportDocument object and writes the start of the document.
+	 * @param format the format of the document
+	 * @param out the destination
+	 * @throws IOException if out cannot be written
+	 */
+	ReportDocument ( ReportFormat format, Appendable out ) throws IOException {
+		this.format = format;
+		this.out = out;
+		if (format == ReportFormat.JSON) {
+			out.append('{');
+		}
+	}
+
+	/**
+	 * Returns the format of this document.
+	 * @return the format
+	 */
+	ReportFormat getFormat ( ) {
+		return format;
+	}
+
+	/**
+	 * Writes a section.
+	 * @param name the name of the section, used as the key in JSON
+	 * @param title the title of the section, used in the text format
+	 * @param section the content of the section
+	 * @throws IOException if out cannot be written
+	 */
+	void add ( String name, String title, Section section ) throws IOException {
+		switch (format) {
+		case TEXT:
+			out.append(title).append('\n');
+			section.render(format, out);
+			out.append('\n');
+			break;
+		case CSV:
+			if (numOfSections > 0) {
+				out.append('\n');
+			}
+			section.render(format, out);
+			break;
+		default:
+			//the key is written first and the section streams its value after it
+			out.append((numOfSections == 0) ? "\n\"" : ",\n\"").append(name).append("\": ");
+			section.render(format, out);
+		}
+		numOfSections++;
+	}
+
+	/**
+	 * Writes the end of the document.
+	 * @throws IOException if out cannot be written
+	 */
+	void close ( ) throws IOException {
+		if (format == ReportFormat.JSON) {
+			out.append((numOfSections == 0) ? "}\n" : "\n}\n");
+		}
+	}
+}
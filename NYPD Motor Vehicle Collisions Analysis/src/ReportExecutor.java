@@ -0,0 +1,250 @@
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ReportExecutor computes several CollisionReport objects over a CollisionList object 
+ * in a single pass. Reports that can be answered from the running totals kept by 
+ * CollisionList do not need a pass at all. For the remaining reports every zip code 
+ * list is visited once and, if at least one of them needs individual collisions, 
+ * the rows of that zip code are scanned once and passed to all such reports. Adding 
+ * a report therefore adds only the cost of its own accumulation, not the cost of 
+ * another scan. 
+ * Reports can also be computed over a CollisionSummary object, which has the totals 
+ * of every zip code but no individual collisions. 
+ * The rows are scanned only for the results of CollisionList.query(), which do not 
+ * keep running totals. That scan can be run on the threads of a ForkJoinPool (see 
+ * setParallel()): the rows of all zip code lists, one list after the other, are 
+ * split into ranges of about equal size that are scanned by separate tasks, each 
+ * into its own partial reports (see CollisionReport.newPartial()), and the partial 
+ * reports are merged in the order of the ranges, so the results are the same as 
+ * those of a scan on a single thread. A range can start or end in the middle of 
+ * the rows of a zip code; the zip code list itself is passed only to the partial 
+ * reports of the range that holds its first row. Passes that do not scan any rows 
+ * visit only the zip code lists, which is not worth splitting, and always run on 
+ * the calling thread. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ReportExecutor {
+	
+	private CollisionAggregates aggregates;
+	private List<ZipCodeList> zipLists;
+	private ArrayList<CollisionReport> reports;
+	
+	//smallest number of rows worth scanning in a separate task 
+	private static final int MIN_RANGE_SIZE = 4096;
+	
+	//pool on which the scan is run, or null to run it on the calling thread 
+	private ForkJoinPool pool;
+	//position of the first row of every zip code list in the concatenation of their 
+	//rows, followed by the number of all rows 
+	private int [] firstRows;
+	//largest number of rows scanned by one task 
+	private int rangeSize;
+	
+	/**
+	 * Creates a ReportExecutor object with no registered reports. If collisions is 
+	 * the result of a query whose running totals have not been computed, the reports 
+	 * are computed from its rows. 
+	 * @param collisions the collisions over which the reports are computed 
+	 */
+	public ReportExecutor ( CollisionList collisions ) {
+		this(collisions.getComputedAggregates(), collisions.getZipCodeLists());
+	}
+	
+	/**
+	 * Creates a ReportExecutor object with no registered reports. Reports that need 
+	 * individual collisions are not passed any. 
+	 * @param summary the summary over which the reports are computed 
+	 */
+	public ReportExecutor ( CollisionSummary summary ) {
+		this(summary.getAggregates(), summary.getZipCodeLists());
+	}
+	
+	/*
+	 * Creates a ReportExecutor object over given running totals (or null if there are 
+	 * none) and zip code lists. 
+	 */
+	private ReportExecutor ( CollisionAggregates aggregates, List<ZipCodeList> zipLists ) {
+		this.aggregates = aggregates;
+		this.zipLists = zipLists;
+		this.reports = new ArrayList<CollisionReport>();
+	}
+	
+	/**
+	 * Registers a report to be computed by the next call to run(). 
+	 * @param report the report 
+	 * @return this ReportExecutor object, so that calls can be chained 
+	 */
+	public ReportExecutor register ( CollisionReport report ) {
+		reports.add(report);
+		return this;
+	}
+	
+	/**
+	 * Selects whether the scan of the rows is run on the calling thread or split 
+	 * across the threads of a pool. The scan is split only if every report that 
+	 * needs it can be split (see CollisionReport.newPartial()) and there are enough 
+	 * rows. 
+	 * @param pool the pool, for example ForkJoinPool.commonPool(), or null to run the 
+	 * pass on the calling thread 
+	 * @return this ReportExecutor object, so that calls can be chained 
+	 */
+	public ReportExecutor setParallel ( ForkJoinPool pool ) {
+		this.pool = pool;
+		return this;
+	}
+	
+	/**
+	 * Computes all registered reports in a single pass over the collisions. 
+	 * The results are available from the reports themselves. 
+	 */
+	public void run ( ) {
+		ArrayList<CollisionReport> zipReports = new ArrayList<CollisionReport>();
+		boolean scansRows = false;
+		for (CollisionReport report : reports) {
+			if (aggregates != null && report.addAggregates(aggregates)) {
+				continue; //computed from the running totals 
+			}
+			zipReports.add(report);
+			scansRows |= report.needsCollisions();
+		}
+		if (zipReports.isEmpty()) 
+			return;
+		CollisionReport [] reportArray = zipReports.toArray(new CollisionReport [0]);
+		
+		firstRows = new int [zipLists.size() + 1];
+		for (int z = 0; z < zipLists.size(); z++) {
+			firstRows[z + 1] = firstRows[z] + zipLists.get(z).getNumOfRows();
+		}
+		int numOfRows = firstRows[zipLists.size()];
+		if (pool == null || !scansRows || numOfRows < 2 * MIN_RANGE_SIZE || !canSplit(reportArray)) {
+			scan(reportArray, 0, numOfRows);
+			return;
+		}
+		//several ranges per thread, so that threads that finish early can take over 
+		//the ranges of slower threads 
+		rangeSize = Math.max(MIN_RANGE_SIZE, numOfRows / (4 * pool.getParallelism()));
+		CollisionReport [] partials = pool.invoke(new ScanTask(reportArray, 0, numOfRows));
+		for (int i = 0; i < reportArray.length; i++) {
+			reportArray[i].merge(partials[i]);
+		}
+	}
+	
+	/*
+	 * Determines if all given reports can be split into partial reports. 
+	 */
+	private static boolean canSplit ( CollisionReport [] reports ) {
+		for (CollisionReport report : reports) {
+			if (report.newPartial() == null) 
+				return false;
+		}
+		return true;
+	}
+	
+	/*
+	 * Feeds the rows at positions [from, to) of the concatenation of the rows of all 
+	 * zip code lists to the reports that need them, and to all given reports the zip 
+	 * code lists whose first row is in that range. Zip code lists without rows are 
+	 * fed with the range that starts at their position, or with the last range. 
+	 */
+	private void scan ( CollisionReport [] reports, int from, int to ) {
+		ArrayList<CollisionReport> rowReports = new ArrayList<CollisionReport>();
+		for (CollisionReport report : reports) {
+			if (report.needsCollisions()) {
+				rowReports.add(report);
+			}
+		}
+		CollisionReport [] rowReportArray = rowReports.toArray(new CollisionReport [0]);
+		boolean last = (to == firstRows[zipLists.size()]);
+		
+		for (int z = findFirstZipCode(from); z < zipLists.size(); z++) {
+			int start = firstRows[z];
+			if (start > to || (start == to && !last)) 
+				break;
+			ZipCodeList zipList = zipLists.get(z);
+			if (start >= from) {
+				for (CollisionReport report : reports) {
+					report.addZipCode(zipList);
+				}
+			}
+			if (rowReportArray.length == 0) 
+				continue;
+			
+			CollisionStore store = zipList.getStore();
+			int end = Math.min(firstRows[z + 1], to) - start;
+			for (int i = Math.max(start, from) - start; i < end; i++) {
+				int row = zipList.getRow(i);
+				for (CollisionReport report : rowReportArray) {
+					report.addCollision(store, row);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Returns the first zip code list that has rows at or after position, or that 
+	 * starts at position: the smallest z for which firstRows[z + 1] > position or 
+	 * firstRows[z] >= position (both grow with z). 
+	 */
+	private int findFirstZipCode ( int position ) {
+		int low = 0;
+		int high = zipLists.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (firstRows[middle + 1] > position || firstRows[middle] >= position) {
+				high = middle;
+			}
+			else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+	
+	/*
+	 * ScanTask computes partial reports over a range of rows, splitting the range in 
+	 * halves until it is at most rangeSize rows long. The partial reports of the 
+	 * second half are merged into those of the first half. 
+	 */
+	private class ScanTask extends RecursiveTask<CollisionReport []> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private CollisionReport [] reports;
+		private int from;
+		private int to;
+		
+		ScanTask ( CollisionReport [] reports, int from, int to ) {
+			this.reports = reports;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected CollisionReport [] compute ( ) {
+			if (to - from <= rangeSize) {
+				CollisionReport [] partials = new CollisionReport [reports.length];
+				for (int i = 0; i < reports.length; i++) {
+					partials[i] = reports[i].newPartial();
+				}
+				scan(partials, from, to);
+				return partials;
+			}
+			int middle = (from + to) >>> 1;
+			ScanTask second = new ScanTask(reports, middle, to);
+			second.fork();
+			CollisionReport [] partials = new ScanTask(reports, from, middle).compute();
+			CollisionReport [] secondPartials = second.join();
+			for (int i = 0; i < partials.length; i++) {
+				partials[i].merge(secondPartials[i]);
+			}
+			return partials;
+		}
+	}
+}
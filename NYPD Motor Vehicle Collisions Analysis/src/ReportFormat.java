@@ -0,0 +1,37 @@
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Enumerator of the formats in which a CollisionReport object can be rendered (see
+ * CollisionReport.render()). The text format is meant for people, the CSV and JSON
+ * formats list the same numbers as rows of named columns for other programs.
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public enum ReportFormat {
+
+	/** Aligned text with bars, as printed by CollisionInfo. */
+	TEXT,
+	/** Comma-separated values with a header line (RFC 4180). */
+	CSV,
+	/** A JSON array with one object per row. */
+	JSON;
+
+	/**
+	 * Renders a report in this format into a string.
+	 * @param report the report, after all the data has been added
+	 * @return the rendered report
+	 */
+	public String render ( CollisionReport report ) {
+		StringBuffer result = new StringBuffer();
+		try {
+			report.render(this, result);
+		}
+		catch (IOException ex) { //StringBuffer does not throw
+			throw new UncheckedIOException(ex);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,157 @@
+
+
+import java.io.IOException;
+
+/**
+ * ReportTableWriter writes the rows of a report as CSV or JSON to an Appendable
+ * object as they are added, without building the whole output first. In CSV, the
+ * column names form the header line and every row is a line. In JSON, the output
+ * is an array with one object per row, keyed by the column names, and it ends with
+ * the closing bracket, so that it can be written as a value inside a larger JSON
+ * document (see ReportDocument). Values can be
+ * strings or numbers; numbers that are not finite are written as empty CSV fields
+ * and JSON nulls.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class ReportTableWriter {
+
+	private ReportFormat format;
+	private Appendable out;
+	private String [] columns;
+	private int numOfRows;
+
+	/**
+	 * Creates a ReportTableWriter object and writes the start of the table.
+	 * @param format ReportFormat.CSV or ReportFormat.JSON
+	 * @param out the destination
+	 * @param columns the names of the columns
+	 * @throws IOException if out cannot be written
+	 * @throws IllegalArgumentException when format is not CSV or JSON
+	 */
+	ReportTableWriter ( ReportFormat format, Appendable out, String... columns )
+			throws IOException, IllegalArgumentException {
+		if (format != ReportFormat.CSV && format != ReportFormat.JSON)
+			throw new IllegalArgumentException ("Error: not a table format: " + format + ". ");
+		this.format = format;
+		this.out = out;
+		this.columns = columns;
+		if (format == ReportFormat.CSV) {
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				appendCsv(columns[i]);
+			}
+			out.append('\n');
+		}
+		else {
+			out.append('[');
+		}
+	}
+
+	/**
+	 * Writes a row.
+	 * @param values the values of the row, one for each column
+	 * @throws IOException if out cannot be written
+	 * @throws IllegalArgumentException when the number of values does not match the
+	 * number of columns
+	 */
+	void addRow ( Object... values ) throws IOException, IllegalArgumentException {
+		if (values.length != columns.length)
+			throw new IllegalArgumentException ("Error: " + columns.length + " values expected. ");
+		if (format == ReportFormat.CSV) {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				if (values[i] instanceof Number) {
+					if (isFinite((Number) values[i])) {
+						out.append(values[i].toString());
+					}
+				}
+				else {
+					appendCsv(String.valueOf(values[i]));
+				}
+			}
+			out.append('\n');
+		}
+		else {
+			out.append((numOfRows == 0) ? "\n  {" : ",\n  {");
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					out.append(", ");
+				}
+				appendJson(columns[i]);
+				out.append(": ");
+				if (values[i] instanceof Number) {
+					out.append(isFinite((Number) values[i]) ? values[i].toString() : "null");
+				}
+				else {
+					appendJson(String.valueOf(values[i]));
+				}
+			}
+			out.append('}');
+		}
+		numOfRows++;
+	}
+
+	/**
+	 * Writes the end of the table: nothing in CSV, whose rows end with line breaks,
+	 * and the closing bracket without a line break in JSON.
+	 * @throws IOException if out cannot be written
+	 */
+	void close ( ) throws IOException {
+		if (format == ReportFormat.JSON) {
+			out.append((numOfRows == 0) ? "]" : "\n]");
+		}
+	}
+
+	/*
+	 * Determines if a number is neither infinite nor NaN.
+	 */
+	private static boolean isFinite ( Number value ) {
+		return !(value instanceof Double || value instanceof Float) || Double.isFinite(value.doubleValue());
+	}
+
+	/*
+	 * Writes a CSV field, quoted if it contains a comma, a quote or a line break.
+	 */
+	private void appendCsv ( String value ) throws IOException {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+			out.append(value);
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				out.append('"');
+			}
+			out.append(c);
+		}
+		out.append('"');
+	}
+
+	/*
+	 * Writes a JSON string.
+	 */
+	private void appendJson ( String value ) throws IOException {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				out.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+}
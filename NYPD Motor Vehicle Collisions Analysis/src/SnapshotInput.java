@@ -0,0 +1,211 @@
+
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * SnapshotInput reads a snapshot written by SnapshotOutput. The file is memory
+ * mapped in windows of up to 1 GB, and arrays are copied out of the mapping with
+ * bulk gets, so loading a snapshot costs little more than touching its pages.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class SnapshotInput implements Closeable {
+
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	private FileChannel channel;
+	private long size;
+	private long position;
+
+	private ByteBuffer window;
+	private long windowStart;
+
+	/**
+	 * Creates a SnapshotInput object that reads from a given file and checks the
+	 * header of the snapshot.
+	 * @param file the snapshot file
+	 * @throws IOException if the file cannot be read, is not a snapshot or has a
+	 * format version that is not supported
+	 */
+	SnapshotInput ( File file ) throws IOException {
+		this(file, SnapshotOutput.MAGIC);
+	}
+
+	/**
+	 * Creates a SnapshotInput object that reads from a given file and checks that
+	 * the header has a given magic number and a supported format version.
+	 * @param file the file
+	 * @param magic SnapshotOutput.MAGIC for a snapshot, SnapshotOutput.SUMMARY_MAGIC
+	 * for a summary
+	 * @throws IOException if the file cannot be read, does not start with magic or
+	 * has a format version that is not supported
+	 */
+	SnapshotInput ( File file, int magic ) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		size = channel.size();
+		try {
+			if (size < 8 || readInt() != magic)
+				throw new IOException(file + " is not a collision "
+						+ ((magic == SnapshotOutput.MAGIC) ? "snapshot" : "summary"));
+			int version = readInt();
+			if (version != SnapshotOutput.VERSION)
+				throw new IOException("Unsupported snapshot version " + version + " in " + file);
+		}
+		catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Reads a single int value.
+	 * @return the value
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	int readInt ( ) throws IOException {
+		return region(4).getInt();
+	}
+
+	/**
+	 * Reads an array of int values.
+	 * @param length the number of values to read
+	 * @param capacity the minimum length of the returned array
+	 * @return an array whose first length elements are the values read
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	int [] readInts ( int length, int capacity ) throws IOException {
+		int [] values = new int [Math.max(length, capacity)];
+		region(4L * length).asIntBuffer().get(values, 0, length);
+		return values;
+	}
+
+	/**
+	 * Reads an array of short values.
+	 * @param length the number of values to read
+	 * @param capacity the minimum length of the returned array
+	 * @return an array whose first length elements are the values read
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	short [] readShorts ( int length, int capacity ) throws IOException {
+		short [] values = new short [Math.max(length, capacity)];
+		region(2L * length).asShortBuffer().get(values, 0, length);
+		return values;
+	}
+
+	/**
+	 * Reads an array of long values.
+	 * @param length the number of values to read
+	 * @param capacity the minimum length of the returned array
+	 * @return an array whose first length elements are the values read
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	long [] readLongs ( int length, int capacity ) throws IOException {
+		long [] values = new long [Math.max(length, capacity)];
+		region(8L * length).asLongBuffer().get(values, 0, length);
+		return values;
+	}
+
+	/**
+	 * Reads an array of double values.
+	 * @param length the number of values to read
+	 * @param capacity the minimum length of the returned array
+	 * @return an array whose first length elements are the values read
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	double [] readDoubles ( int length, int capacity ) throws IOException {
+		double [] values = new double [Math.max(length, capacity)];
+		region(8L * length).asDoubleBuffer().get(values, 0, length);
+		return values;
+	}
+
+	/**
+	 * Reads a list of strings written by SnapshotOutput.writeStrings.
+	 * @return the strings
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	ArrayList<String> readStrings ( ) throws IOException {
+		int n = readLength();
+		int [] lengths = readInts(n, n);
+		long total = 0;
+		for (int length : lengths) {
+			if (length < 0)
+				throw new IOException("Corrupted snapshot: negative string length");
+			total += length;
+		}
+		ByteBuffer region = region(total);
+		byte [] bytes = new byte [(int) total];
+		region.get(bytes);
+
+		ArrayList<String> values = new ArrayList<String> (n);
+		int offset = 0;
+		for (int length : lengths) {
+			values.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+			offset += length;
+		}
+		return values;
+	}
+
+	/**
+	 * Reads a single string written by SnapshotOutput.writeString.
+	 * @return the string
+	 * @throws IOException if the snapshot ends or cannot be read
+	 */
+	String readString ( ) throws IOException {
+		ArrayList<String> values = readStrings();
+		if (values.size() != 1)
+			throw new IOException("Corrupted snapshot: string expected");
+		return values.get(0);
+	}
+
+	/**
+	 * Reads a non-negative int value that is used as a length or a count.
+	 * @return the value
+	 * @throws IOException if the value is negative, or the snapshot ends or cannot
+	 * be read
+	 */
+	int readLength ( ) throws IOException {
+		int length = readInt();
+		if (length < 0)
+			throw new IOException("Corrupted snapshot: negative length");
+		return length;
+	}
+
+	/*
+	 * Returns a buffer over the next length bytes of the file and moves past them,
+	 * mapping a new window if the bytes are not inside the current one.
+	 */
+	private ByteBuffer region ( long length ) throws IOException {
+		if (position + length > size)
+			throw new EOFException("Snapshot ends unexpectedly");
+		if (window == null || position + length > windowStart + window.capacity()) {
+			long windowSize = Math.max(length, Math.min(size - position, WINDOW_SIZE));
+			if (windowSize > Integer.MAX_VALUE)
+				throw new IOException("Snapshot section too large to be mapped");
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+			windowStart = position;
+		}
+		ByteBuffer region = window.duplicate().order(SnapshotOutput.ORDER);
+		region.position((int) (position - windowStart));
+		region.limit(region.position() + (int) length);
+		position += length;
+		return region;
+	}
+
+	/**
+	 * Closes the file. The mapped windows stay valid until they are garbage collected.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close ( ) throws IOException {
+		channel.close();
+	}
+}
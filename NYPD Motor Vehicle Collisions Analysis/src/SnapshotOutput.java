@@ -0,0 +1,207 @@
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SnapshotOutput writes the binary snapshot format read by SnapshotInput. A snapshot
+ * starts with a magic number and a format version, followed by the values written
+ * by the classes that make up a CollisionList object. Arrays are written in bulk,
+ * in little-endian order, without any per-element framing, so that they can be
+ * copied straight out of a memory mapped file when the snapshot is loaded.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+class SnapshotOutput implements Closeable {
+
+	/** Magic number at the start of every snapshot (the bytes "NYCC"). */
+	static final int MAGIC = 0x4343594E;
+	/** Magic number at the start of every summary (the bytes "NYCS"), see CollisionSummary. */
+	static final int SUMMARY_MAGIC = 0x5343594E;
+	/** Version of the snapshot format; incremented whenever the layout changes. */
+	static final int VERSION = 4;
+	/** Byte order of all values in a snapshot. */
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates a SnapshotOutput object that writes to a given file, replacing its
+	 * contents, and writes the header of the snapshot.
+	 * @param file the snapshot file
+	 * @throws IOException if the file cannot be written
+	 */
+	SnapshotOutput ( File file ) throws IOException {
+		this(file, MAGIC);
+	}
+
+	/**
+	 * Creates a SnapshotOutput object that writes to a given file, replacing its
+	 * contents, and writes a header with a given magic number.
+	 * @param file the file
+	 * @param magic MAGIC for a snapshot, SUMMARY_MAGIC for a summary
+	 * @throws IOException if the file cannot be written
+	 */
+	SnapshotOutput ( File file, int magic ) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+		writeInt(magic);
+		writeInt(VERSION);
+	}
+
+	/**
+	 * Writes a single int value.
+	 * @param value the value
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeInt ( int value ) throws IOException {
+		ensureRemaining(4);
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes the first length values of an int array.
+	 * @param values the array
+	 * @param length the number of values to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeInts ( int [] values, int length ) throws IOException {
+		for (int i = 0; i < length; ) {
+			ensureRemaining(4);
+			int n = Math.min(length - i, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, i, n);
+			buffer.position(buffer.position() + 4 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Writes the first length values of a short array.
+	 * @param values the array
+	 * @param length the number of values to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeShorts ( short [] values, int length ) throws IOException {
+		for (int i = 0; i < length; ) {
+			ensureRemaining(2);
+			int n = Math.min(length - i, buffer.remaining() / 2);
+			buffer.asShortBuffer().put(values, i, n);
+			buffer.position(buffer.position() + 2 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Writes the first length values of a long array.
+	 * @param values the array
+	 * @param length the number of values to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeLongs ( long [] values, int length ) throws IOException {
+		for (int i = 0; i < length; ) {
+			ensureRemaining(8);
+			int n = Math.min(length - i, buffer.remaining() / 8);
+			buffer.asLongBuffer().put(values, i, n);
+			buffer.position(buffer.position() + 8 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Writes the first length values of a double array.
+	 * @param values the array
+	 * @param length the number of values to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeDoubles ( double [] values, int length ) throws IOException {
+		for (int i = 0; i < length; ) {
+			ensureRemaining(8);
+			int n = Math.min(length - i, buffer.remaining() / 8);
+			buffer.asDoubleBuffer().put(values, i, n);
+			buffer.position(buffer.position() + 8 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Writes a list of strings: their number, the lengths of their UTF-8 encodings
+	 * and all encodings one after another.
+	 * @param values the strings
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeStrings ( List<String> values ) throws IOException {
+		byte [][] encoded = new byte [values.size()][];
+		int [] lengths = new int [encoded.length];
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+			lengths[i] = encoded[i].length;
+		}
+		writeInt(encoded.length);
+		writeInts(lengths, lengths.length);
+		for (byte [] bytes : encoded) {
+			for (int i = 0; i < bytes.length; ) {
+				ensureRemaining(1);
+				int n = Math.min(bytes.length - i, buffer.remaining());
+				buffer.put(bytes, i, n);
+				i += n;
+			}
+		}
+	}
+
+	/**
+	 * Writes a single string.
+	 * @param value the string
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeString ( String value ) throws IOException {
+		writeStrings(Collections.singletonList(value));
+	}
+
+	/*
+	 * Makes room for at least n bytes in the buffer, writing its contents to the file
+	 * if necessary.
+	 */
+	private void ensureRemaining ( int n ) throws IOException {
+		if (buffer.remaining() < n) {
+			flush();
+		}
+	}
+
+	/*
+	 * Writes the contents of the buffer to the file.
+	 */
+	private void flush ( ) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the remaining buffered values and closes the file.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close ( ) throws IOException {
+		try {
+			flush();
+		}
+		finally {
+			channel.close();
+		}
+	}
+}
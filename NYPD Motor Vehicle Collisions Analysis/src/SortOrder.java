@@ -1,7 +1,35 @@
 
+import java.util.Comparator;
+
 /**
- * Enumerator used to decide on sort order of Collision objects. 
+ * Enumerator used to decide on sort order of Collision objects. Every sort order
+ * has its own comparator (see getComparator()), so collisions can be kept in
+ * several orders at the same time.
  * @author Joanna K. and Dana Kirsanov
  *
  */
-enum SortOrder { ZIP, CYCLISTS, PERSONS, UNIQUEKEY } 
+public enum SortOrder {
+
+	/** Ordered by zip code. */
+	ZIP (Comparator.comparing(Collision::getZip)),
+	/** Ordered by the number of cyclists injured and killed. */
+	CYCLISTS (Comparator.comparingLong(col -> (long) col.getCyclistsInjured() + col.getCyclistsKilled())),
+	/** Ordered by the number of persons injured and killed. */
+	PERSONS (Comparator.comparingLong(col -> (long) col.getPersonsInjured() + col.getPersonsKilled())),
+	/** Ordered by unique key. */
+	UNIQUEKEY (Comparator.comparing(Collision::getUniqueKey));
+
+	private Comparator<Collision> comparator;
+
+	private SortOrder ( Comparator<Collision> comparator ) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Returns the comparator that orders collisions in this sort order.
+	 * @return the comparator
+	 */
+	public Comparator<Collision> getComparator ( ) {
+		return comparator;
+	}
+}
@@ -0,0 +1,194 @@
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * SpaceSaving finds the items with the largest total weight in a stream of weighted
+ * strings, keeping a fixed number of counters. While there are free counters, every
+ * new item gets one. Once all counters are taken, a new item replaces the item with
+ * the smallest counter and inherits its count, which is remembered as the error of
+ * the new counter.
+ * The count of a monitored item is never smaller than its true total weight, and
+ * exceeds it by at most the error of its counter, which is at most the total weight
+ * of all items divided by the number of counters. Every item whose total weight is
+ * larger than that bound is monitored.
+ * The counters are kept in a binary min-heap, so that adding an item takes
+ * logarithmic time in the number of counters.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class SpaceSaving {
+
+	/**
+	 * Counter describes a single monitored item: its count and the largest amount by
+	 * which the count may exceed the true total weight of the item.
+	 */
+	public static class Counter {
+		private String item;
+		private long count;
+		private long error;
+		//position of the counter in the heap
+		private int index;
+
+		private Counter ( String item, long count, long error ) {
+			this.item = item;
+			this.count = count;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the monitored item.
+		 * @return the item
+		 */
+		public String getItem ( ) {
+			return item;
+		}
+
+		/**
+		 * Returns the count of the item, which is at least its true total weight.
+		 * @return the count
+		 */
+		public long getCount ( ) {
+			return count;
+		}
+
+		/**
+		 * Returns the largest amount by which the count may exceed the true total
+		 * weight of the item.
+		 * @return the error of the count
+		 */
+		public long getError ( ) {
+			return error;
+		}
+	}
+
+	private Counter [] heap;
+	private int size;
+	private HashMap<String, Counter> counters;
+	private long totalWeight;
+
+	/**
+	 * Creates a SpaceSaving object with a given number of counters.
+	 * @param capacity the number of counters
+	 * @throws IllegalArgumentException if capacity is smaller than 1
+	 */
+	public SpaceSaving ( int capacity ) throws IllegalArgumentException {
+		if (capacity < 1)
+			throw new IllegalArgumentException ("Error: at least one counter is needed. ");
+		heap = new Counter [capacity];
+		counters = new HashMap<String, Counter>(2 * capacity);
+	}
+
+	/**
+	 * Adds weight to the total weight of an item. Items with weight zero are ignored,
+	 * so they never replace monitored items.
+	 * @param item the item
+	 * @param weight the weight to be added, not negative
+	 * @throws IllegalArgumentException if weight is negative
+	 */
+	public void add ( String item, long weight ) throws IllegalArgumentException {
+		if (weight < 0)
+			throw new IllegalArgumentException ("Error: negative weight " + weight + ". ");
+		if (weight == 0)
+			return;
+		totalWeight += weight;
+
+		Counter counter = counters.get(item);
+		if (counter == null) {
+			if (size < heap.length) {
+				counter = new Counter(item, 0, 0);
+				counter.index = size;
+				heap[size++] = counter;
+			}
+			else {
+				//the item takes over the smallest counter
+				counter = heap[0];
+				counters.remove(counter.item);
+				counter.item = item;
+				counter.error = counter.count;
+			}
+			counters.put(item, counter);
+		}
+		counter.count += weight;
+		siftDown(counter.index);
+	}
+
+	/**
+	 * Estimates the total weight of an item. The estimate of an item that is not
+	 * monitored is the smallest count, which is an upper bound of its true weight.
+	 * @param item the item
+	 * @return the estimate, which is at least the true total weight of the item
+	 */
+	public long estimate ( String item ) {
+		Counter counter = counters.get(item);
+		if (counter != null)
+			return counter.count;
+		return getMaxError();
+	}
+
+	/**
+	 * Returns the items with the largest counts, together with their counts and
+	 * errors, ordered from the largest count. Items with equal counts are ordered by
+	 * name.
+	 * @param k the number of items
+	 * @return a list of at most k counters
+	 */
+	public ArrayList<Counter> getTop ( int k ) {
+		ArrayList<Counter> result = new ArrayList<Counter>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(new Counter(heap[i].item, heap[i].count, heap[i].error));
+		}
+		Collections.sort(result, (c1, c2) -> (c1.count != c2.count) ? Long.compare(c2.count, c1.count)
+				: c1.item.compareTo(c2.item));
+		return new ArrayList<Counter>(result.subList(0, Math.min(k, result.size())));
+	}
+
+	/**
+	 * Returns the largest error of any counter: zero while there are free counters,
+	 * the smallest count otherwise. It is at most the total weight divided by the
+	 * number of counters.
+	 * @return the error bound of the counts
+	 */
+	public long getMaxError ( ) {
+		return (size < heap.length) ? 0 : heap[0].count;
+	}
+
+	/**
+	 * Returns the total weight of all items added to this object.
+	 * @return the total weight
+	 */
+	public long getTotalWeight ( ) {
+		return totalWeight;
+	}
+
+	/**
+	 * Returns the number of counters.
+	 * @return the largest number of items that are monitored at the same time
+	 */
+	public int getCapacity ( ) {
+		return heap.length;
+	}
+
+	/*
+	 * Moves the counter at index down the heap until its children have larger counts.
+	 */
+	private void siftDown ( int index ) {
+		Counter counter = heap[index];
+		while (2 * index + 1 < size) {
+			int child = 2 * index + 1;
+			if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+				child++;
+			}
+			if (heap[child].count >= counter.count)
+				break;
+			heap[index] = heap[child];
+			heap[index].index = index;
+			index = child;
+		}
+		heap[index] = counter;
+		counter.index = index;
+	}
+}
@@ -0,0 +1,98 @@
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * StringDictionary assigns consecutive integer ids to distinct strings. It is used
+ * to store repeated string values (zip codes, boroughs, vehicle codes) as small
+ * integers. Ids are assigned in the order in which the strings are first encoded
+ * and never change.
+ *
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class StringDictionary {
+
+	private HashMap<String, Integer> ids;
+	private ArrayList<String> values;
+
+	/**
+	 * Creates an empty StringDictionary object.
+	 */
+	public StringDictionary() {
+		ids = new HashMap<String, Integer> ();
+		values = new ArrayList<String> ();
+	}
+
+	/**
+	 * Returns the id of a given string, assigning a new id if the string has
+	 * not been encoded before.
+	 * @param value the string to be encoded
+	 * @return the id of value
+	 */
+	public int encode ( String value ) {
+		Integer id = ids.get(value);
+		if (id == null) {
+			id = values.size();
+			ids.put(value, id);
+			values.add(value);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of a given string without assigning a new one.
+	 * @param value the string to look up
+	 * @return the id of value, or -1 if value has not been encoded
+	 */
+	public int lookup ( String value ) {
+		Integer id = ids.get(value);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * Returns the string with a given id.
+	 * @param id the id of the string
+	 * @return the string associated with id
+	 * @throws IndexOutOfBoundsException if id has not been assigned
+	 */
+	public String decode ( int id ) throws IndexOutOfBoundsException {
+		return values.get(id);
+	}
+
+	/**
+	 * Returns the number of distinct strings in this StringDictionary object.
+	 * @return the number of assigned ids
+	 */
+	public int size ( ) {
+		return values.size();
+	}
+
+	/**
+	 * Writes the strings of this StringDictionary object to a snapshot, in the order
+	 * of their ids.
+	 * @param out the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	void write ( SnapshotOutput out ) throws IOException {
+		out.writeStrings(values);
+	}
+
+	/**
+	 * Reads a StringDictionary object written by write(SnapshotOutput). Every string
+	 * gets the id it had when the snapshot was written.
+	 * @param in the snapshot
+	 * @return the dictionary
+	 * @throws IOException if the snapshot cannot be read or contains a string twice
+	 */
+	static StringDictionary read ( SnapshotInput in ) throws IOException {
+		StringDictionary dictionary = new StringDictionary();
+		for (String value : in.readStrings()) {
+			if (dictionary.encode(value) != dictionary.size() - 1)
+				throw new IOException("Corrupted snapshot: repeated dictionary entry");
+		}
+		return dictionary;
+	}
+}
@@ -0,0 +1,74 @@
+
+
+import java.util.HashMap;
+
+/**
+ * Enumerator of the vehicle types that appear in the vehicle codes of the collision 
+ * data. Every type has the name under which it is reported; a vehicle code is of a 
+ * type if it is equal to the name of the type, ignoring case (see 
+ * CollisionAggregates.toVehicleType). Vehicle codes that are not listed here are 
+ * still counted, under their own names. 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public enum VehicleType {
+	
+	PASSENGER_VEHICLE ("passenger vehicle"), 
+	SPORT_UTILITY ("sport utility / station wagon"), 
+	TAXI ("taxi"), 
+	BUS ("bus"), 
+	BICYCLE ("bicycle"), 
+	FIRE_TRUCK ("fire truck"), 
+	AMBULANCE ("ambulance"), 
+	VAN ("van"), 
+	PICK_UP_TRUCK ("pick-up truck"), 
+	MOTORCYCLE ("motorcycle"), 
+	SCOOTER ("scooter"), 
+	LIVERY_VEHICLE ("livery vehicle"), 
+	SMALL_COMMERCIAL_VEHICLE ("small com veh(4 tires)"), 
+	LARGE_COMMERCIAL_VEHICLE ("large com veh(6 or more tires)"), 
+	OTHER ("other"), 
+	UNKNOWN ("unknown"); 
+	
+	//the types reported by CollisionList.getVehicleTypeStats() 
+	private static final VehicleType [] DEFAULT_REPORT = {TAXI, BUS, BICYCLE, FIRE_TRUCK, AMBULANCE}; 
+	
+	private static final HashMap<String, VehicleType> TYPES = new HashMap<String, VehicleType> (); 
+	static {
+		for (VehicleType type : values()) {
+			TYPES.put(type.name, type);
+		}
+	}
+	
+	private String name; 
+	
+	private VehicleType ( String name ) {
+		this.name = name;
+	}
+	
+	/**
+	 * Returns the name of this vehicle type. 
+	 * @return the name, in lower case 
+	 */
+	public String getName ( ) {
+		return name;
+	}
+	
+	/**
+	 * Determines the type of a vehicle code. 
+	 * @param vehicleCode the vehicle code 
+	 * @return the type of the code, or null if it is not one of the types listed here 
+	 */
+	public static VehicleType fromCode ( String vehicleCode ) {
+		return TYPES.get(CollisionAggregates.toVehicleType(vehicleCode.trim()));
+	}
+	
+	/**
+	 * Returns the vehicle types reported by default: taxi, bus, bicycle, fire truck 
+	 * and ambulance. 
+	 * @return a new array of the default types 
+	 */
+	public static VehicleType [] getDefaultReport ( ) {
+		return DEFAULT_REPORT.clone();
+	}
+}
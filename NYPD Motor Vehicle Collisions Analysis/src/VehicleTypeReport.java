@@ -0,0 +1,218 @@
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * VehicleTypeReport computes the percentage of collisions that involved each of a 
+ * list of vehicle types. By default the types are taxi, bus, bicycle, fire truck 
+ * and ambulance, but any vehicle codes can be requested, or all vehicle types that 
+ * occur in the data. A collision involves a vehicle type if either of its vehicle 
+ * codes matches the type (ignoring case). 
+ * Every distinct vehicle type is counted with a single array increment per vehicle 
+ * (see CollisionAggregates), so the cost of the report does not depend on the 
+ * number of requested types. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class VehicleTypeReport implements CollisionReport {
+	
+	//the requested types as given by the caller, or null if all types are reported 
+	private String [] types; 
+	
+	//counts of all vehicle types, taken from the running totals or from a scan 
+	private CollisionAggregates counts;
+
+	/**
+	 * Creates a report of the default vehicle types: taxi, bus, bicycle, fire truck 
+	 * and ambulance. 
+	 */
+	public VehicleTypeReport ( ) {
+		this(VehicleType.getDefaultReport());
+	}
+	
+	/**
+	 * Creates a report of given vehicle types. 
+	 * @param types the vehicle types, in the order in which they are listed 
+	 */
+	public VehicleTypeReport ( VehicleType... types ) {
+		this.types = new String [types.length];
+		for (int i = 0; i < types.length; i++) {
+			this.types[i] = types[i].getName();
+		}
+	}
+	
+	/**
+	 * Creates a report of given vehicle codes, which do not have to be listed by 
+	 * VehicleType. 
+	 * @param types the vehicle codes (case is ignored), in the order in which they 
+	 * are listed 
+	 */
+	public VehicleTypeReport ( String... types ) {
+		this.types = types.clone();
+	}
+	
+	/**
+	 * Creates a report of all vehicle types that occur in the collisions, listed 
+	 * from the most to the least frequent. 
+	 * @return the report 
+	 */
+	public static VehicleTypeReport allTypes ( ) {
+		VehicleTypeReport report = new VehicleTypeReport(new String [0]);
+		report.types = null;
+		return report;
+	}
+
+	@Override
+	public boolean addAggregates ( CollisionAggregates aggregates ) {
+		counts = aggregates;
+		return true;
+	}
+
+	@Override
+	public boolean needsCollisions ( ) {
+		return true;
+	}
+
+	@Override
+	public void addZipCode ( ZipCodeList zipList ) {
+		//the totals are counted from the collisions 
+	}
+
+	@Override
+	public void addCollision ( CollisionStore store, int row ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.add(store, row);
+	}
+
+	@Override
+	public CollisionReport newPartial ( ) {
+		VehicleTypeReport report = new VehicleTypeReport(new String [0]);
+		report.types = types;
+		return report;
+	}
+
+	@Override
+	public void merge ( CollisionReport partial ) {
+		CollisionAggregates other = ((VehicleTypeReport) partial).counts;
+		if (other == null) 
+			return;
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.addAll(other);
+	}
+
+	/**
+	 * Returns the number of collisions that involved every listed vehicle type. 
+	 * @return the shares, in the order in which the types are listed 
+	 */
+	public ArrayList<Share> getShares ( ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		String [] listed = (types != null) ? types : getTypesByFrequency();
+		ArrayList<Share> result = new ArrayList<Share>(listed.length);
+		for (String type : listed) {
+			result.add(new Share(type, counts.getNumOfCollisionsInvolving(type), 
+					counts.getTotalNumOfCollisions()));
+		}
+		return result;
+	}
+
+	@Override
+	public String getResult ( ) {
+		return ReportFormat.TEXT.render(this);
+	}
+
+	@Override
+	public void render ( ReportFormat format, Appendable out ) throws IOException {
+		ArrayList<Share> shares = getShares();
+		if (format != ReportFormat.TEXT) {
+			ReportTableWriter table = new ReportTableWriter(format, out, "type", "collisions", "percentage");
+			for (Share share : shares) {
+				table.addRow(share.getType(), share.getNumOfCollisions(), share.getPercentage());
+			}
+			table.close();
+			return;
+		}
+		int width = 11;
+		for (Share share : shares) {
+			width = Math.max(width, share.getType().length());
+		}
+		String line = "    %-" + width + "s %5.2f%%\n";
+		
+		for (Share share : shares) {
+			out.append(String.format(line, share.getType(), 
+					(float)(share.getNumOfCollisions())/share.getTotalNumOfCollisions()*100));
+		}
+	}
+	
+	/*
+	 * Returns all vehicle types, from the most to the least frequent (types that are 
+	 * equally frequent are listed alphabetically). Missing vehicle codes are not 
+	 * a type. 
+	 */
+	private String [] getTypesByFrequency ( ) {
+		ArrayList<String> all = counts.getVehicleTypes();
+		all.remove("");
+		all.sort( (a, b) -> {
+			int diff = Integer.compare(counts.getNumOfCollisionsInvolving(b), 
+					counts.getNumOfCollisionsInvolving(a));
+			return (diff != 0) ? diff : a.compareTo(b);
+		});
+		return all.toArray(new String [all.size()]);
+	}
+	
+	/**
+	 * Share is the number of collisions that involved a vehicle type, out of all 
+	 * collisions. 
+	 */
+	public static class Share {
+		
+		private String type;
+		private int numOfCollisions;
+		private int totalNumOfCollisions;
+		
+		private Share ( String type, int numOfCollisions, int totalNumOfCollisions ) {
+			this.type = type;
+			this.numOfCollisions = numOfCollisions;
+			this.totalNumOfCollisions = totalNumOfCollisions;
+		}
+		
+		/**
+		 * Returns the vehicle type. 
+		 * @return the type, as requested or in lower case 
+		 */
+		public String getType ( ) {
+			return type;
+		}
+		
+		/**
+		 * Returns the number of collisions that involved the vehicle type. 
+		 * @return the number of collisions 
+		 */
+		public int getNumOfCollisions ( ) {
+			return numOfCollisions;
+		}
+		
+		/**
+		 * Returns the number of all collisions. 
+		 * @return the number of collisions 
+		 */
+		public int getTotalNumOfCollisions ( ) {
+			return totalNumOfCollisions;
+		}
+		
+		/**
+		 * Returns the percentage of all collisions that involved the vehicle type. 
+		 * @return the percentage, or NaN if there are no collisions 
+		 */
+		public double getPercentage ( ) {
+			return 100.0 * numOfCollisions / totalNumOfCollisions;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+
+
+import java.io.IOException;
+
+/**
+ * WeekdayHourReport computes a heat map of the collisions by day of the week and 
+ * hour of the day: a table with a row for every day from Monday to Sunday and a 
+ * column for every hour, each cell holding the number of collisions that occurred 
+ * in that hour of that day. Collisions with incorrectly formed dates or times are 
+ * not placed in any cell. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class WeekdayHourReport implements CollisionReport {
+	
+	private static final String [] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"}; 
+	
+	//counts taken from the running totals or from a scan 
+	private CollisionAggregates counts;
+
+	@Override
+	public boolean addAggregates ( CollisionAggregates aggregates ) {
+		counts = aggregates;
+		return true;
+	}
+
+	@Override
+	public boolean needsCollisions ( ) {
+		return true;
+	}
+
+	@Override
+	public void addZipCode ( ZipCodeList zipList ) {
+		//the counts are taken from the collisions 
+	}
+
+	@Override
+	public void addCollision ( CollisionStore store, int row ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.add(store, row);
+	}
+
+	@Override
+	public CollisionReport newPartial ( ) {
+		return new WeekdayHourReport();
+	}
+
+	@Override
+	public void merge ( CollisionReport partial ) {
+		CollisionAggregates other = ((WeekdayHourReport) partial).counts;
+		if (other == null) 
+			return;
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		counts.addAll(other);
+	}
+
+	@Override
+	public boolean isAffectedBy ( ZipCodeList zipList, CollisionStore store, int row ) {
+		//collisions that are not placed in any cell do not change the table 
+		return store.getEpochDay(row) != CollisionStore.NO_DATE 
+				&& store.getMinuteOfDay(row) != CollisionStore.NO_TIME;
+	}
+
+	/**
+	 * Returns the number of collisions that occurred within a given hour of a given 
+	 * day of the week. 
+	 * @param day the day of the week, from 0 (Monday) to 6 (Sunday) 
+	 * @param hour the hour, from 0 to 23 
+	 * @return the number of collisions 
+	 */
+	public int getCount ( int day, int hour ) {
+		if (counts == null) {
+			counts = new CollisionAggregates();
+		}
+		return counts.getWeekdayHourCount(day, hour);
+	}
+
+	@Override
+	public String getResult ( ) {
+		return ReportFormat.TEXT.render(this);
+	}
+
+	@Override
+	public void render ( ReportFormat format, Appendable out ) throws IOException {
+		if (format != ReportFormat.TEXT) {
+			ReportTableWriter table = new ReportTableWriter(format, out, "day", "hour", "collisions");
+			for (int day = 0; day < 7; day++) {
+				for (int hour = 0; hour < 24; hour++) {
+					table.addRow(DAYS[day], hour, getCount(day, hour));
+				}
+			}
+			table.close();
+			return;
+		}
+		//every column is as wide as the largest count 
+		int max = 0;
+		for (int day = 0; day < 7; day++) {
+			for (int hour = 0; hour < 24; hour++) {
+				max = Math.max(max, getCount(day, hour));
+			}
+		}
+		String cell = "%" + Math.max(3, Integer.toString(max).length() + 1) + "d";
+		
+		out.append("     ");
+		for (int hour = 0; hour < 24; hour++) {
+			out.append(String.format(cell, hour));
+		}
+		out.append('\n');
+		for (int day = 0; day < 7; day++) {
+			out.append(String.format("%5s", DAYS[day]));
+			for (int hour = 0; hour < 24; hour++) {
+				out.append(String.format(cell, getCount(day, hour)));
+			}
+			out.append('\n');
+		}
+	}
+}
@@ -1,17 +1,24 @@
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * ZipCodeList contains collision objects that all occured in the same zip
  * code. It keeps track of additional information like total number of
  * collisions, injuries and fatalities. 
+ * The collisions themselves are stored in a CollisionStore object (that can be 
+ * shared with other ZipCodeList objects); a ZipCodeList object is a view of the 
+ * rows of the store that belong to its zip code. 
  * @author Joanna K. and Dana Kirsanov
  *
  */
 public class ZipCodeList  implements Iterable <Collision>, Comparable<ZipCodeList>{
 	
-	private ArrayList<Collision> list; 
+	private CollisionStore store; 
+	private int [] rows; 
+	private int numOfRows; 
 	
 	private String zip; 
 	
@@ -32,11 +39,22 @@ public class ZipCodeList  implements Iterable <Collision>, Comparable<ZipCodeLis
 	 * @param col the initial collisions for this ZipCodeList object 
 	 */
 	public ZipCodeList ( Collision col ) { 
-		list = new ArrayList<Collision> () ;
-		zip = col.getZip();
+		this(col.getZip(), new CollisionStore());
 		add(col);
 	}
 	
+	/**
+	 * Creates an empty ZipCodeList object for a given zip code whose collisions 
+	 * are stored in a given CollisionStore object. 
+	 * @param zip the zip code of this ZipCodeList object 
+	 * @param store the store to which the collisions are added 
+	 */
+	ZipCodeList ( String zip, CollisionStore store ) {
+		this.store = store;
+		this.rows = new int [4];
+		this.zip = zip;
+	}
+	
 	/**
 	 * Adds another Collision object to this ZipCodeList object. 
 	 * @param col a Collision object to be added to this ZipCodeList object 
@@ -48,7 +66,7 @@ public class ZipCodeList  implements Iterable <Collision>, Comparable<ZipCodeLis
 		if (!col.getZip().equals(zip))
 			throw new IllegalArgumentException ("Error: zip codes are not matching. ") ;
 		
-		list.add(col);
+		addRow(store.add(col));
 		
 		totalNumOfCollisions ++;
 		totalNumOfPersonsInjured += col.getPersonsInjured();
@@ -62,13 +80,247 @@ public class ZipCodeList  implements Iterable <Collision>, Comparable<ZipCodeLis
 		
 	}
 
+	/**
+	 * Adds all Collision objects stored in another ZipCodeList object to this 
+	 * ZipCodeList object. The collisions are appended in the order in which 
+	 * they are stored in other, and the totals of other are added to the totals 
+	 * of this object. 
+	 * @param other a ZipCodeList object with the same zip code as this object 
+	 * @throws IllegalArgumentException when the zip code of other is not the same 
+	 * as the zip code for this ZipCodeList object 
+	 */
+	public void addAll (ZipCodeList other) throws IllegalArgumentException {
+		if (other == null ) return;
+		addAll(other, (other.store == store) ? null : store.newCopier(other.store));
+	}
+	
+	/**
+	 * Adds all Collision objects stored in another ZipCodeList object to this 
+	 * ZipCodeList object, copying them with a given RowCopier object (so that the 
+	 * ids of its dictionaries are translated once for many zip codes). 
+	 * @param other a ZipCodeList object with the same zip code as this object 
+	 * @param copier a copier from the store of other to the store of this object, 
+	 * or null if the two stores are the same 
+	 * @throws IllegalArgumentException when the zip code of other is not the same 
+	 * as the zip code for this ZipCodeList object 
+	 */
+	void addAll (ZipCodeList other, CollisionStore.RowCopier copier) throws IllegalArgumentException {
+		if (!other.zip.equals(zip))
+			throw new IllegalArgumentException ("Error: zip codes are not matching. ") ;
+		
+		for (int i = 0; i < other.numOfRows; i++) {
+			addRow( (copier == null) ? other.rows[i] : copier.add(other.rows[i]) );
+		}
+		
+		addTotals(other);
+	}
+
+	/**
+	 * Adds a collision that is already stored in the store of this ZipCodeList 
+	 * object, without copying it. 
+	 * @param row the row of the store at which the collision is stored 
+	 * @throws IllegalArgumentException when the zip code of the collision is not 
+	 * the same as the zip code for this ZipCodeList object 
+	 */
+	void addStoredRow (int row) throws IllegalArgumentException {
+		if (!store.getZip(row).equals(zip))
+			throw new IllegalArgumentException ("Error: zip codes are not matching. ") ;
+		
+		addRow(row);
+		
+		totalNumOfCollisions ++;
+		totalNumOfPersonsInjured += store.getCount(CollisionStore.PERSONS_INJURED, row);
+		totalNumOfPersonsKilled += store.getCount(CollisionStore.PERSONS_KILLED, row);
+		totalNumOfCyclistsInjured += store.getCount(CollisionStore.CYCLISTS_INJURED, row);
+		totalNumOfCyclistsKilled += store.getCount(CollisionStore.CYCLISTS_KILLED, row);
+		totalNumOfPedestriansInjured += store.getCount(CollisionStore.PEDESTRIANS_INJURED, row);
+		totalNumOfPedestriansKilled += store.getCount(CollisionStore.PEDESTRIANS_KILLED, row);
+		totalNumOfMotoristsInjured += store.getCount(CollisionStore.MOTORISTS_INJURED, row);
+		totalNumOfMotoristsKilled += store.getCount(CollisionStore.MOTORISTS_KILLED, row);
+	}
+
+	/**
+	 * Returns a ZipCodeList object with the zip code and the totals of this object, 
+	 * but without any collisions. Such objects make up a CollisionSummary object. 
+	 * @return the totals of this ZipCodeList object 
+	 */
+	ZipCodeList getTotals () {
+		ZipCodeList totals = new ZipCodeList(zip, null);
+		totals.addTotals(this);
+		return totals;
+	}
+
+	/**
+	 * Adds the totals of another ZipCodeList object to the totals of this object, 
+	 * without adding its collisions. 
+	 * @param other a ZipCodeList object with the same zip code as this object 
+	 * @throws IllegalArgumentException when the zip code of other is not the same 
+	 * as the zip code for this ZipCodeList object 
+	 */
+	void addTotals (ZipCodeList other) throws IllegalArgumentException {
+		if (!other.zip.equals(zip))
+			throw new IllegalArgumentException ("Error: zip codes are not matching. ") ;
+		
+		totalNumOfCollisions += other.totalNumOfCollisions;
+		totalNumOfPersonsInjured += other.totalNumOfPersonsInjured;
+		totalNumOfPersonsKilled += other.totalNumOfPersonsKilled;
+		totalNumOfCyclistsInjured += other.totalNumOfCyclistsInjured;
+		totalNumOfCyclistsKilled += other.totalNumOfCyclistsKilled;
+		totalNumOfPedestriansInjured += other.totalNumOfPedestriansInjured;
+		totalNumOfPedestriansKilled += other.totalNumOfPedestriansKilled;
+		totalNumOfMotoristsInjured += other.totalNumOfMotoristsInjured;
+		totalNumOfMotoristsKilled += other.totalNumOfMotoristsKilled;
+	}
+
+	/*
+	 * Appends a row of the store to this list. 
+	 */
+	private void addRow (int row) {
+		if (numOfRows == rows.length) {
+			rows = Arrays.copyOf(rows, 2 * rows.length);
+		}
+		rows[numOfRows++] = row;
+	}
+
 	/**
 	 * Returns an iterator for this ZipCodeList object. 
+	 * The iterator returns the same Collision object on every call to next(), 
+	 * moved to the next collision (see CollisionCursor), so the returned objects 
+	 * should not be kept after the iteration moves on. 
 	 * @see java.lang.Iterable#iterator()
 	 */
 	@Override
 	public Iterator<Collision> iterator() {
-		return list.iterator();
+		return new Iterator<Collision>() {
+			private CollisionCursor cursor = new CollisionCursor(store, -1);
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < numOfRows;
+			}
+
+			@Override
+			public Collision next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				cursor.moveTo(rows[next++]);
+				return cursor;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the store that holds the collisions of this ZipCodeList object. 
+	 * @return the store 
+	 */
+	CollisionStore getStore() {
+		return store;
+	}
+	
+	/**
+	 * Returns the number of rows of the store that belong to this ZipCodeList object. 
+	 * @return the number of rows 
+	 */
+	int getNumOfRows() {
+		return numOfRows;
+	}
+	
+	/**
+	 * Returns the row of the store at which the i-th collision of this ZipCodeList 
+	 * object is stored. 
+	 * @param i the position of the collision in this list 
+	 * @return the row of the store 
+	 */
+	int getRow(int i) {
+		return rows[i];
+	}
+	
+	/**
+	 * Writes the zip code, the rows and the totals of this ZipCodeList object to a 
+	 * snapshot. The store is written separately. 
+	 * @param out the snapshot 
+	 * @throws IOException if the snapshot cannot be written 
+	 */
+	void write(SnapshotOutput out) throws IOException {
+		out.writeString(zip);
+		out.writeInt(numOfRows);
+		out.writeInts(rows, numOfRows);
+		writeTotals(out);
+	}
+	
+	/**
+	 * Writes the zip code and the totals of this ZipCodeList object, but not its 
+	 * rows, to a summary (see CollisionSummary). 
+	 * @param out the summary 
+	 * @throws IOException if the summary cannot be written 
+	 */
+	void writeSummary(SnapshotOutput out) throws IOException {
+		out.writeString(zip);
+		writeTotals(out);
+	}
+	
+	/*
+	 * Writes the totals of this ZipCodeList object. 
+	 */
+	private void writeTotals(SnapshotOutput out) throws IOException {
+		out.writeInt(totalNumOfCollisions);
+		out.writeInt(totalNumOfPersonsInjured);
+		out.writeInt(totalNumOfPersonsKilled);
+		out.writeInt(totalNumOfCyclistsInjured);
+		out.writeInt(totalNumOfCyclistsKilled);
+		out.writeInt(totalNumOfPedestriansInjured);
+		out.writeInt(totalNumOfPedestriansKilled);
+		out.writeInt(totalNumOfMotoristsInjured);
+		out.writeInt(totalNumOfMotoristsKilled);
+	}
+	
+	/**
+	 * Reads a ZipCodeList object written by write(SnapshotOutput). 
+	 * @param in the snapshot 
+	 * @param store the store read from the same snapshot 
+	 * @return the ZipCodeList object 
+	 * @throws IOException if the snapshot cannot be read or refers to rows that 
+	 * are not in store 
+	 */
+	static ZipCodeList read(SnapshotInput in, CollisionStore store) throws IOException {
+		ZipCodeList zipList = new ZipCodeList(in.readString(), store);
+		zipList.numOfRows = in.readLength();
+		zipList.rows = in.readInts(zipList.numOfRows, 4);
+		for (int i = 0; i < zipList.numOfRows; i++) {
+			if (zipList.rows[i] < 0 || zipList.rows[i] >= store.size())
+				throw new IOException("Corrupted snapshot: row out of range");
+		}
+		zipList.readTotals(in);
+		return zipList;
+	}
+	
+	/**
+	 * Reads a ZipCodeList object without collisions written by 
+	 * writeSummary(SnapshotOutput). 
+	 * @param in the summary 
+	 * @return the ZipCodeList object 
+	 * @throws IOException if the summary cannot be read 
+	 */
+	static ZipCodeList readSummary(SnapshotInput in) throws IOException {
+		ZipCodeList zipList = new ZipCodeList(in.readString(), null);
+		zipList.readTotals(in);
+		return zipList;
+	}
+	
+	/*
+	 * Reads the totals written by writeTotals(SnapshotOutput). 
+	 */
+	private void readTotals(SnapshotInput in) throws IOException {
+		totalNumOfCollisions = in.readInt();
+		totalNumOfPersonsInjured = in.readInt();
+		totalNumOfPersonsKilled = in.readInt();
+		totalNumOfCyclistsInjured = in.readInt();
+		totalNumOfCyclistsKilled = in.readInt();
+		totalNumOfPedestriansInjured = in.readInt();
+		totalNumOfPedestriansKilled = in.readInt();
+		totalNumOfMotoristsInjured = in.readInt();
+		totalNumOfMotoristsKilled = in.readInt();
 	}
 
 
@@ -0,0 +1,261 @@
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * ZipCodeRankingReport lists k zip codes ranked according to one of the totals kept 
+ * by ZipCodeList objects. The report uses only the totals of every zip code, so it 
+ * does not need to see individual collisions. 
+ * Objects of this class are created with the factory methods, one for each of the 
+ * rankings produced by CollisionList. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ZipCodeRankingReport implements CollisionReport {
+	
+	/*
+	 * The formats in which the selected zip codes are listed. 
+	 */
+	private enum Format { COLLISIONS, PERSONS, CYCLISTS } 
+	
+	private Comparator<ZipCodeList> order;
+	private int k;
+	private ZipCodeSelector selector;
+	private Format format;
+	private boolean largestFirst;
+	
+	private ZipCodeRankingReport ( Comparator<ZipCodeList> order, int k, Format format, 
+			boolean largestFirst ) {
+		this.order = order;
+		this.k = k;
+		this.selector = new ZipCodeSelector(order, k);
+		this.format = format;
+		this.largestFirst = largestFirst;
+	}
+	
+	/**
+	 * Creates a report of k zip codes with most collisions. 
+	 * @param k number of zip codes 
+	 * @return the report (see CollisionList.getZipCodesWithMostCollisions())
+	 */
+	public static ZipCodeRankingReport mostCollisions ( int k ) {
+		return new ZipCodeRankingReport(new CompareByNumOfCollisionsDescending(), k, 
+				Format.COLLISIONS, false);
+	}
+	
+	/**
+	 * Creates a report of k zip codes with least collisions. 
+	 * @param k number of zip codes 
+	 * @return the report (see CollisionList.getZipCodesWithLeastCollisions())
+	 */
+	public static ZipCodeRankingReport leastCollisions ( int k ) {
+		return new ZipCodeRankingReport(new CompareByNumOfCollisionsAscending(), k, 
+				Format.COLLISIONS, true);
+	}
+	
+	/**
+	 * Creates a report of k zip codes with most injured and killed persons. 
+	 * @param k number of zip codes 
+	 * @return the report (see CollisionList.getZipCodesWithMostPersonIncidents())
+	 */
+	public static ZipCodeRankingReport mostPersonIncidents ( int k ) {
+		return new ZipCodeRankingReport(new CompareByNumOfPersonsIncidentsDescending(), k, 
+				Format.PERSONS, false);
+	}
+	
+	/**
+	 * Creates a report of k zip codes with most injured and killed cyclists. 
+	 * @param k number of zip codes 
+	 * @return the report (see CollisionList.getZipCodesWithMostCyclistIncidents())
+	 */
+	public static ZipCodeRankingReport mostCyclistIncidents ( int k ) {
+		return new ZipCodeRankingReport(new CompareByNumOfCyclistsIncidentsDescending(), k, 
+				Format.CYCLISTS, false);
+	}
+
+	@Override
+	public boolean needsCollisions ( ) {
+		return false;
+	}
+
+	@Override
+	public void addZipCode ( ZipCodeList zipList ) {
+		selector.offer(zipList);
+	}
+
+	@Override
+	public void addCollision ( CollisionStore store, int row ) {
+		//only the totals are used
+	}
+
+	@Override
+	public CollisionReport newPartial ( ) {
+		return new ZipCodeRankingReport(order, k, format, largestFirst);
+	}
+
+	@Override
+	public void merge ( CollisionReport partial ) {
+		for (ZipCodeList zipList : ((ZipCodeRankingReport) partial).getZipCodes()) {
+			selector.offer(zipList);
+		}
+	}
+	
+	/**
+	 * Determines if the ranking is changed by a collision: only collisions that hurt 
+	 * someone change the numbers of persons or cyclists hurt, and the ranking changes 
+	 * only if the zip code of the collision is or becomes one of the selected ones. 
+	 * @param zipList the zip code list to which the collision has been added 
+	 * @param store the store that holds the collision 
+	 * @param row the row at which the collision is stored 
+	 * @return true if the ranking may have changed, false if it is certainly the same 
+	 */
+	@Override
+	public boolean isAffectedBy ( ZipCodeList zipList, CollisionStore store, int row ) {
+		switch (format) {
+		case PERSONS:
+			if (store.getCount(CollisionStore.PERSONS_INJURED, row) == 0 
+					&& store.getCount(CollisionStore.PERSONS_KILLED, row) == 0) 
+				return false;
+			break;
+		case CYCLISTS:
+			if (store.getCount(CollisionStore.CYCLISTS_INJURED, row) == 0 
+					&& store.getCount(CollisionStore.CYCLISTS_KILLED, row) == 0) 
+				return false;
+			break;
+		default:
+		}
+		return selector.wouldSelect(zipList);
+	}
+	
+	/**
+	 * Returns the selected zip codes in ranking order. 
+	 * @return the list of selected zip codes 
+	 */
+	public ArrayList<ZipCodeList> getZipCodes ( ) {
+		return selector.getSelected();
+	}
+
+	/**
+	 * Returns the numbers of the selected zip codes, in the order in which they are 
+	 * listed: the rankings of the most collisions and incidents start with the 
+	 * largest numbers, and the ranking of the least collisions lists the same zip 
+	 * codes as getZipCodes() starting with the largest number of collisions. 
+	 * @return the entries of the selected zip codes 
+	 */
+	public ArrayList<Entry> getEntries ( ) {
+		ArrayList<ZipCodeList> selected = selector.getSelected();
+		ArrayList<Entry> result = new ArrayList<Entry>(selected.size());
+		for (int i = 0; i < selected.size(); i++) {
+			//the least ranking is listed starting with the largest number of collisions
+			ZipCodeList zipList = selected.get(largestFirst ? selected.size() - 1 - i : i);
+			switch (format) {
+			case PERSONS:
+				result.add(new Entry(zipList.getZip(), 
+						zipList.getTotalNumOfPersonsInjured() + zipList.getTotalNumOfPersonsKilled(), 
+						zipList.getTotalNumOfPersonsKilled()));
+				break;
+			case CYCLISTS:
+				result.add(new Entry(zipList.getZip(), 
+						zipList.getTotalNumOfCyclistsInjured() + zipList.getTotalNumOfCyclistsKilled(), 
+						zipList.getTotalNumOfCyclistsKilled()));
+				break;
+			default:
+				result.add(new Entry(zipList.getZip(), zipList.getTotalNumOfCollisions(), 0));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String getResult ( ) {
+		return ReportFormat.TEXT.render(this);
+	}
+
+	@Override
+	public void render ( ReportFormat reportFormat, Appendable out ) throws IOException {
+		ArrayList<Entry> entries = getEntries();
+		if (reportFormat != ReportFormat.TEXT) {
+			ReportTableWriter table;
+			switch (format) {
+			case PERSONS:
+				table = new ReportTableWriter(reportFormat, out, "zip", "personsHurt", "personsKilled");
+				break;
+			case CYCLISTS:
+				table = new ReportTableWriter(reportFormat, out, "zip", "cyclistsHurt", "cyclistsKilled");
+				break;
+			default:
+				table = new ReportTableWriter(reportFormat, out, "zip", "collisions");
+			}
+			for (Entry entry : entries) {
+				if (format == Format.COLLISIONS) {
+					table.addRow(entry.getZip(), entry.getCount());
+				}
+				else {
+					table.addRow(entry.getZip(), entry.getCount(), entry.getKilled());
+				}
+			}
+			table.close();
+			return;
+		}
+		
+		for (Entry entry : entries) {
+			switch (format) {
+			case PERSONS:
+				out.append( String.format("    %5s  %5d (%3d killed ) persons hurt\n", entry.getZip(),
+						entry.getCount(), entry.getKilled() ));
+				break;
+			case CYCLISTS:
+				out.append( String.format("    %5s  %5d (%3d killed ) cyclists hurt\n", entry.getZip(),
+						entry.getCount(), entry.getKilled() ));
+				break;
+			default:
+				out.append(String.format("    %5s  %5d collisions\n", entry.getZip(), entry.getCount()));
+			}
+		}
+	}
+	
+	/**
+	 * Entry holds the numbers of a selected zip code: the number of collisions, or 
+	 * the number of persons or cyclists hurt (injured or killed) and how many of 
+	 * them were killed. 
+	 */
+	public static class Entry {
+		
+		private String zip;
+		private int count;
+		private int killed;
+		
+		private Entry ( String zip, int count, int killed ) {
+			this.zip = zip;
+			this.count = count;
+			this.killed = killed;
+		}
+		
+		/**
+		 * Returns the zip code. 
+		 * @return the zip code 
+		 */
+		public String getZip ( ) {
+			return zip;
+		}
+		
+		/**
+		 * Returns the number by which the zip code is ranked. 
+		 * @return the number of collisions, or of persons or cyclists hurt 
+		 */
+		public int getCount ( ) {
+			return count;
+		}
+		
+		/**
+		 * Returns the number of persons or cyclists killed. 
+		 * @return the number killed, or 0 in the rankings by number of collisions 
+		 */
+		public int getKilled ( ) {
+			return killed;
+		}
+	}
+}
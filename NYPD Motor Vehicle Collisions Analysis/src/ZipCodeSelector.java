@@ -0,0 +1,78 @@
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * ZipCodeSelector selects the first k ZipCodeList objects, in a given order, out of 
+ * all the objects offered to it. Objects that are equal according to the order are 
+ * ranked by their zip codes, so the selection is deterministic. Only the k best 
+ * objects seen so far are kept (in a heap with the worst of them on top), so offering 
+ * n objects takes O(n log k) time and O(k) memory. 
+ * 
+ * @author Joanna K. and Dana Kirsanov
+ *
+ */
+public class ZipCodeSelector {
+	
+	private Comparator<ZipCodeList> ranking;
+	private int k;
+	private PriorityQueue<ZipCodeList> heap;
+	//the objects in heap, so that wouldSelect() finds them in constant time 
+	private HashSet<ZipCodeList> selected;
+	
+	/**
+	 * Creates an empty ZipCodeSelector object. 
+	 * @param order the order in which zip codes are ranked 
+	 * @param k number of zip codes to be selected 
+	 */
+	public ZipCodeSelector ( Comparator<ZipCodeList> order, int k ) {
+		this.ranking = order.thenComparing(Comparator.naturalOrder());
+		this.k = k;
+		//the heap keeps the k best zip codes found so far with the worst one on top
+		this.heap = new PriorityQueue<ZipCodeList>(Math.max(1, Math.min(k, 1024)), ranking.reversed());
+		this.selected = new HashSet<ZipCodeList>();
+	}
+	
+	/**
+	 * Offers another ZipCodeList object to this selector. 
+	 * @param zipList the object to be considered 
+	 */
+	public void offer ( ZipCodeList zipList ) {
+		if (heap.size() < k) {
+			heap.add(zipList);
+			selected.add(zipList);
+		}
+		else if (k > 0 && ranking.compare(zipList, heap.peek()) < 0) {
+			selected.remove(heap.poll());
+			heap.add(zipList);
+			selected.add(zipList);
+		}
+	}
+	
+	/**
+	 * Determines if a ZipCodeList object would be selected if all objects were 
+	 * offered again, assuming that only that object has changed since the objects 
+	 * were offered. An object that is already selected counts as selected. 
+	 * @param zipList the object to be considered 
+	 * @return true if zipList is or would be one of the selected objects 
+	 */
+	public boolean wouldSelect ( ZipCodeList zipList ) {
+		if (k == 0) 
+			return false;
+		return heap.size() < k || selected.contains(zipList) || ranking.compare(zipList, heap.peek()) < 0;
+	}
+	
+	/**
+	 * Returns the selected ZipCodeList objects. 
+	 * @return a list of at most k objects, sorted according to the order
+	 */
+	public ArrayList<ZipCodeList> getSelected ( ) {
+		ArrayList<ZipCodeList> result = new ArrayList<ZipCodeList>(heap);
+		Collections.sort(result, ranking);
+		return result;
+	}
+}